@@ -35,4 +35,9 @@ public class Main extends Application {
             exception.printStackTrace();
         }
     }
+
+    @Override
+    public void stop() {
+        tomato.close();
+    }
 }
@@ -1,22 +1,53 @@
 package tomato;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Collectors;
 
 import tomato.commands.Command;
 import tomato.data.TaskList;
 import tomato.parser.Parser;
+import tomato.parser.ScriptParser;
+import tomato.storage.Durability;
+import tomato.storage.MappedTaskFile;
+import tomato.storage.ShardedStorage;
 import tomato.storage.Storage;
+import tomato.storage.TaskFileFormat;
+import tomato.storage.TaskStorage;
+import tomato.ui.TextUserInterface;
 import tomato.ui.UserInterface;
 
 /**
  * Represents the Tomato chatbot application.
  */
 public class Tomato {
+    private static final long SAVE_BATCH_INTERVAL_MILLIS = 200;
+    private static final String CONVERT_FLAG = "--convert";
+    private static final int CONVERT_ARG_COUNT = 2;
+    private static final String BATCH_FLAG = "--batch";
+    private static final String SHARDED_FLAG = "--sharded";
+    private static final String VIEW_FLAG = "--view";
+    private static final int BATCH_FILE_ARG_COUNT = 2;
+    private static final String NOT_RUN_MESSAGE = "No commands were run.";
+    private static final String NOT_SAVED_MESSAGE = "No changes were saved.";
+    private static final String JOURNAL_NOT_SHOWN_MESSAGE = "Changes made since the last full save are kept in "
+            + "the journal and are not shown.";
+
     private UserInterface ui;
     private Parser parser;
-    private Storage storage;
+    private TaskStorage storage;
     private TaskList tasks;
+    private final ArrayList<String> startupMessages = new ArrayList<>();
 
     /**
      * Creates a Tomato chatbot with the specified storage file path.
@@ -24,28 +55,67 @@ public class Tomato {
      * @param filePath file path location (e.g. "data/TaskList.txt" ) to save tasks into.
      */
     public Tomato(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Creates a Tomato chatbot with the specified storage file path, or with a directory of shard files.
+     *
+     * @param path file path location (e.g. "data/TaskList.txt") or shard directory (e.g. "data/shards").
+     * @param isSharded whether tasks are saved in a directory of shard files rather than a single task file.
+     */
+    public Tomato(String path, boolean isSharded) {
         ui = new UserInterface();
-        storage = new Storage(filePath);
+        Storage fileStorage = isSharded ? null : new Storage(path, true);
+        storage = isSharded ? new ShardedStorage(path) : fileStorage;
         tasks = loadTaskList(storage);
+        tasks.enableInfixSearch();
+        if (fileStorage != null) {
+            fileStorage.startWriteBehind(Durability.BATCHED, SAVE_BATCH_INTERVAL_MILLIS);
+        }
         parser = new Parser();
     }
 
     /**
      * Returns a loaded task list, or a new empty list when loading fails.
+     * Corrupted records are quarantined rather than failing the load, and repairs made to the task file
+     * are kept as startup messages. A task file that cannot be loaded
+     * is backed up before starting empty, so that the next save does not overwrite it.
      *
      * @param storageAdapter Storage object to load the file from.
      * @return TaskList object.
      */
-    public TaskList loadTaskList(Storage storageAdapter) {
+    public TaskList loadTaskList(TaskStorage storageAdapter) {
         TaskList loadedTasks;
         try {
-            loadedTasks = new TaskList(storageAdapter.load());
+            loadedTasks = new TaskList(storageAdapter.loadVerified());
+            startupMessages.addAll(storageAdapter.getRecoveryMessages());
         } catch (FileNotFoundException | TomatoException exception) {
             loadedTasks = new TaskList();
+            if (!storageAdapter.isNewTaskFile()) {
+                startupMessages.add(backUpUnloadableTaskFile(storageAdapter, exception));
+            }
         }
         return loadedTasks;
     }
 
+    /**
+     * Backs up a task file that could not be loaded and returns a message describing what happened.
+     *
+     * @param storageAdapter Storage object that failed to load.
+     * @param loadError Error that stopped the task file from loading.
+     * @return startup message for the user.
+     */
+    private String backUpUnloadableTaskFile(TaskStorage storageAdapter, Exception loadError) {
+        String message = "Unable to load task file: " + loadError.getMessage();
+        try {
+            return message + "\nIt was backed up to " + storageAdapter.backUpAndReset()
+                    + " and Tomato started with an empty list.";
+        } catch (TomatoException exception) {
+            return message + "\n" + exception.getMessage();
+        }
+    }
+
     /**
      * Sets the GUI adapter used by Tomato.
      *
@@ -54,14 +124,109 @@ public class Tomato {
     public void setGui(UserInterface gui) {
         ui = gui;
         ui.showStartDialog();
+        for (String message : startupMessages) {
+            ui.showErrorDialog(new TomatoException(message));
+        }
+    }
+
+    /**
+     * Converts the task file at the given path into the given format.
+     *
+     * @param filePath file path location of the task file.
+     * @param formatName name of the target format, "text" or "binary".
+     */
+    public static void convertTaskFile(String filePath, String formatName) {
+        try {
+            TaskFileFormat format = TaskFileFormat.valueOf(formatName.toUpperCase());
+            new Storage(filePath, true).convertTo(format);
+            System.out.println("Converted " + filePath + " to " + formatName + " format.");
+        } catch (IllegalArgumentException exception) {
+            System.out.println("Unknown task file format: " + formatName + ". Please choose from [text, binary].");
+        } catch (FileNotFoundException | TomatoException exception) {
+            System.out.println("Unable to convert task file: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Shows the tasks in the task file at the given path without loading it, running the list and find commands
+     * read from the given input until it ends or a bye command is given.
+     * The task file is memory-mapped and only the tasks shown are decoded, so a very large task file opens
+     * as quickly as a small one.
+     *
+     * @param filePath file path location of the task file.
+     * @param input Reader of commands, one per line.
+     * @param output Writer to write all responses and errors to.
+     * @throws IOException If the commands cannot be read.
+     */
+    public static void viewTaskFile(String filePath, BufferedReader input, PrintWriter output) throws IOException {
+        UserInterface viewUi = new TextUserInterface(output);
+        Storage fileStorage = new Storage(filePath);
+        MappedTaskFile mappedTasks;
+        try {
+            mappedTasks = fileStorage.openMapped();
+        } catch (TomatoException exception) {
+            viewUi.showErrorDialog(exception);
+            output.flush();
+            return;
+        }
+        if (fileStorage.hasJournalChanges()) {
+            output.println(JOURNAL_NOT_SHOWN_MESSAGE);
+        }
+
+        Parser viewParser = new Parser();
+        String line;
+        while ((line = input.readLine()) != null) {
+            try {
+                Command cmd = viewParser.parse(line);
+                if (cmd.isExit()) {
+                    break;
+                }
+                cmd.executeOnMapped(mappedTasks, viewUi);
+            } catch (TomatoException exception) {
+                viewUi.showErrorDialog(exception);
+            }
+            output.flush();
+        }
+        output.flush();
     }
 
     /**
      * Starts the Tomato chatbot in text UI mode.
+     * Run with "--convert {text|binary}" to convert the task file into the given format instead, or with
+     * "--batch [{script file}]" to run a script of commands from the given file, or standard input if none.
+     * Run with "--sharded" to keep the tasks in a directory of shard files by month instead of a single task file.
+     * Run with "--view" to list and find tasks in the task file without loading it, e.g. for a very large archive.
      *
      * @param args arguments.
      */
     public static void main(String[] args) {
+        if (args.length == CONVERT_ARG_COUNT && args[0].equals(CONVERT_FLAG)) {
+            convertTaskFile("data/TaskList.txt", args[1]);
+            return;
+        }
+
+        if (args.length == 1 && args[0].equals(SHARDED_FLAG)) {
+            new Tomato("data/shards", true).run();
+            return;
+        }
+
+        if (args.length == 1 && args[0].equals(VIEW_FLAG)) {
+            PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+            try {
+                viewTaskFile("data/TaskList.txt", new BufferedReader(new InputStreamReader(System.in)), output);
+            } catch (IOException exception) {
+                output.println("Unable to read commands: " + exception.getMessage());
+                output.flush();
+            }
+            return;
+        }
+
+        if (args.length > 0 && args[0].equals(BATCH_FLAG)) {
+            Tomato tomato = new Tomato("data/TaskList.txt");
+            tomato.runBatch(args.length == BATCH_FILE_ARG_COUNT ? args[1] : null);
+            return;
+        }
+
         Tomato tomato = new Tomato("data/TaskList.txt");
         tomato.run();
     }
@@ -72,6 +237,9 @@ public class Tomato {
     public void run() {
         Scanner consoleScanner = new Scanner(System.in);
         String input;
+        for (String message : startupMessages) {
+            System.out.println(message);
+        }
 
         while (true) {
             input = consoleScanner.nextLine();
@@ -79,6 +247,7 @@ public class Tomato {
                 Command cmd = parser.parse(input);
 
                 if (cmd.isExit()) {
+                    storage.flush();
                     break;
                 }
 
@@ -89,6 +258,104 @@ public class Tomato {
         }
     }
 
+    /**
+     * Runs the script of commands in the given file, or read from standard input if no file is given,
+     * writing all output to standard output when the script ends.
+     *
+     * @param scriptPath Path of the script file, or null to read standard input.
+     */
+    public void runBatch(String scriptPath) {
+        PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        try {
+            List<String> lines = scriptPath == null
+                    ? new BufferedReader(new InputStreamReader(System.in)).lines().collect(Collectors.toList())
+                    : Files.readAllLines(Path.of(scriptPath));
+            runScript(lines, output);
+        } catch (IOException exception) {
+            output.println("Unable to read script: " + exception.getMessage());
+        }
+        output.flush();
+    }
+
+    /**
+     * Runs the given lines of commands as one unit.
+     * Every line is parsed before any is run, and the task list is saved once, after the last command.
+     * If a line cannot be parsed, no command is run, and if a command fails, the script stops and none of its
+     * changes are saved or kept. Errors name the line they were raised for. Blank lines are skipped, and the
+     * script ends early at a bye command.
+     *
+     * @param lines Lines of the script.
+     * @param output Writer to write all responses and errors to.
+     * @return true if every command was run and the task list was saved.
+     */
+    public boolean runScript(List<String> lines, PrintWriter output) {
+        UserInterface scriptUi = new TextUserInterface(output);
+        for (String message : startupMessages) {
+            output.println(message);
+        }
+
+        Command[] commands;
+        try {
+            commands = ScriptParser.parse(lines);
+        } catch (TomatoException exception) {
+            scriptUi.showErrorDialog(exception);
+            output.println(NOT_RUN_MESSAGE);
+            return false;
+        }
+
+        storage.deferSaves(tasks.getTaskList());
+        for (int i = 0; i < commands.length; i++) {
+            if (commands[i] == null) {
+                continue;
+            }
+            if (commands[i].isExit()) {
+                break;
+            }
+
+            try {
+                commands[i].execute(tasks, scriptUi, storage);
+            } catch (TomatoException exception) {
+                scriptUi.showErrorDialog(ScriptParser.getLineError(i + 1, exception));
+                output.println(NOT_SAVED_MESSAGE);
+                discardScriptChanges(scriptUi);
+                return false;
+            }
+        }
+
+        try {
+            storage.saveDeferred(tasks.getTaskList());
+            storage.flush();
+            return true;
+        } catch (TomatoException exception) {
+            scriptUi.showErrorDialog(exception);
+            return false;
+        }
+    }
+
+    /**
+     * Puts the task list back as it was before a failed script, so that its changes are neither kept nor saved.
+     *
+     * @param scriptUi UI to show an error on if the task list cannot be put back.
+     */
+    private void discardScriptChanges(UserInterface scriptUi) {
+        try {
+            tasks = new TaskList(storage.discardDeferred());
+            tasks.enableInfixSearch();
+        } catch (TomatoException exception) {
+            scriptUi.showErrorDialog(exception);
+        }
+    }
+
+    /**
+     * Waits for every pending save to reach the disk, e.g. before the app closes.
+     */
+    public void close() {
+        try {
+            storage.flush();
+        } catch (TomatoException exception) {
+            System.out.println(exception.getMessage());
+        }
+    }
 
     /**
      * Handles a single user message in the GUI.
@@ -0,0 +1,152 @@
+package tomato.commands;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.data.KeywordIndex;
+import tomato.data.TaskList;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
+import tomato.ui.UserInterface;
+
+/**
+ * Represents a command that marks, unmarks or deletes many tasks at once, e.g. "mark 1-500", "delete 3,7,9" or
+ * "unmark all /find book".
+ * <p>
+ * The chosen tasks are kept in a bit set and changed together through the task list, so that its search indexes
+ * stay in step. The changes are saved together too, e.g. as one journal record per task in a single write.
+ */
+public class BulkTaskCommand extends Command {
+    public static final String ALL_WORD = "all";
+    public static final String FIND_FLAG = "/find";
+    private static final int LISTED_TASK_LIMIT = 10;
+    private static final String MORE_TASKS_MESSAGE = "...and %d more.\n";
+    private static final String NO_TASKS_MESSAGE = "There are no matching tasks in your list.";
+    private static final String NO_TASK_MESSAGE = "There is no task %d in your list!";
+    private final Action action;
+    private final int[] firstTaskNums;
+    private final int[] lastTaskNums;
+    private final String keywords;
+
+    /**
+     * Represents the change made to each chosen task.
+     */
+    public static enum Action {
+        MARK, UNMARK, DELETE
+    }
+
+    /**
+     * Creates a command that changes every task, or every task matching the given keywords.
+     *
+     * @param action Change to make to each task.
+     * @param keywords Keywords the tasks must all contain, or null for every task.
+     */
+    public BulkTaskCommand(Action action, String keywords) {
+        this(action, null, null, keywords);
+    }
+
+    /**
+     * Creates a command that changes the tasks in the given ranges of task numbers, optionally only those
+     * matching the given keywords.
+     *
+     * @param action Change to make to each task.
+     * @param firstTaskNums Zero-based index of the first task in each range, or null for every task.
+     * @param lastTaskNums Zero-based index of the last task in each range, or null for every task.
+     * @param keywords Keywords the tasks must all contain, or null for any tasks.
+     */
+    public BulkTaskCommand(Action action, int[] firstTaskNums, int[] lastTaskNums, String keywords) {
+        assert (firstTaskNums == null) == (lastTaskNums == null) : "ranges should have a first and last task";
+        assert firstTaskNums == null || firstTaskNums.length == lastTaskNums.length
+                : "ranges should have a first and last task";
+        this.action = action;
+        this.firstTaskNums = firstTaskNums;
+        this.lastTaskNums = lastTaskNums;
+        this.keywords = keywords;
+    }
+
+    /**
+     * Returns the task numbers of the chosen tasks.
+     *
+     * @throws TomatoException If a range goes past the end of the list.
+     */
+    private BitSet selectTasks(TaskList tasks) throws TomatoException {
+        List<Task> taskList = tasks.getTaskList();
+        BitSet selected = new BitSet(taskList.size());
+        if (firstTaskNums == null) {
+            selected.set(0, taskList.size());
+        } else {
+            for (int i = 0; i < firstTaskNums.length; i++) {
+                assert firstTaskNums[i] >= 0 && firstTaskNums[i] <= lastTaskNums[i] : "range should not be empty";
+                if (lastTaskNums[i] >= taskList.size()) {
+                    throw new TomatoException(String.format(NO_TASK_MESSAGE, lastTaskNums[i] + 1));
+                }
+                selected.set(firstTaskNums[i], lastTaskNums[i] + 1);
+            }
+        }
+
+        if (keywords != null) {
+            BitSet matches = new BitSet(taskList.size());
+            for (int taskNumber : tasks.findTasks(keywords, KeywordIndex.Mode.ALL)) {
+                matches.set(taskNumber);
+            }
+            selected.and(matches);
+        }
+        return selected;
+    }
+
+    private String getHeader(int count) {
+        switch (action) {
+        case MARK:
+            return "Nice! I've marked these " + count + " tasks as done:\n";
+        case UNMARK:
+            return "OK! I've marked these " + count + " tasks as not done yet:\n";
+        default:
+            return "Noted. I've removed these " + count + " tasks:\n";
+        }
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        BitSet selected = selectTasks(tasks);
+        if (selected.isEmpty()) {
+            ui.showTomatoDialog(NO_TASKS_MESSAGE);
+            return;
+        }
+
+        ArrayList<Task> changedTasks;
+        Journal.Operation operation;
+        switch (action) {
+        case MARK:
+            changedTasks = tasks.markTasks(selected);
+            operation = Journal.Operation.MARK;
+            break;
+        case UNMARK:
+            changedTasks = tasks.unmarkTasks(selected);
+            operation = Journal.Operation.UNMARK;
+            break;
+        default:
+            changedTasks = tasks.deleteTasks(selected);
+            operation = Journal.Operation.DELETE;
+            break;
+        }
+        storage.saveChanges(tasks.getTaskList(), operation, changedTasks);
+
+        int count = changedTasks.size();
+        StringBuilder res = new StringBuilder(getHeader(count));
+        int taskNumber = selected.nextSetBit(0);
+        for (int i = 0; i < Math.min(count, LISTED_TASK_LIMIT); i++) {
+            res.append(taskNumber + 1).append(". ").append(changedTasks.get(i)).append("\n");
+            taskNumber = selected.nextSetBit(taskNumber + 1);
+        }
+        if (count > LISTED_TASK_LIMIT) {
+            res.append(String.format(MORE_TASKS_MESSAGE, count - LISTED_TASK_LIMIT));
+        }
+        if (action == Action.DELETE) {
+            res.append("Now you have ").append(tasks.size()).append(" tasks in the list.");
+        }
+        ui.showTomatoDialog(res.toString());
+    }
+}
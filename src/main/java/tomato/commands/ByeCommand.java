@@ -1,7 +1,8 @@
 package tomato.commands;
 
+import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.TaskStorage;
 import tomato.ui.UserInterface;
 
 /**
@@ -16,8 +17,12 @@ public class ByeCommand extends Command {
     public ByeCommand() {
     }
 
+    /**
+     * Waits for every pending save to reach the disk, then exits.
+     */
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) {
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        storage.flush();
         ui.exit();
     }
 
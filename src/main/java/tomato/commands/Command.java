@@ -2,13 +2,16 @@ package tomato.commands;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.MappedTaskFile;
+import tomato.storage.TaskStorage;
 import tomato.ui.UserInterface;
 
 /**
  * Represents an executable command in Tomato.
  */
 public abstract class Command {
+    private static final String NOT_VIEWABLE_MESSAGE = "Only list and find can be used while viewing a task file.";
+
     /**
      * Executes the command with the given task list, UI, and storage.
      *
@@ -17,7 +20,19 @@ public abstract class Command {
      * @param storage The storage handler for saving or loading tasks.
      * @throws TomatoException If an error occurs during execution.
      */
-    public abstract void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException;
+    public abstract void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException;
+
+    /**
+     * Executes the command with a memory-mapped task file instead of a loaded task list, decoding only the tasks
+     * it shows. Override in commands that can show tasks without loading them all.
+     *
+     * @param tasks Mapped view of the task file.
+     * @param ui The UI handler for displaying messages.
+     * @throws TomatoException If the command cannot be run on a mapped task file, or an error occurs.
+     */
+    public void executeOnMapped(MappedTaskFile tasks, UserInterface ui) throws TomatoException {
+        throw new TomatoException(NOT_VIEWABLE_MESSAGE);
+    }
 
     /**
      * Returns whether this command signals the app to exit.
@@ -28,4 +43,14 @@ public abstract class Command {
     public boolean isExit() {
         return false;
     }
+
+    /**
+     * Returns whether this command only reads the task list, so that the same instance can be run again
+     * for the same input.
+     *
+     * @return False by default; true only for commands that change nothing.
+     */
+    public boolean isReadOnly() {
+        return false;
+    }
 }
@@ -1,11 +1,12 @@
 package tomato.commands;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.List;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -31,11 +32,11 @@ public class DeadlineCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
         String res = tasks.createDeadline(taskName, dateTime);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
+        List<Task> updatedTaskList = tasks.getTaskList();
         assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(tasks.getTaskList());
+        storage.saveChange(updatedTaskList, Journal.Operation.ADD, tasks.get(tasks.size() - 1));
         ui.showTomatoDialog(res);
     }
 }
@@ -2,7 +2,9 @@ package tomato.commands;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
 import tomato.ui.UserInterface;
 
 /**
@@ -10,7 +12,8 @@ import tomato.ui.UserInterface;
  */
 public class DeleteCommand extends Command {
     public static final String COMMAND_WORD = "delete";
-    public static final String MESSAGE_USAGE = "delete {task number} e.g.(delete 1, delete 3)";
+    public static final String MESSAGE_USAGE = "delete {task number}|{task numbers and ranges}|all [/find {keywords}] "
+            + "e.g.(delete 1, delete 3,7,9, delete 1-500)";
     private final int taskNum;
 
     /**
@@ -23,9 +26,10 @@ public class DeleteCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        String res = tasks.deleteTask(taskNum);
-        storage.saveToDisk(tasks.getTaskList());
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        Task task = tasks.get(taskNum);
+        String res = tasks.deleteTaskById(task.getId());
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.DELETE, task);
         ui.showTomatoDialog(res);
     }
 }
@@ -0,0 +1,60 @@
+package tomato.commands;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.data.TaskList;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
+import tomato.ui.UserInterface;
+
+/**
+ * Represents a command that lists the unfinished deadlines due within a number of days, earliest first.
+ */
+public class DueCommand extends Command {
+    public static final String COMMAND_WORD = "due";
+    public static final String TOP_FLAG = "/top";
+    public static final String MESSAGE_USAGE = "due {number of days} [/top {number of tasks}] "
+            + "e.g.(due 7, due 7 /top 3)";
+    private static final String DEADLINES_HEADER = "Here are the deadlines due within %d days:\n";
+    private static final String NO_DEADLINES_MESSAGE = "There are no deadlines due within %d days.";
+    private final int days;
+    private final int limit;
+
+    /**
+     * Creates a due command.
+     *
+     * @param days Number of days from now to list the deadlines due within.
+     * @param limit Maximum number of deadlines to list.
+     */
+    public DueCommand(int days, int limit) {
+        assert days >= 0 : "number of days should not be negative";
+        assert limit > 0 : "limit should be positive";
+        this.days = days;
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> taskList = tasks.getTaskList();
+        ArrayList<Integer> deadlines = tasks.findDeadlines(now, now.plusDays(days), limit);
+        if (deadlines.isEmpty()) {
+            ui.showTomatoDialog(String.format(NO_DEADLINES_MESSAGE, days));
+            return;
+        }
+
+        StringBuilder res = new StringBuilder(String.format(DEADLINES_HEADER, days));
+        for (int i = 0; i < deadlines.size(); i++) {
+            res.append(i + 1).append(".").append(taskList.get(deadlines.get(i))).append("\n");
+        }
+        ui.showTomatoDialog(res.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -1,11 +1,13 @@
 package tomato.commands;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.List;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
+import tomato.task.Event;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -17,6 +19,7 @@ public class EventCommand extends Command {
     public static final String MESSAGE_USAGE = "event {task_description} /from {DD/MM/YYYY HHMM} " +
             "/to {DD/MM/YYYY HHMM}\n" +
             "e.g.(event team meeting /from 2/2/2025 1945 /to 2/2/2025 2045)";
+    private static final String CONFLICTS_HEADER = "\nNote that it overlaps with:\n";
     private final String taskName;
     private final LocalDateTime from;
     private final LocalDateTime to;
@@ -35,11 +38,32 @@ public class EventCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
         String res = tasks.createEvent(taskName, from, to);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
+        List<Task> updatedTaskList = tasks.getTaskList();
         assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(tasks.getTaskList());
-        ui.showTomatoDialog(res);
+        storage.saveChange(updatedTaskList, Journal.Operation.ADD, tasks.get(tasks.size() - 1));
+        ui.showTomatoDialog(res + getConflicts(tasks));
+    }
+
+    /**
+     * Returns a note listing the other events that overlap the new event, or an empty string if there are none.
+     * Events that only touch the new event's start or end do not overlap it.
+     *
+     * @param tasks Task list ending with the new event.
+     * @return note for the user.
+     */
+    private String getConflicts(TaskList tasks) {
+        List<Task> taskList = tasks.getTaskList();
+        int newEventIndex = taskList.size() - 1;
+        StringBuilder conflicts = new StringBuilder();
+        for (int taskIndex : tasks.findEvents(from, to)) {
+            Event event = (Event) taskList.get(taskIndex);
+            boolean isOverlapping = event.getDateTimeFrom().isBefore(to) && event.getDateTimeTo().isAfter(from);
+            if (taskIndex != newEventIndex && isOverlapping) {
+                conflicts.append(event).append("\n");
+            }
+        }
+        return conflicts.length() == 0 ? "" : CONFLICTS_HEADER + conflicts;
     }
 }
@@ -1,8 +1,15 @@
 package tomato.commands;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
 import tomato.TomatoException;
+import tomato.data.KeywordIndex;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.MappedTaskFile;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
 import tomato.ui.UserInterface;
 
 /**
@@ -10,20 +17,100 @@ import tomato.ui.UserInterface;
  */
 public class FindCommand extends Command {
     public static final String COMMAND_WORD = "find";
-    public static final String MESSAGE_USAGE = "find {keyword} e.g.(find book, find meeting)";
+    public static final String ANY_FLAG = "/any";
+    public static final String MESSAGE_USAGE = "find [/any] {keywords} e.g.(find book, find meeting, "
+            + "find /any book meeting)";
+    private static final String MATCHES_HEADER = "Here are the matching tasks in your list:\n";
+    private static final String NO_MATCHES_MESSAGE = "There are no matching tasks in your list.";
     private final String keyword;
+    private final KeywordIndex.Mode mode;
+    private final OutputMemo outputMemo = new OutputMemo();
 
     /**
-     * Creates a find command.
+     * Creates a find command that matches tasks containing every keyword.
      *
      * @param keyword Keyword to search in tasks.
      */
     public FindCommand(String keyword) {
+        this(keyword, KeywordIndex.Mode.ALL);
+    }
+
+    /**
+     * Creates a find command.
+     *
+     * @param keyword Keywords to search in tasks.
+     * @param mode Whether a task must contain all or any of the keywords.
+     */
+    public FindCommand(String keyword, KeywordIndex.Mode mode) {
         this.keyword = keyword;
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the matching tasks as shown to the user.
+     */
+    private String render(TaskList tasks) {
+        List<Task> taskList = tasks.getTaskList();
+        ArrayList<Integer> matches = tasks.findTasks(keyword, mode);
+        if (matches.isEmpty()) {
+            return NO_MATCHES_MESSAGE;
+        }
+
+        StringBuilder res = new StringBuilder(MATCHES_HEADER);
+        for (int i = 0; i < matches.size(); i++) {
+            res.append(i + 1).append(".").append(taskList.get(matches.get(i))).append("\n");
+        }
+        return res.toString();
+    }
+
+    /**
+     * Returns the matching tasks of a mapped task file as shown to the user.
+     * Each keyword is matched anywhere in the descriptions, ignoring case, as infix search does for a loaded list,
+     * by scanning the mapped records so that only matching tasks are decoded.
+     *
+     * @throws TomatoException If a matching task cannot be decoded.
+     */
+    private String render(MappedTaskFile tasks) throws TomatoException {
+        TreeSet<Integer> matches = null;
+        for (String queryWord : KeywordIndex.tokenize(keyword)) {
+            ArrayList<Integer> wordMatches = tasks.findMatching(queryWord);
+            if (matches == null) {
+                matches = new TreeSet<>(wordMatches);
+            } else if (mode == KeywordIndex.Mode.ALL) {
+                matches.retainAll(new TreeSet<>(wordMatches));
+            } else {
+                matches.addAll(wordMatches);
+            }
+        }
+        if (matches == null || matches.isEmpty()) {
+            return NO_MATCHES_MESSAGE;
+        }
+
+        StringBuilder res = new StringBuilder(MATCHES_HEADER);
+        int matchNumber = 1;
+        for (int taskNumber : matches) {
+            res.append(matchNumber++).append(".").append(tasks.get(taskNumber)).append("\n");
+        }
+        return res.toString();
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        String output = outputMemo.get(tasks);
+        if (output == null) {
+            output = render(tasks);
+            outputMemo.put(tasks, output);
+        }
+        ui.showTomatoDialog(output);
+    }
+
+    @Override
+    public void executeOnMapped(MappedTaskFile tasks, UserInterface ui) throws TomatoException {
+        ui.showTomatoDialog(render(tasks));
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        ui.showTomatoDialog(tasks.printMatchingTasks(keyword));
+    public boolean isReadOnly() {
+        return true;
     }
 }
@@ -0,0 +1,63 @@
+package tomato.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.data.TaskList;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
+import tomato.ui.UserInterface;
+
+/**
+ * Represents a command that finds tasks by keywords that may be misspelt, closest matches first.
+ */
+public class FuzzyFindCommand extends Command {
+    public static final String COMMAND_WORD = "find~";
+    public static final String DISTANCE_FLAG = "/distance";
+    public static final int DEFAULT_DISTANCE = 2;
+    public static final int DEFAULT_LIMIT = 10;
+    public static final String MESSAGE_USAGE = "find~ {keywords} [/distance {number of typos}] "
+            + "[/top {number of tasks}] e.g.(find~ meetnig, find~ bok /distance 1 /top 5)";
+    private static final String MATCHES_HEADER = "Here are the closest matching tasks in your list:\n";
+    private static final String NO_MATCHES_MESSAGE = "There are no matching tasks in your list.";
+    private final String keyword;
+    private final int maxDistance;
+    private final int limit;
+
+    /**
+     * Creates a fuzzy find command.
+     *
+     * @param keyword Keywords to search in tasks.
+     * @param maxDistance Largest number of typos allowed in each keyword.
+     * @param limit Maximum number of tasks to list.
+     */
+    public FuzzyFindCommand(String keyword, int maxDistance, int limit) {
+        assert maxDistance >= 0 : "distance should not be negative";
+        assert limit > 0 : "limit should be positive";
+        this.keyword = keyword;
+        this.maxDistance = maxDistance;
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        List<Task> taskList = tasks.getTaskList();
+        ArrayList<Integer> matches = tasks.findTasksFuzzy(keyword, maxDistance, limit);
+        if (matches.isEmpty()) {
+            ui.showTomatoDialog(NO_MATCHES_MESSAGE);
+            return;
+        }
+
+        StringBuilder res = new StringBuilder(MATCHES_HEADER);
+        for (int i = 0; i < matches.size(); i++) {
+            res.append(i + 1).append(".").append(taskList.get(matches.get(i))).append("\n");
+        }
+        ui.showTomatoDialog(res.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
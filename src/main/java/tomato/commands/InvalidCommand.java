@@ -2,7 +2,7 @@ package tomato.commands;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.TaskStorage;
 import tomato.ui.UserInterface;
 
 /**
@@ -26,7 +26,7 @@ public class InvalidCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
         throw new TomatoException(ERROR_MESSAGE + invalidCmd + LIST_COMMANDS_MESSAGE, invalidCmd);
     }
 }
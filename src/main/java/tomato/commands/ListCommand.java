@@ -1,24 +1,305 @@
 package tomato.commands;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
 import tomato.TomatoException;
+import tomato.data.StatusIndex;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.data.TaskScanner;
+import tomato.storage.MappedTaskFile;
+import tomato.storage.TaskStorage;
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
 import tomato.ui.UserInterface;
 
 /**
- * Represents a command that lists all tasks.
+ * Represents a command that lists all tasks, or only the tasks with a given status and type and containing some
+ * text, optionally sorted, limited to the first few, or one page at a time.
  */
 public class ListCommand extends Command {
     public static final String COMMAND_WORD = "list";
+    public static final String DONE_WORD = "done";
+    public static final String UNDONE_WORD = "undone";
+    public static final String SORT_FLAG = "/sort";
+    public static final String HAS_FLAG = "/has";
+    public static final int NO_PAGE = 0;
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final String MESSAGE_USAGE = "list [done|undone] [todo|deadline|event] [{page} [{page size}]] "
+            + "[/has {text}] [/sort by|from|done] [/top {number of tasks}] "
+            + "e.g.(list, list undone, list 2, list 3 50, list undone /has book, list deadline /sort by /top 5)";
+    private static final String LIST_HEADER = "Here are the %s in your list%s%s:\n";
+    private static final String CONTAINING_SUFFIX = " containing \"%s\"";
+    private static final String SORTED_SUFFIX = ", sorted by %s";
+    private static final String PAGE_SUFFIX = " (page %d of %d)";
+    private static final String NO_MATCHES_MESSAGE = "There are no %s in your list.";
+    private static final String NO_PAGE_MESSAGE = "There is no page %d, as the list has only %d pages.";
+    private static final String NOT_VIEWABLE_MESSAGE = "Only the whole list, a page of it or its first tasks "
+            + "can be shown while viewing a task file. Use find to search it.";
+    private final StatusIndex.Status status;
+    private final StatusIndex.Type type;
+    private final String text;
+    private final SortKey sortKey;
+    private final int limit;
+    private final int page;
+    private final int pageSize;
+    private final OutputMemo outputMemo = new OutputMemo();
 
     /**
-     * Creates a list command.
+     * Represents the order tasks are listed in.
+     */
+    public static enum SortKey {
+        NONE, BY, FROM, DONE
+    }
+
+    /**
+     * Creates a list command that lists all tasks.
      */
     public ListCommand() {
+        this(StatusIndex.Status.ANY, StatusIndex.Type.ANY, null, SortKey.NONE, Integer.MAX_VALUE, NO_PAGE,
+                DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a list command that lists the tasks with the given status and type, containing the given text.
+     *
+     * @param status Completion status of the tasks to list.
+     * @param type Type of the tasks to list.
+     * @param text Text the descriptions of the tasks to list contain, ignoring case, or null for any text.
+     * @param sortKey Order to list the tasks in, or list order if none.
+     * @param limit Maximum number of tasks to list, counted before paging.
+     * @param page One-based page of tasks to list, or no page to list them all.
+     * @param pageSize Number of tasks on each page.
+     */
+    public ListCommand(StatusIndex.Status status, StatusIndex.Type type, String text, SortKey sortKey, int limit,
+            int page, int pageSize) {
+        assert limit > 0 : "limit should be positive";
+        assert page >= NO_PAGE : "page should not be negative";
+        assert pageSize > 0 : "page size should be positive";
+        this.status = status;
+        this.type = type;
+        this.text = text;
+        this.sortKey = sortKey;
+        this.limit = limit;
+        this.page = page;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns how the listed tasks are called, e.g. undone deadlines containing "book".
+     */
+    private String getTasksName() {
+        return text == null ? getTypeName() : getTypeName() + String.format(CONTAINING_SUFFIX, text);
+    }
+
+    private String getTypeName() {
+        String typeName;
+        switch (type) {
+        case TODO:
+            typeName = "todos";
+            break;
+        case DEADLINE:
+            typeName = "deadlines";
+            break;
+        case EVENT:
+            typeName = "events";
+            break;
+        default:
+            typeName = "tasks";
+            break;
+        }
+
+        switch (status) {
+        case DONE:
+            return DONE_WORD + " " + typeName;
+        case UNDONE:
+            return UNDONE_WORD + " " + typeName;
+        default:
+            return typeName;
+        }
+    }
+
+    private String getSortName() {
+        switch (sortKey) {
+        case BY:
+            return "deadline";
+        case FROM:
+            return "start time";
+        default:
+            return "status";
+        }
+    }
+
+    /**
+     * Returns the comparator of task numbers for the sort key, which puts tasks without the sorted field last
+     * and keeps tasks that compare equal in list order.
+     */
+    private Comparator<Integer> getComparator(List<Task> taskList) {
+        Comparator<Integer> comparator;
+        switch (sortKey) {
+        case BY:
+            comparator = Comparator.comparing(taskNumber -> taskList.get(taskNumber) instanceof Deadline
+                    ? ((Deadline) taskList.get(taskNumber)).getDateTimeBy() : null,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            break;
+        case FROM:
+            comparator = Comparator.comparing(taskNumber -> taskList.get(taskNumber) instanceof Event
+                    ? ((Event) taskList.get(taskNumber)).getDateTimeFrom() : null,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            break;
+        default:
+            comparator = Comparator.comparing(taskNumber -> taskList.get(taskNumber).isDone());
+            break;
+        }
+        return comparator.thenComparing(Comparator.naturalOrder());
+    }
+
+    /**
+     * Returns the first task numbers in the given order, keeping only that many in a bounded heap,
+     * so that selecting k of n tasks takes O(n log k) time rather than sorting them all.
+     */
+    private static ArrayList<Integer> selectFirst(List<Integer> taskNumbers, Comparator<Integer> comparator,
+            int count) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(comparator.reversed());
+        for (int taskNumber : taskNumbers) {
+            heap.add(taskNumber);
+            if (heap.size() > count) {
+                heap.poll();
+            }
+        }
+
+        ArrayList<Integer> selected = new ArrayList<>(heap);
+        for (int i = selected.size() - 1; i >= 0; i--) {
+            selected.set(i, heap.poll());
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the task numbers of the tasks to consider, in list order.
+     * Only the first ones are built when no filter or sort needs the rest, and tasks are checked for the text
+     * with a {@link TaskScanner}, as no index covers text anywhere in a description together with the filters.
+     */
+    private List<Integer> getCandidates(TaskList tasks, int count) {
+        List<Task> taskList = tasks.getTaskList();
+        List<Integer> taskNumbers;
+        if (status != StatusIndex.Status.ANY || type != StatusIndex.Type.ANY) {
+            taskNumbers = tasks.filterTasks(status, type);
+        } else {
+            int candidateCount = sortKey == SortKey.NONE && text == null
+                    ? Math.min(count, taskList.size()) : taskList.size();
+            taskNumbers = new ArrayList<>(candidateCount);
+            for (int taskNumber = 0; taskNumber < candidateCount; taskNumber++) {
+                taskNumbers.add(taskNumber);
+            }
+        }
+        if (text == null) {
+            return taskNumbers;
+        }
+
+        String lowerCaseText = text.toLowerCase();
+        List<Integer> candidates = taskNumbers;
+        int[] matches = TaskScanner.scan(candidates.size(), i -> taskList.get(candidates.get(i)).getDescription()
+                .toLowerCase().contains(lowerCaseText));
+        ArrayList<Integer> matchingTaskNumbers = new ArrayList<>(matches.length);
+        for (int match : matches) {
+            matchingTaskNumbers.add(candidates.get(match));
+        }
+        return matchingTaskNumbers;
+    }
+
+    /**
+     * Returns the listed tasks as shown to the user.
+     *
+     * @throws TomatoException If the page is past the end of the list.
+     */
+    private String render(TaskList tasks) throws TomatoException {
+        boolean isFiltered = status != StatusIndex.Status.ANY || type != StatusIndex.Type.ANY || text != null;
+        if (!isFiltered && sortKey == SortKey.NONE && limit == Integer.MAX_VALUE && page == NO_PAGE) {
+            return tasks.toString();
+        }
+
+        List<Task> taskList = tasks.getTaskList();
+        long pageEnd = page == NO_PAGE ? Integer.MAX_VALUE : (long) page * pageSize;
+        int shownCount = (int) Math.min(limit, pageEnd);
+        List<Integer> taskNumbers = getCandidates(tasks, shownCount);
+        if (taskNumbers.isEmpty()) {
+            return String.format(NO_MATCHES_MESSAGE, getTasksName());
+        }
+
+        int totalCount = isFiltered ? taskNumbers.size() : taskList.size();
+        int listedCount = Math.min(limit, totalCount);
+        int pageCount = (listedCount + pageSize - 1) / pageSize;
+        if (page > pageCount) {
+            throw new TomatoException(String.format(NO_PAGE_MESSAGE, page, pageCount));
+        }
+
+        if (sortKey != SortKey.NONE) {
+            taskNumbers = selectFirst(taskNumbers, getComparator(taskList), shownCount);
+        }
+        int pageStart = page == NO_PAGE ? 0 : (page - 1) * pageSize;
+        taskNumbers = taskNumbers.subList(pageStart, Math.min(shownCount, taskNumbers.size()));
+
+        String sortSuffix = sortKey == SortKey.NONE ? "" : String.format(SORTED_SUFFIX, getSortName());
+        String pageSuffix = page == NO_PAGE ? "" : String.format(PAGE_SUFFIX, page, pageCount);
+        StringBuilder res = new StringBuilder(String.format(LIST_HEADER, getTasksName(), sortSuffix, pageSuffix));
+        for (int taskNumber : taskNumbers) {
+            res.append(taskNumber + 1).append(". ").append(taskList.get(taskNumber)).append("\n");
+        }
+        return res.toString();
+    }
+
+    /**
+     * Returns the listed tasks of a mapped task file as shown to the user, decoding only the tasks listed.
+     *
+     * @throws TomatoException If the list is filtered or sorted, the page is past the end of the list,
+     *         or a listed task cannot be decoded.
+     */
+    private String render(MappedTaskFile tasks) throws TomatoException {
+        boolean isFiltered = status != StatusIndex.Status.ANY || type != StatusIndex.Type.ANY || text != null;
+        if (isFiltered || sortKey != SortKey.NONE) {
+            throw new TomatoException(NOT_VIEWABLE_MESSAGE);
+        }
+
+        int listedCount = Math.min(limit, tasks.size());
+        if (listedCount == 0) {
+            return String.format(NO_MATCHES_MESSAGE, getTasksName());
+        }
+        int pageCount = (listedCount + pageSize - 1) / pageSize;
+        if (page > pageCount) {
+            throw new TomatoException(String.format(NO_PAGE_MESSAGE, page, pageCount));
+        }
+
+        int pageStart = page == NO_PAGE ? 0 : (page - 1) * pageSize;
+        int pageEnd = page == NO_PAGE ? listedCount : (int) Math.min(listedCount, (long) page * pageSize);
+        String pageSuffix = page == NO_PAGE ? "" : String.format(PAGE_SUFFIX, page, pageCount);
+        StringBuilder res = new StringBuilder(String.format(LIST_HEADER, getTasksName(), "", pageSuffix));
+        for (int taskNumber = pageStart; taskNumber < pageEnd; taskNumber++) {
+            res.append(taskNumber + 1).append(". ").append(tasks.get(taskNumber)).append("\n");
+        }
+        return res.toString();
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        String output = outputMemo.get(tasks);
+        if (output == null) {
+            output = render(tasks);
+            outputMemo.put(tasks, output);
+        }
+        ui.showTomatoDialog(output);
+    }
+
+    @Override
+    public void executeOnMapped(MappedTaskFile tasks, UserInterface ui) throws TomatoException {
+        ui.showTomatoDialog(render(tasks));
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        ui.showTomatoDialog(tasks.toString());
+    public boolean isReadOnly() {
+        return true;
     }
 }
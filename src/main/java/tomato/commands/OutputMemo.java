@@ -0,0 +1,38 @@
+package tomato.commands;
+
+import tomato.data.TaskList;
+
+/**
+ * Remembers the output a read-only command last showed, for as long as the task list it was computed from
+ * has not changed.
+ * The output is tied to the task list and to its modification count at the time,
+ * so any change made since, or a different task list, makes the output stale.
+ */
+class OutputMemo {
+    private TaskList tasks;
+    private long modificationCount;
+    private String output;
+
+    /**
+     * Returns the remembered output, if the task list has not changed since it was computed.
+     *
+     * @param currentTasks Current task list.
+     * @return remembered output, or null if there is none or it is stale.
+     */
+    String get(TaskList currentTasks) {
+        boolean isCurrent = tasks == currentTasks && modificationCount == currentTasks.getModificationCount();
+        return isCurrent ? output : null;
+    }
+
+    /**
+     * Remembers the given output as computed from the current task list.
+     *
+     * @param currentTasks Current task list.
+     * @param currentOutput Output computed from the current task list.
+     */
+    void put(TaskList currentTasks, String currentOutput) {
+        tasks = currentTasks;
+        modificationCount = currentTasks.getModificationCount();
+        output = currentOutput;
+    }
+}
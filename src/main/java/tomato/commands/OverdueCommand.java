@@ -0,0 +1,54 @@
+package tomato.commands;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.data.TaskList;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
+import tomato.ui.UserInterface;
+
+/**
+ * Represents a command that lists the unfinished deadlines that are already past, earliest first.
+ */
+public class OverdueCommand extends Command {
+    public static final String COMMAND_WORD = "overdue";
+    public static final String MESSAGE_USAGE = "overdue [/top {number of tasks}] e.g.(overdue, overdue /top 3)";
+    private static final String DEADLINES_HEADER = "Here are the overdue deadlines:\n";
+    private static final String NO_DEADLINES_MESSAGE = "There are no overdue deadlines.";
+    private final int limit;
+
+    /**
+     * Creates an overdue command.
+     *
+     * @param limit Maximum number of deadlines to list.
+     */
+    public OverdueCommand(int limit) {
+        assert limit > 0 : "limit should be positive";
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        LocalDateTime now = LocalDateTime.now();
+        List<Task> taskList = tasks.getTaskList();
+        ArrayList<Integer> deadlines = tasks.findDeadlines(LocalDateTime.MIN, now.minusMinutes(1), limit);
+        if (deadlines.isEmpty()) {
+            ui.showTomatoDialog(NO_DEADLINES_MESSAGE);
+            return;
+        }
+
+        StringBuilder res = new StringBuilder(DEADLINES_HEADER);
+        for (int i = 0; i < deadlines.size(); i++) {
+            res.append(i + 1).append(".").append(taskList.get(deadlines.get(i))).append("\n");
+        }
+        ui.showTomatoDialog(res.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
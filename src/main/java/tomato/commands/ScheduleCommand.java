@@ -0,0 +1,57 @@
+package tomato.commands;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.data.TaskList;
+import tomato.storage.TaskStorage;
+import tomato.task.Task;
+import tomato.ui.UserInterface;
+
+/**
+ * Represents a command that lists the events happening within a period.
+ */
+public class ScheduleCommand extends Command {
+    public static final String COMMAND_WORD = "schedule";
+    public static final String MESSAGE_USAGE = "schedule /from {DD/MM/YYYY HHMM} /to {DD/MM/YYYY HHMM}\n"
+            + "e.g.(schedule /from 2/2/2025 0000 /to 8/2/2025 2359)";
+    private static final String EVENTS_HEADER = "Here are the events happening in that period:\n";
+    private static final String NO_EVENTS_MESSAGE = "There are no events happening in that period.";
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+
+    /**
+     * Creates a schedule command.
+     *
+     * @param from Start of the period.
+     * @param to End of the period.
+     */
+    public ScheduleCommand(LocalDateTime from, LocalDateTime to) {
+        assert !from.isAfter(to) : "period should not end before it starts";
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        List<Task> taskList = tasks.getTaskList();
+        ArrayList<Integer> events = tasks.findEvents(from, to);
+        if (events.isEmpty()) {
+            ui.showTomatoDialog(NO_EVENTS_MESSAGE);
+            return;
+        }
+
+        StringBuilder res = new StringBuilder(EVENTS_HEADER);
+        for (int i = 0; i < events.size(); i++) {
+            res.append(i + 1).append(".").append(taskList.get(events.get(i))).append("\n");
+        }
+        ui.showTomatoDialog(res.toString());
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
@@ -1,10 +1,9 @@
 package tomato.commands;
 
-import java.util.ArrayList;
-
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -13,7 +12,8 @@ import tomato.ui.UserInterface;
  */
 public class UnmarkCommand extends Command {
     public static final String COMMAND_WORD = "unmark";
-    public static final String MESSAGE_USAGE = "unmark {task number} e.g.(unmark 1, unmark 3)";
+    public static final String MESSAGE_USAGE = "unmark {task number}|{task numbers and ranges}|all [/find {keywords}] "
+            + "e.g.(unmark 1, unmark 2,4, unmark all)";
     private final int taskNum;
 
     /**
@@ -26,11 +26,10 @@ public class UnmarkCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        String res = tasks.unmarkTask(taskNum);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
-        assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(updatedTaskList);
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        Task task = tasks.get(taskNum);
+        String res = tasks.unmarkTaskById(task.getId());
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.UNMARK, task);
         ui.showTomatoDialog(res);
     }
 }
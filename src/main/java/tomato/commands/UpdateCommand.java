@@ -4,7 +4,7 @@ import java.time.LocalDateTime;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.TaskStorage;
 import tomato.ui.UserInterface;
 
 /**
@@ -76,7 +76,7 @@ public class UpdateCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
         switch (updateField) {
         case DESCRIPTION:
             new UpdateDescriptionCommand(taskNum, taskDescription).execute(tasks, ui, storage);
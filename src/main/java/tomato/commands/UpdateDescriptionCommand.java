@@ -1,10 +1,9 @@
 package tomato.commands;
 
-import java.util.ArrayList;
-
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -30,11 +29,10 @@ public class UpdateDescriptionCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        String res = tasks.updateDescription(taskNum, description);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
-        assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(updatedTaskList);
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        Task task = tasks.get(taskNum);
+        String res = tasks.updateDescriptionById(task.getId(), description);
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.UPDATE, task);
         ui.showTomatoDialog(res);
     }
 }
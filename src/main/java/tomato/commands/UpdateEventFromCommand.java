@@ -1,11 +1,11 @@
 package tomato.commands;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -31,11 +31,10 @@ public class UpdateEventFromCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        String res = tasks.updateEventFrom(taskNum, dateTime);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
-        assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(updatedTaskList);
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        Task task = tasks.get(taskNum);
+        String res = tasks.updateEventFromById(task.getId(), dateTime);
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.UPDATE, task);
         ui.showTomatoDialog(res);
     }
 }
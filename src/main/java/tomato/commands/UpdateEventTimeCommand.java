@@ -1,11 +1,11 @@
 package tomato.commands;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 
 import tomato.TomatoException;
 import tomato.data.TaskList;
-import tomato.storage.Storage;
+import tomato.storage.Journal;
+import tomato.storage.TaskStorage;
 import tomato.task.Task;
 import tomato.ui.UserInterface;
 
@@ -35,11 +35,10 @@ public class UpdateEventTimeCommand extends Command {
     }
 
     @Override
-    public void execute(TaskList tasks, UserInterface ui, Storage storage) throws TomatoException {
-        String res = tasks.updateEventTime(taskNum, from, to);
-        ArrayList<Task> updatedTaskList = tasks.getTaskList();
-        assert !updatedTaskList.isEmpty() : "Updated Task List should be not be empty";
-        storage.saveToDisk(updatedTaskList);
+    public void execute(TaskList tasks, UserInterface ui, TaskStorage storage) throws TomatoException {
+        Task task = tasks.get(taskNum);
+        String res = tasks.updateEventTimeById(task.getId(), from, to);
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.UPDATE, task);
         ui.showTomatoDialog(res);
     }
 }
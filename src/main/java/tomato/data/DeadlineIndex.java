@@ -0,0 +1,187 @@
+package tomato.data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tomato.task.Deadline;
+import tomato.task.Task;
+
+/**
+ * Represents a sorted index of the unfinished deadline tasks, for finding the earliest deadlines in a period.
+ * <p>
+ * Deadlines are kept in a skip list ordered by due date-time, with ties broken by task id. A query finds the
+ * start of the period in O(log n) expected time and then walks forward, stopping after the requested number of
+ * deadlines, so it never sorts the task list. Deadlines are removed from the index once they are done.
+ */
+public class DeadlineIndex implements TaskIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LEVEL = 24;
+
+    private final Random levels = new Random();
+    private final Node head = new Node(Long.MIN_VALUE, -1, MAX_LEVEL);
+    private Node[] nodesById;
+    private TaskIds ids;
+
+    /**
+     * Represents one unfinished deadline in the skip list.
+     */
+    private static class Node {
+        private final long by;
+        private final Node[] next;
+        private int id;
+
+        private Node(long by, int id, int level) {
+            this.by = by;
+            this.id = id;
+            this.next = new Node[level];
+        }
+
+        private boolean isBefore(long otherBy, int otherId) {
+            return by < otherBy || (by == otherBy && id < otherId);
+        }
+    }
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public DeadlineIndex(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() * 2);
+        nodesById = new Node[capacity];
+        ids = new TaskIds(capacity);
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Returns the last node at each level that comes before the given key.
+     */
+    private Node[] findPredecessors(long by, int id) {
+        Node[] predecessors = new Node[MAX_LEVEL];
+        Node node = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            while (node.next[level] != null && node.next[level].isBefore(by, id)) {
+                node = node.next[level];
+            }
+            predecessors[level] = node;
+        }
+        return predecessors;
+    }
+
+    private int getRandomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && levels.nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+    private void indexTask(int id, Task task) {
+        if (!(task instanceof Deadline) || task.isDone()) {
+            return;
+        }
+
+        long by = toMinutes(((Deadline) task).getDateTimeBy());
+        Node node = new Node(by, id, getRandomLevel());
+        Node[] predecessors = findPredecessors(by, id);
+        for (int level = 0; level < node.next.length; level++) {
+            node.next[level] = predecessors[level].next[level];
+            predecessors[level].next[level] = node;
+        }
+        nodesById[id] = node;
+    }
+
+    private void unindexTask(int id) {
+        Node node = nodesById[id];
+        if (node == null) {
+            return;
+        }
+
+        Node[] predecessors = findPredecessors(node.by, node.id);
+        for (int level = 0; level < node.next.length; level++) {
+            predecessors[level].next[level] = node.next[level];
+        }
+        nodesById[id] = null;
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks.
+     * Renumbering keeps the order of ids, so the skip list stays sorted.
+     */
+    private void compact() {
+        Node[] oldNodesById = nodesById;
+        TaskIds oldIds = ids;
+        int capacity = Math.max(INITIAL_CAPACITY, oldIds.size() * 2);
+        nodesById = new Node[capacity];
+        ids = new TaskIds(capacity);
+        for (int taskNumber = 0; taskNumber < oldIds.size(); taskNumber++) {
+            Node node = oldNodesById[oldIds.getId(taskNumber)];
+            int id = ids.add();
+            if (node != null) {
+                node.id = id;
+                nodesById[id] = node;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexTask(ids.add(), task);
+    }
+
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        ids.remove(id);
+    }
+
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        indexTask(id, task);
+    }
+
+    @Override
+    public void updateStatus(int taskNumber, Task task) {
+        update(taskNumber, task);
+    }
+
+    /**
+     * Returns the task numbers of the earliest unfinished deadlines due within the given period.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, inclusive.
+     * @param limit Maximum number of deadlines to return.
+     * @return zero-based task numbers of deadlines, in order of due date-time.
+     */
+    public ArrayList<Integer> findDue(LocalDateTime from, LocalDateTime to, int limit) {
+        long fromMinutes = toMinutes(from);
+        long toMinutes = toMinutes(to);
+        ArrayList<Integer> taskNumbers = new ArrayList<>();
+        Node node = findPredecessors(fromMinutes, -1)[0].next[0];
+        while (node != null && node.by <= toMinutes && taskNumbers.size() < limit) {
+            taskNumbers.add(ids.getTaskNumber(node.id));
+            node = node.next[0];
+        }
+        return taskNumbers;
+    }
+}
@@ -0,0 +1,256 @@
+package tomato.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tomato.task.Task;
+
+/**
+ * Represents an index of the words in task descriptions for finding tasks despite typos in the query,
+ * e.g. "meetnig" for "meeting".
+ * <p>
+ * The distinct words are kept in a BK-tree, where each child is filed under its edit distance from its parent.
+ * By the triangle inequality, a query within distance d of a word can only lie under children filed within d of
+ * the query's distance to their parent, so a search skips the other subtrees instead of measuring the query
+ * against every word. Words stay in the tree once no task contains them, until the index is next renumbered.
+ */
+public class FuzzyIndex implements TaskIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_MAX_DISTANCE = Integer.MAX_VALUE - 1;
+
+    private final HashMap<String, PostingList> postings = new HashMap<>();
+    private Node root;
+    private String[][] wordsById;
+    private TaskIds ids;
+
+    /**
+     * Represents a word in the BK-tree, with its children filed by their distance from it.
+     */
+    private static class Node {
+        private final String word;
+        private int[] childDistances = new int[0];
+        private Node[] children = new Node[0];
+
+        private Node(String word) {
+            this.word = word;
+        }
+
+        private Node getChild(int distance) {
+            for (int i = 0; i < childDistances.length; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private void addChild(int distance, Node child) {
+            childDistances = Arrays.copyOf(childDistances, childDistances.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            childDistances[childDistances.length - 1] = distance;
+            children[children.length - 1] = child;
+        }
+    }
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public FuzzyIndex(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() * 2);
+        wordsById = new String[capacity][];
+        ids = new TaskIds(capacity);
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns the Levenshtein distance between the given words, or any value above the given maximum
+     * once the distance is known to exceed it.
+     *
+     * @param first First word.
+     * @param second Second word.
+     * @param maxDistance Largest distance of interest.
+     * @return edit distance, or more than the maximum if the words are further apart.
+     */
+    private static int getDistance(String first, String second, int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int[] previousRow = new int[second.length() + 1];
+        int[] currentRow = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previousRow[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            currentRow[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int substitutionCost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                currentRow[j] = Math.min(previousRow[j - 1] + substitutionCost,
+                        Math.min(previousRow[j], currentRow[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, currentRow[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            int[] row = previousRow;
+            previousRow = currentRow;
+            currentRow = row;
+        }
+        return previousRow[second.length()];
+    }
+
+    private void addToTree(String word) {
+        Node node = new Node(word);
+        if (root == null) {
+            root = node;
+            return;
+        }
+
+        Node parent = root;
+        while (true) {
+            int distance = getDistance(word, parent.word, NO_MAX_DISTANCE);
+            Node child = parent.getChild(distance);
+            if (child == null) {
+                parent.addChild(distance, node);
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    private void indexWords(int id, String[] words) {
+        wordsById[id] = words;
+        for (String word : words) {
+            PostingList postingList = postings.get(word);
+            if (postingList == null) {
+                postingList = new PostingList();
+                postings.put(word, postingList);
+                addToTree(word);
+            }
+            postingList.add(id);
+        }
+    }
+
+    private void unindexWords(int id) {
+        for (String word : wordsById[id]) {
+            postings.get(word).remove(id);
+        }
+        wordsById[id] = null;
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks,
+     * and rebuilds the tree from the words still in use.
+     */
+    private void compact() {
+        String[][] oldWordsById = wordsById;
+        int capacity = Math.max(INITIAL_CAPACITY, ids.size() * 2);
+        postings.clear();
+        root = null;
+        wordsById = new String[capacity][];
+        ids = new TaskIds(capacity);
+        for (String[] words : oldWordsById) {
+            if (words != null) {
+                indexWords(ids.add(), words);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexWords(ids.add(), KeywordIndex.tokenize(task.getDescription()));
+    }
+
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexWords(id);
+        ids.remove(id);
+    }
+
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexWords(id);
+        indexWords(id, KeywordIndex.tokenize(task.getDescription()));
+    }
+
+    /**
+     * Returns the closest distance from the given query word to a word of each task within the maximum distance,
+     * keyed by task id.
+     */
+    private HashMap<Integer, Integer> findDistances(String queryWord, int maxDistance) {
+        HashMap<Integer, Integer> distancesById = new HashMap<>();
+        ArrayList<Node> pending = new ArrayList<>();
+        if (root != null) {
+            pending.add(root);
+        }
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = getDistance(queryWord, node.word, NO_MAX_DISTANCE);
+            if (distance <= maxDistance) {
+                for (int id : postings.get(node.word).toArray()) {
+                    distancesById.merge(id, distance, Math::min);
+                }
+            }
+            for (int i = 0; i < node.children.length; i++) {
+                if (Math.abs(node.childDistances[i] - distance) <= maxDistance) {
+                    pending.add(node.children[i]);
+                }
+            }
+        }
+        return distancesById;
+    }
+
+    /**
+     * Returns the task numbers of the tasks containing, for every word of the given query, a word within the
+     * maximum edit distance of it, closest first.
+     * A task's distance is the sum of the distances of its closest word to each query word, and tasks at the
+     * same distance are kept in list order.
+     *
+     * @param query Query words.
+     * @param maxDistance Largest number of typos allowed in each query word.
+     * @param limit Maximum number of tasks to return.
+     * @return zero-based task numbers of matching tasks, in order of distance.
+     */
+    public ArrayList<Integer> find(String query, int maxDistance, int limit) {
+        String[] queryWords = KeywordIndex.tokenize(query);
+        if (queryWords.length == 0) {
+            return new ArrayList<>();
+        }
+
+        HashMap<Integer, Integer> totalDistancesById = findDistances(queryWords[0], maxDistance);
+        for (int i = 1; i < queryWords.length && !totalDistancesById.isEmpty(); i++) {
+            HashMap<Integer, Integer> distancesById = findDistances(queryWords[i], maxDistance);
+            totalDistancesById.keySet().retainAll(distancesById.keySet());
+            for (Map.Entry<Integer, Integer> entry : totalDistancesById.entrySet()) {
+                entry.setValue(entry.getValue() + distancesById.get(entry.getKey()));
+            }
+        }
+
+        ArrayList<Map.Entry<Integer, Integer>> matches = new ArrayList<>(totalDistancesById.entrySet());
+        matches.sort(Map.Entry.<Integer, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        ArrayList<Integer> taskNumbers = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            taskNumbers.add(ids.getTaskNumber(matches.get(i).getKey()));
+        }
+        return taskNumbers;
+    }
+}
@@ -0,0 +1,246 @@
+package tomato.data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tomato.task.Event;
+import tomato.task.Task;
+
+/**
+ * Represents an interval tree over the time ranges of event tasks, for finding the events that overlap a period.
+ * <p>
+ * Events are kept in a treap ordered by start time, where each node also holds the latest end time in its
+ * subtree. A query skips every subtree that ends before the period or starts after it, so it visits
+ * O(log n + k) nodes for k overlapping events. Tasks that are not events get a task id but no node.
+ */
+public class IntervalIndex implements TaskIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Random priorities = new Random();
+    private Node[] nodesById;
+    private TaskIds ids;
+    private Node root;
+
+    /**
+     * Represents the time range of one event in the tree.
+     */
+    private static class Node {
+        private final long from;
+        private final long to;
+        private final int priority;
+        private int id;
+        private long maxTo;
+        private Node left;
+        private Node right;
+
+        private Node(long from, long to, int id, int priority) {
+            this.from = from;
+            this.to = to;
+            this.id = id;
+            this.priority = priority;
+            this.maxTo = to;
+        }
+
+        private boolean isBefore(Node other) {
+            return from < other.from || (from == other.from && id < other.id);
+        }
+
+        private void updateMaxTo() {
+            maxTo = to;
+            if (left != null && left.maxTo > maxTo) {
+                maxTo = left.maxTo;
+            }
+            if (right != null && right.maxTo > maxTo) {
+                maxTo = right.maxTo;
+            }
+        }
+    }
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public IntervalIndex(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() * 2);
+        nodesById = new Node[capacity];
+        ids = new TaskIds(capacity);
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static Node insert(Node subtree, Node node) {
+        if (subtree == null) {
+            return node;
+        }
+
+        if (node.isBefore(subtree)) {
+            subtree.left = insert(subtree.left, node);
+            if (subtree.left.priority > subtree.priority) {
+                subtree = rotateRight(subtree);
+            }
+        } else {
+            subtree.right = insert(subtree.right, node);
+            if (subtree.right.priority > subtree.priority) {
+                subtree = rotateLeft(subtree);
+            }
+        }
+        subtree.updateMaxTo();
+        return subtree;
+    }
+
+    private static Node delete(Node subtree, Node node) {
+        if (subtree == node) {
+            return merge(node.left, node.right);
+        }
+
+        if (node.isBefore(subtree)) {
+            subtree.left = delete(subtree.left, node);
+        } else {
+            subtree.right = delete(subtree.right, node);
+        }
+        subtree.updateMaxTo();
+        return subtree;
+    }
+
+    /**
+     * Returns the treap of the nodes of both treaps, where every node of the first is before those of the second.
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.updateMaxTo();
+            return first;
+        }
+        second.left = merge(first, second.left);
+        second.updateMaxTo();
+        return second;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node newRoot = node.left;
+        node.left = newRoot.right;
+        newRoot.right = node;
+        node.updateMaxTo();
+        return newRoot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node newRoot = node.right;
+        node.right = newRoot.left;
+        newRoot.left = node;
+        node.updateMaxTo();
+        return newRoot;
+    }
+
+    private void indexTask(int id, Task task) {
+        if (!(task instanceof Event)) {
+            return;
+        }
+
+        Event event = (Event) task;
+        Node node = new Node(toMinutes(event.getDateTimeFrom()), toMinutes(event.getDateTimeTo()), id,
+                priorities.nextInt());
+        nodesById[id] = node;
+        root = insert(root, node);
+    }
+
+    private void unindexTask(int id) {
+        if (nodesById[id] == null) {
+            return;
+        }
+        root = delete(root, nodesById[id]);
+        nodesById[id] = null;
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks.
+     * Renumbering keeps the order of ids, so the tree keeps its shape.
+     */
+    private void compact() {
+        Node[] oldNodesById = nodesById;
+        TaskIds oldIds = ids;
+        int capacity = Math.max(INITIAL_CAPACITY, oldIds.size() * 2);
+        nodesById = new Node[capacity];
+        ids = new TaskIds(capacity);
+        for (int taskNumber = 0; taskNumber < oldIds.size(); taskNumber++) {
+            Node node = oldNodesById[oldIds.getId(taskNumber)];
+            int id = ids.add();
+            if (node != null) {
+                node.id = id;
+                nodesById[id] = node;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexTask(ids.add(), task);
+    }
+
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        ids.remove(id);
+    }
+
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        indexTask(id, task);
+    }
+
+    private static void collectOverlapping(Node node, long from, long to, ArrayList<Integer> matchingIds) {
+        if (node == null || node.maxTo < from) {
+            return;
+        }
+
+        collectOverlapping(node.left, from, to, matchingIds);
+        if (node.from > to) {
+            return;
+        }
+        if (node.to >= from) {
+            matchingIds.add(node.id);
+        }
+        collectOverlapping(node.right, from, to, matchingIds);
+    }
+
+    /**
+     * Returns the task numbers of the events that overlap the given period, including events that
+     * only touch its start or end.
+     *
+     * @param from Start of the period.
+     * @param to End of the period.
+     * @return zero-based task numbers of overlapping events, in order of start time.
+     */
+    public ArrayList<Integer> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        ArrayList<Integer> taskNumbers = new ArrayList<>();
+        collectOverlapping(root, toMinutes(from), toMinutes(to), taskNumbers);
+        for (int i = 0; i < taskNumbers.size(); i++) {
+            taskNumbers.set(i, ids.getTaskNumber(taskNumbers.get(i)));
+        }
+        return taskNumbers;
+    }
+}
@@ -0,0 +1,180 @@
+package tomato.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import tomato.task.Task;
+
+/**
+ * Represents an inverted index from the words in task descriptions to the tasks containing them.
+ * <p>
+ * Words are indexed in lower case, and a query word matches every indexed word it starts with, e.g. "book"
+ * matches "books". Each word keeps a sorted posting list of task ids, which do not change when earlier tasks
+ * are deleted, so a query costs time in proportion to its postings rather than to the list size.
+ */
+public class KeywordIndex implements TaskIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Represents how the words of a multi-word query are combined.
+     */
+    public static enum Mode {
+        /** A task must contain every word. */
+        ALL,
+        /** A task must contain at least one of the words. */
+        ANY
+    }
+
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private String[][] wordsById;
+    private TaskIds ids;
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public KeywordIndex(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() * 2);
+        wordsById = new String[capacity][];
+        ids = new TaskIds(capacity);
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns the distinct lower case words in the given text.
+     *
+     * @param text Text to split.
+     * @return words in order of first appearance.
+     */
+    public static String[] tokenize(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        int wordStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && wordStart < 0) {
+                wordStart = i;
+            } else if (!isWordChar && wordStart >= 0) {
+                String word = text.substring(wordStart, i).toLowerCase();
+                if (!words.contains(word)) {
+                    words.add(word);
+                }
+                wordStart = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the number of tasks in the index.
+     *
+     * @return indexed task count.
+     */
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    private void indexWords(int id, String[] words) {
+        wordsById[id] = words;
+        for (String word : words) {
+            postings.computeIfAbsent(word, key -> new PostingList()).add(id);
+        }
+    }
+
+    private void unindexWords(int id) {
+        for (String word : wordsById[id]) {
+            PostingList postingList = postings.get(word);
+            postingList.remove(id);
+            if (postingList.size() == 0) {
+                postings.remove(word);
+            }
+        }
+        wordsById[id] = null;
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks.
+     */
+    private void compact() {
+        String[][] oldWordsById = wordsById;
+        int capacity = Math.max(INITIAL_CAPACITY, ids.size() * 2);
+        postings.clear();
+        wordsById = new String[capacity][];
+        ids = new TaskIds(capacity);
+        for (String[] words : oldWordsById) {
+            if (words != null) {
+                indexWords(ids.add(), words);
+            }
+        }
+    }
+
+    /**
+     * Indexes a task added to the end of the list.
+     *
+     * @param task Added task.
+     */
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexWords(ids.add(), tokenize(task.getDescription()));
+    }
+
+    /**
+     * Removes the task with the given task number from the index.
+     *
+     * @param taskNumber Zero-based task number of the deleted task.
+     */
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexWords(id);
+        ids.remove(id);
+    }
+
+    /**
+     * Re-indexes the task with the given task number, e.g. after its description changed.
+     *
+     * @param taskNumber Zero-based task number of the changed task.
+     * @param task Task now at that task number.
+     */
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexWords(id);
+        indexWords(id, tokenize(task.getDescription()));
+    }
+
+    /**
+     * Returns the sorted ids of the tasks containing a word that starts with the given query word.
+     */
+    private int[] findIds(String queryWord) {
+        int[] matchingIds = new int[0];
+        for (PostingList postingList : postings.subMap(queryWord, queryWord + Character.MAX_VALUE).values()) {
+            matchingIds = matchingIds.length == 0 ? postingList.toArray()
+                    : TaskIds.union(matchingIds, postingList.toArray());
+        }
+        return matchingIds;
+    }
+
+    /**
+     * Returns the task numbers of the tasks matching the words of the given query.
+     *
+     * @param query Query words.
+     * @param mode Whether a task must match all or any of the words.
+     * @return sorted zero-based task numbers of matching tasks.
+     */
+    public ArrayList<Integer> find(String query, Mode mode) {
+        String[] queryWords = tokenize(query);
+        int[][] idLists = new int[queryWords.length][];
+        for (int i = 0; i < queryWords.length; i++) {
+            idLists[i] = findIds(queryWords[i]);
+        }
+        return ids.toTaskNumbers(TaskIds.combine(idLists, mode));
+    }
+}
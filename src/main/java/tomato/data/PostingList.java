@@ -0,0 +1,63 @@
+package tomato.data;
+
+import java.util.Arrays;
+
+/**
+ * Represents the sorted ids of the tasks containing a search term.
+ */
+class PostingList {
+    private int[] ids = new int[2];
+    private int count;
+
+    /**
+     * Returns the number of ids in the list.
+     *
+     * @return id count.
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Returns a sorted copy of the ids in the list.
+     *
+     * @return sorted ids.
+     */
+    int[] toArray() {
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Adds an id to the list, if it is not in the list already.
+     *
+     * @param id Task id.
+     */
+    void add(int id) {
+        int insertAt = count > 0 && ids[count - 1] < id ? count : Arrays.binarySearch(ids, 0, count, id);
+        if (insertAt >= 0 && insertAt < count) {
+            return;
+        }
+        insertAt = insertAt < 0 ? -insertAt - 1 : insertAt;
+
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, count - insertAt);
+        ids[insertAt] = id;
+        count++;
+    }
+
+    /**
+     * Removes an id from the list, if it is in the list.
+     *
+     * @param id Task id.
+     */
+    void remove(int id) {
+        int removeAt = Arrays.binarySearch(ids, 0, count, id);
+        if (removeAt < 0) {
+            return;
+        }
+        System.arraycopy(ids, removeAt + 1, ids, removeAt, count - removeAt - 1);
+        count--;
+    }
+}
@@ -0,0 +1,162 @@
+package tomato.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
+
+/**
+ * Represents an index of which tasks are done and of which type each task is, for filtering the task list.
+ * <p>
+ * The tasks in each group are kept in a compressed bitmap of task ids, so a filter is a few set operations on
+ * the bitmaps rather than a walk over the task list.
+ */
+public class StatusIndex implements TaskIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private TaskIds ids;
+    private TaskBitmap allIds;
+    private TaskBitmap doneIds;
+    private TaskBitmap todoIds;
+    private TaskBitmap deadlineIds;
+    private TaskBitmap eventIds;
+
+    /**
+     * Represents the completion status a filter keeps.
+     */
+    public static enum Status {
+        ANY, DONE, UNDONE
+    }
+
+    /**
+     * Represents the task type a filter keeps.
+     */
+    public static enum Type {
+        ANY, TODO, DEADLINE, EVENT
+    }
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public StatusIndex(List<Task> tasks) {
+        reset(Math.max(INITIAL_CAPACITY, tasks.size() * 2));
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    private void reset(int capacity) {
+        ids = new TaskIds(capacity);
+        allIds = new TaskBitmap();
+        doneIds = new TaskBitmap();
+        todoIds = new TaskBitmap();
+        deadlineIds = new TaskBitmap();
+        eventIds = new TaskBitmap();
+    }
+
+    private TaskBitmap getTypeIds(Type type) {
+        switch (type) {
+        case TODO:
+            return todoIds;
+        case DEADLINE:
+            return deadlineIds;
+        case EVENT:
+            return eventIds;
+        default:
+            return allIds;
+        }
+    }
+
+    private void indexTask(int id, Task task) {
+        allIds.add(id);
+        doneIds.set(id, task.isDone());
+        deadlineIds.set(id, task instanceof Deadline);
+        eventIds.set(id, task instanceof Event);
+        todoIds.set(id, !(task instanceof Deadline) && !(task instanceof Event));
+    }
+
+    private void unindexTask(int id) {
+        for (TaskBitmap bitmap : new TaskBitmap[] {allIds, doneIds, todoIds, deadlineIds, eventIds}) {
+            bitmap.remove(id);
+        }
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks.
+     */
+    private void compact() {
+        TaskIds oldIds = ids;
+        TaskBitmap oldDoneIds = doneIds;
+        TaskBitmap oldDeadlineIds = deadlineIds;
+        TaskBitmap oldEventIds = eventIds;
+        reset(Math.max(INITIAL_CAPACITY, oldIds.size() * 2));
+        for (int taskNumber = 0; taskNumber < oldIds.size(); taskNumber++) {
+            int oldId = oldIds.getId(taskNumber);
+            int id = ids.add();
+            allIds.add(id);
+            doneIds.set(id, oldDoneIds.contains(oldId));
+            deadlineIds.set(id, oldDeadlineIds.contains(oldId));
+            eventIds.set(id, oldEventIds.contains(oldId));
+            todoIds.set(id, !oldDeadlineIds.contains(oldId) && !oldEventIds.contains(oldId));
+        }
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexTask(ids.add(), task);
+    }
+
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        ids.remove(id);
+    }
+
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexTask(id);
+        indexTask(id, task);
+    }
+
+    @Override
+    public void updateStatus(int taskNumber, Task task) {
+        doneIds.set(ids.getId(taskNumber), task.isDone());
+    }
+
+    private TaskBitmap filter(Status status, Type type) {
+        TaskBitmap typeIds = getTypeIds(type);
+        switch (status) {
+        case DONE:
+            return typeIds.and(doneIds);
+        case UNDONE:
+            return typeIds.andNot(doneIds);
+        default:
+            return typeIds;
+        }
+    }
+
+    /**
+     * Returns the task numbers of the tasks with the given status and type.
+     *
+     * @param status Completion status to keep.
+     * @param type Task type to keep.
+     * @return sorted zero-based task numbers of matching tasks.
+     */
+    public ArrayList<Integer> find(Status status, Type type) {
+        return ids.toTaskNumbers(filter(status, type).toArray());
+    }
+}
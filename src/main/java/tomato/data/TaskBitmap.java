@@ -0,0 +1,390 @@
+package tomato.data;
+
+import java.util.Arrays;
+
+/**
+ * Represents a compressed set of task ids, for filtering tasks with set operations.
+ * <p>
+ * Ids are split by their upper 16 bits into chunks of 65536 ids. A chunk holding few ids keeps them in a sorted
+ * char array, and a fuller chunk keeps one bit for every id it could hold, so a set never takes more than two bytes
+ * per id or one bit per possible id. Set operations combine the chunks pairwise, sixty-four ids at a time for
+ * chunks of bits, and counting sums the chunk sizes without visiting any id.
+ */
+class TaskBitmap {
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int WORD_COUNT = (1 << CHUNK_BITS) / Long.SIZE;
+    private static final int MAX_SPARSE_SIZE = 4096;
+
+    private int[] keys = new int[1];
+    private Chunk[] chunks = new Chunk[1];
+    private int chunkCount;
+
+    /**
+     * Represents the operations that combine two sets.
+     */
+    private static enum Operation {
+        AND, OR, AND_NOT
+    }
+
+    /**
+     * Represents the ids of a set that share their upper 16 bits, stored by their lower 16 bits.
+     * Exactly one of {@code values} and {@code words} is in use.
+     */
+    private static class Chunk {
+        private char[] values;
+        private long[] words;
+        private int size;
+
+        private static Chunk ofValues(char[] values, int size) {
+            Chunk chunk = new Chunk();
+            if (size > MAX_SPARSE_SIZE) {
+                chunk.words = new long[WORD_COUNT];
+                for (int i = 0; i < size; i++) {
+                    chunk.words[values[i] >>> 6] |= 1L << values[i];
+                }
+            } else {
+                chunk.values = values;
+            }
+            chunk.size = size;
+            return chunk;
+        }
+
+        private static Chunk ofWords(long[] words) {
+            int size = 0;
+            for (long word : words) {
+                size += Long.bitCount(word);
+            }
+            if (size > MAX_SPARSE_SIZE) {
+                Chunk chunk = new Chunk();
+                chunk.words = words;
+                chunk.size = size;
+                return chunk;
+            }
+
+            char[] values = new char[size];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                for (long word = words[i]; word != 0; word &= word - 1) {
+                    values[count++] = (char) (i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                }
+            }
+            return ofValues(values, size);
+        }
+
+        private Chunk copy() {
+            Chunk chunk = new Chunk();
+            chunk.values = values == null ? null : Arrays.copyOf(values, size);
+            chunk.words = words == null ? null : words.clone();
+            chunk.size = size;
+            return chunk;
+        }
+
+        private long[] toWords() {
+            if (words != null) {
+                return words;
+            }
+
+            long[] valueWords = new long[WORD_COUNT];
+            for (int i = 0; i < size; i++) {
+                valueWords[values[i] >>> 6] |= 1L << values[i];
+            }
+            return valueWords;
+        }
+
+        private boolean contains(char low) {
+            if (words != null) {
+                return (words[low >>> 6] & 1L << low) != 0;
+            }
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        private void add(char low) {
+            if (words != null) {
+                if ((words[low >>> 6] & 1L << low) == 0) {
+                    words[low >>> 6] |= 1L << low;
+                    size++;
+                }
+                return;
+            }
+
+            int insertAt = Arrays.binarySearch(values, 0, size, low);
+            if (insertAt >= 0) {
+                return;
+            }
+            if (size == MAX_SPARSE_SIZE) {
+                words = toWords();
+                values = null;
+                add(low);
+                return;
+            }
+
+            insertAt = -insertAt - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(MAX_SPARSE_SIZE, Math.max(4, size * 2)));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+            values[insertAt] = low;
+            size++;
+        }
+
+        /**
+         * Removes an id, going back to a char array once the chunk is half as full as the largest array,
+         * so that ids added and removed around that size do not convert the chunk every time.
+         */
+        private void remove(char low) {
+            if (words != null) {
+                if ((words[low >>> 6] & 1L << low) != 0) {
+                    words[low >>> 6] &= ~(1L << low);
+                    size--;
+                }
+                if (size <= MAX_SPARSE_SIZE / 2) {
+                    Chunk sparse = ofWords(words);
+                    values = sparse.values;
+                    words = null;
+                }
+                return;
+            }
+
+            int removeAt = Arrays.binarySearch(values, 0, size, low);
+            if (removeAt >= 0) {
+                System.arraycopy(values, removeAt + 1, values, removeAt, size - removeAt - 1);
+                size--;
+            }
+        }
+
+        private static Chunk combine(Chunk first, Chunk second, Operation operation) {
+            if (first.values != null && second.values != null) {
+                return combineValues(first, second, operation);
+            }
+
+            long[] firstWords = first.toWords();
+            long[] secondWords = second.toWords();
+            long[] words = new long[WORD_COUNT];
+            for (int i = 0; i < WORD_COUNT; i++) {
+                switch (operation) {
+                case AND:
+                    words[i] = firstWords[i] & secondWords[i];
+                    break;
+                case OR:
+                    words[i] = firstWords[i] | secondWords[i];
+                    break;
+                default:
+                    words[i] = firstWords[i] & ~secondWords[i];
+                    break;
+                }
+            }
+            return ofWords(words);
+        }
+
+        private static Chunk combineValues(Chunk first, Chunk second, Operation operation) {
+            char[] values = new char[operation == Operation.OR ? first.size + second.size : first.size];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < first.size || j < second.size) {
+                int firstValue = i < first.size ? first.values[i] : Integer.MAX_VALUE;
+                int secondValue = j < second.size ? second.values[j] : Integer.MAX_VALUE;
+                boolean isInFirst = firstValue <= secondValue;
+                boolean isInSecond = secondValue <= firstValue;
+                boolean isKept;
+                switch (operation) {
+                case AND:
+                    isKept = isInFirst && isInSecond;
+                    break;
+                case OR:
+                    isKept = true;
+                    break;
+                default:
+                    isKept = isInFirst && !isInSecond;
+                    break;
+                }
+                if (isKept) {
+                    values[count++] = (char) Math.min(firstValue, secondValue);
+                }
+                i += isInFirst ? 1 : 0;
+                j += isInSecond ? 1 : 0;
+            }
+            return ofValues(values, count);
+        }
+    }
+
+    private int findChunk(int key) {
+        return Arrays.binarySearch(keys, 0, chunkCount, key);
+    }
+
+    private void appendChunk(int key, Chunk chunk) {
+        if (chunk.size == 0) {
+            return;
+        }
+        if (chunkCount == keys.length) {
+            keys = Arrays.copyOf(keys, chunkCount * 2);
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        keys[chunkCount] = key;
+        chunks[chunkCount] = chunk;
+        chunkCount++;
+    }
+
+    /**
+     * Returns whether the set holds the given id.
+     *
+     * @param id Task id.
+     * @return true if the id is in the set.
+     */
+    boolean contains(int id) {
+        int chunkIndex = findChunk(id >>> CHUNK_BITS);
+        return chunkIndex >= 0 && chunks[chunkIndex].contains((char) (id & LOW_MASK));
+    }
+
+    /**
+     * Adds an id to the set, if it is not in the set already.
+     *
+     * @param id Task id.
+     */
+    void add(int id) {
+        assert id >= 0 : "task id should not be negative";
+        int key = id >>> CHUNK_BITS;
+        int chunkIndex = chunkCount > 0 && keys[chunkCount - 1] == key ? chunkCount - 1 : findChunk(key);
+        if (chunkIndex < 0) {
+            chunkIndex = -chunkIndex - 1;
+            if (chunkCount == keys.length) {
+                keys = Arrays.copyOf(keys, chunkCount * 2);
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            System.arraycopy(keys, chunkIndex, keys, chunkIndex + 1, chunkCount - chunkIndex);
+            System.arraycopy(chunks, chunkIndex, chunks, chunkIndex + 1, chunkCount - chunkIndex);
+            keys[chunkIndex] = key;
+            chunks[chunkIndex] = Chunk.ofValues(new char[4], 0);
+            chunkCount++;
+        }
+        chunks[chunkIndex].add((char) (id & LOW_MASK));
+    }
+
+    /**
+     * Removes an id from the set, if it is in the set.
+     *
+     * @param id Task id.
+     */
+    void remove(int id) {
+        int chunkIndex = findChunk(id >>> CHUNK_BITS);
+        if (chunkIndex < 0) {
+            return;
+        }
+
+        chunks[chunkIndex].remove((char) (id & LOW_MASK));
+        if (chunks[chunkIndex].size == 0) {
+            System.arraycopy(keys, chunkIndex + 1, keys, chunkIndex, chunkCount - chunkIndex - 1);
+            System.arraycopy(chunks, chunkIndex + 1, chunks, chunkIndex, chunkCount - chunkIndex - 1);
+            chunkCount--;
+            chunks[chunkCount] = null;
+        }
+    }
+
+    /**
+     * Adds or removes an id, so that the set holds it exactly when the given flag is set.
+     *
+     * @param id Task id.
+     * @param isIncluded Whether the set should hold the id.
+     */
+    void set(int id, boolean isIncluded) {
+        if (isIncluded) {
+            add(id);
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Returns the number of ids in the set.
+     *
+     * @return id count.
+     */
+    int size() {
+        int size = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            size += chunks[i].size;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the ids in the set.
+     *
+     * @return sorted ids.
+     */
+    int[] toArray() {
+        int[] ids = new int[size()];
+        int count = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int high = keys[i] << CHUNK_BITS;
+            Chunk chunk = chunks[i];
+            if (chunk.values != null) {
+                for (int j = 0; j < chunk.size; j++) {
+                    ids[count++] = high | chunk.values[j];
+                }
+                continue;
+            }
+            for (int j = 0; j < WORD_COUNT; j++) {
+                for (long word = chunk.words[j]; word != 0; word &= word - 1) {
+                    ids[count++] = high | j * Long.SIZE + Long.numberOfTrailingZeros(word);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private TaskBitmap combine(TaskBitmap other, Operation operation) {
+        TaskBitmap result = new TaskBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < chunkCount || j < other.chunkCount) {
+            int key = i < chunkCount ? keys[i] : Integer.MAX_VALUE;
+            int otherKey = j < other.chunkCount ? other.keys[j] : Integer.MAX_VALUE;
+            if (key == otherKey) {
+                result.appendChunk(key, Chunk.combine(chunks[i++], other.chunks[j++], operation));
+            } else if (key < otherKey) {
+                Chunk chunk = chunks[i++];
+                if (operation != Operation.AND) {
+                    result.appendChunk(key, chunk.copy());
+                }
+            } else {
+                Chunk otherChunk = other.chunks[j++];
+                if (operation == Operation.OR) {
+                    result.appendChunk(otherKey, otherChunk.copy());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the ids in both this set and the given set.
+     *
+     * @param other Set to intersect with.
+     * @return new set.
+     */
+    TaskBitmap and(TaskBitmap other) {
+        return combine(other, Operation.AND);
+    }
+
+    /**
+     * Returns the ids in either this set or the given set.
+     *
+     * @param other Set to unite with.
+     * @return new set.
+     */
+    TaskBitmap or(TaskBitmap other) {
+        return combine(other, Operation.OR);
+    }
+
+    /**
+     * Returns the ids in this set but not in the given set.
+     *
+     * @param other Set of ids to leave out.
+     * @return new set.
+     */
+    TaskBitmap andNot(TaskBitmap other) {
+        return combine(other, Operation.AND_NOT);
+    }
+}
@@ -0,0 +1,112 @@
+package tomato.data;
+
+import tomato.task.Task;
+
+/**
+ * Maps stable task IDs to int values, e.g. the slots that hold the tasks in a {@link TaskList}.
+ * <p>
+ * The IDs are kept in an open addressing hash table of primitive long keys with linear probing, so a lookup
+ * takes O(1) expected time without boxing. A removed ID shifts the later entries of its probe run back,
+ * so no lookup stops early at the emptied slot.
+ */
+class TaskIdMap {
+    static final int NOT_FOUND = -1;
+    private static final int INITIAL_TABLE_SIZE = 32;
+
+    private long[] tableKeys = new long[INITIAL_TABLE_SIZE];
+    private int[] tableValues = new int[INITIAL_TABLE_SIZE];
+    private int tableCount;
+
+    private int getHomeSlot(long taskId) {
+        long hash = taskId * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (tableKeys.length - 1);
+    }
+
+    /**
+     * Returns the table slot holding the given task ID, or the empty slot where it would be added.
+     */
+    private int findSlot(long taskId) {
+        int mask = tableKeys.length - 1;
+        int slot = getHomeSlot(taskId);
+        while (tableKeys[slot] != Task.NO_ID && tableKeys[slot] != taskId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the value of the given task ID.
+     *
+     * @param taskId Stable task ID.
+     * @return value of the ID, or {@link #NOT_FOUND} if the ID is not in the map.
+     */
+    int get(long taskId) {
+        if (taskId == Task.NO_ID) {
+            return NOT_FOUND;
+        }
+        int slot = findSlot(taskId);
+        return tableKeys[slot] == Task.NO_ID ? NOT_FOUND : tableValues[slot];
+    }
+
+    /**
+     * Sets the value of the given task ID.
+     *
+     * @param taskId Stable task ID, which must not be {@link Task#NO_ID}.
+     * @param value Value of the ID.
+     */
+    void put(long taskId, int value) {
+        assert taskId != Task.NO_ID : "task should have an ID";
+        int slot = findSlot(taskId);
+        if (tableKeys[slot] == Task.NO_ID) {
+            tableKeys[slot] = taskId;
+            tableCount++;
+        }
+        tableValues[slot] = value;
+        if (tableCount * 2 > tableKeys.length) {
+            resizeTable(tableKeys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the given task ID, if it is in the map.
+     *
+     * @param taskId Stable task ID.
+     */
+    void remove(long taskId) {
+        if (taskId == Task.NO_ID) {
+            return;
+        }
+        int mask = tableKeys.length - 1;
+        int slot = findSlot(taskId);
+        if (tableKeys[slot] == Task.NO_ID) {
+            return;
+        }
+
+        int next = (slot + 1) & mask;
+        while (tableKeys[next] != Task.NO_ID) {
+            int home = getHomeSlot(tableKeys[next]);
+            boolean canMoveBack = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+            if (canMoveBack) {
+                tableKeys[slot] = tableKeys[next];
+                tableValues[slot] = tableValues[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tableKeys[slot] = Task.NO_ID;
+        tableCount--;
+    }
+
+    private void resizeTable(int tableSize) {
+        long[] oldKeys = tableKeys;
+        int[] oldValues = tableValues;
+        tableKeys = new long[tableSize];
+        tableValues = new int[tableSize];
+        tableCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != Task.NO_ID) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
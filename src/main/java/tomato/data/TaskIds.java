@@ -0,0 +1,188 @@
+package tomato.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Numbers the tasks in a search index with ids that do not change when earlier tasks are deleted.
+ * <p>
+ * Each task gets the next id in list order when it is added. Task numbers are recovered from ids through
+ * a Fenwick tree of the ids still in use, so a delete does not renumber the ids held by an index.
+ * Ids of deleted tasks are not reused, so an index renumbers its tasks into new task ids once they run out.
+ */
+class TaskIds {
+    private final int[] liveTree;
+    private int nextId;
+    private int size;
+
+    /**
+     * Creates task ids with room for the given number of adds.
+     *
+     * @param capacity Number of ids available.
+     */
+    TaskIds(int capacity) {
+        liveTree = new int[capacity + 1];
+    }
+
+    /**
+     * Returns the number of ids available in total.
+     *
+     * @return id capacity.
+     */
+    int capacity() {
+        return liveTree.length - 1;
+    }
+
+    /**
+     * Returns whether every id has been given out.
+     *
+     * @return true if no more tasks can be added.
+     */
+    boolean isFull() {
+        return nextId == capacity();
+    }
+
+    /**
+     * Returns the number of tasks with ids still in use.
+     *
+     * @return task count.
+     */
+    int size() {
+        return size;
+    }
+
+    private void updateLiveTree(int id, int delta) {
+        for (int i = id + 1; i < liveTree.length; i += i & -i) {
+            liveTree[i] += delta;
+        }
+    }
+
+    /**
+     * Returns the id of a task added to the end of the list.
+     *
+     * @return new task id.
+     */
+    int add() {
+        assert !isFull() : "task ids should not have run out";
+        updateLiveTree(nextId, 1);
+        size++;
+        return nextId++;
+    }
+
+    /**
+     * Marks the given id as no longer in use.
+     *
+     * @param id Id of the deleted task.
+     */
+    void remove(int id) {
+        updateLiveTree(id, -1);
+        size--;
+    }
+
+    /**
+     * Returns the zero-based task number of the task with the given id.
+     *
+     * @param id Task id in use.
+     * @return task number.
+     */
+    int getTaskNumber(int id) {
+        int liveCount = 0;
+        for (int i = id + 1; i > 0; i -= i & -i) {
+            liveCount += liveTree[i];
+        }
+        return liveCount - 1;
+    }
+
+    /**
+     * Returns the id of the task with the given zero-based task number.
+     *
+     * @param taskNumber Task number.
+     * @return task id.
+     */
+    int getId(int taskNumber) {
+        assert taskNumber >= 0 && taskNumber < size : "task number should be in the index";
+        int position = 0;
+        int remaining = taskNumber + 1;
+        for (int step = Integer.highestOneBit(liveTree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < liveTree.length && liveTree[next] < remaining) {
+                position = next;
+                remaining -= liveTree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns the task numbers of the tasks with the given ids.
+     *
+     * @param ids Sorted task ids.
+     * @return sorted zero-based task numbers.
+     */
+    ArrayList<Integer> toTaskNumbers(int[] ids) {
+        ArrayList<Integer> taskNumbers = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            taskNumbers.add(getTaskNumber(id));
+        }
+        return taskNumbers;
+    }
+
+    /**
+     * Returns the ids in every one, or in any one, of the given sorted id arrays.
+     *
+     * @param idLists Sorted id arrays, one per search term.
+     * @param mode Whether an id must be in all or any of the arrays.
+     * @return sorted ids.
+     */
+    static int[] combine(int[][] idLists, KeywordIndex.Mode mode) {
+        Arrays.sort(idLists, (first, second) -> Integer.compare(first.length, second.length));
+        int[] ids = idLists.length == 0 ? new int[0] : idLists[0];
+        for (int i = 1; i < idLists.length; i++) {
+            ids = mode == KeywordIndex.Mode.ALL ? intersect(ids, idLists[i]) : union(ids, idLists[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * Returns the ids in either of the given sorted id arrays.
+     *
+     * @param first Sorted ids.
+     * @param second Sorted ids.
+     * @return sorted ids.
+     */
+    static int[] union(int[] first, int[] second) {
+        int[] merged = new int[first.length + second.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < first.length || j < second.length) {
+            if (j == second.length || (i < first.length && first[i] < second[j])) {
+                merged[count++] = first[i++];
+            } else if (i == first.length || second[j] < first[i]) {
+                merged[count++] = second[j++];
+            } else {
+                merged[count++] = first[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(merged, count);
+    }
+
+    /**
+     * Returns the ids in both of the given sorted id arrays.
+     *
+     * @param smaller Sorted ids, ideally the shorter array.
+     * @param larger Sorted ids.
+     * @return sorted ids.
+     */
+    static int[] intersect(int[] smaller, int[] larger) {
+        int[] common = new int[smaller.length];
+        int count = 0;
+        for (int id : smaller) {
+            if (Arrays.binarySearch(larger, id) >= 0) {
+                common[count++] = id;
+            }
+        }
+        return Arrays.copyOf(common, count);
+    }
+}
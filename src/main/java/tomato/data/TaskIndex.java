@@ -0,0 +1,47 @@
+package tomato.data;
+
+import tomato.task.Task;
+
+/**
+ * Represents a search index over the task list, kept in step with the list one change at a time.
+ */
+public interface TaskIndex {
+    /**
+     * Returns the number of tasks in the index.
+     *
+     * @return indexed task count.
+     */
+    int size();
+
+    /**
+     * Indexes a task added to the end of the list.
+     *
+     * @param task Added task.
+     */
+    void add(Task task);
+
+    /**
+     * Removes the task with the given task number from the index.
+     *
+     * @param taskNumber Zero-based task number of the deleted task.
+     */
+    void remove(int taskNumber);
+
+    /**
+     * Re-indexes the task with the given task number after it changed.
+     *
+     * @param taskNumber Zero-based task number of the changed task.
+     * @param task Task now at that task number.
+     */
+    void update(int taskNumber, Task task);
+
+    /**
+     * Re-indexes the task with the given task number after it was marked as done or not done.
+     * Indexes that do not depend on whether tasks are done ignore this.
+     *
+     * @param taskNumber Zero-based task number of the changed task.
+     * @param task Task now at that task number.
+     */
+    default void updateStatus(int taskNumber, Task task) {
+    }
+}
@@ -0,0 +1,738 @@
+package tomato.data;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import tomato.TomatoException;
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
+import tomato.task.Todo;
+
+/**
+ * Represents the list of tasks, in the order they are shown to the user.
+ * <p>
+ * Every change to the list is made through this class, which keeps the search indexes over the list in step
+ * with each change as it is made. An index is built from the list on the first search that needs it, so no
+ * search is answered from an index that missed a change. The list itself is only handed out as a read-only view.
+ * <p>
+ * Each task has a stable ID, which is found through a primitive hash table in O(1), so that marking, updating
+ * or deleting a task by ID does not depend on where it is in the list. Tasks are kept in slots in list order,
+ * and a deleted task only leaves an empty slot behind. The list order of the slots still in use is kept apart
+ * in a Fenwick tree, which turns a task number into its slot and back in O(log n). The empty slots are
+ * dropped in one pass once they outnumber the tasks, or once every slot has been used.
+ */
+public class TaskList {
+    private static final String NO_TASK_MESSAGE = "There is no task %d in your list!";
+    private static final String NO_TASK_ID_MESSAGE = "There is no task with ID %d in your list!";
+    private static final String EMPTY_DESCRIPTION_MESSAGE = "The description of a task cannot be empty!";
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Task[] slots;
+    private TaskIds order;
+    private int usedSlotCount;
+    private final TaskIdMap slotsById = new TaskIdMap();
+    private final List<Task> taskView = new TaskView();
+    private long nextTaskId = Task.NO_ID + 1;
+    private final ArrayList<TaskIndex> indexes = new ArrayList<>();
+    private KeywordIndex keywordIndex;
+    private TrigramIndex trigramIndex;
+    private IntervalIndex intervalIndex;
+    private DeadlineIndex deadlineIndex;
+    private StatusIndex statusIndex;
+    private FuzzyIndex fuzzyIndex;
+    private long modificationCount;
+    private boolean isInfixSearchEnabled;
+
+    /**
+     * Represents a read-only view of the tasks in list order, which walks the slots when iterated.
+     */
+    private class TaskView extends AbstractList<Task> {
+        @Override
+        public Task get(int taskNumber) {
+            if (taskNumber < 0 || taskNumber >= order.size()) {
+                throw new IndexOutOfBoundsException(String.format(NO_TASK_MESSAGE, taskNumber + 1));
+            }
+            return slots[order.getId(taskNumber)];
+        }
+
+        @Override
+        public int size() {
+            return order.size();
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return new Iterator<>() {
+                private int slot = nextUsedSlot(0);
+
+                @Override
+                public boolean hasNext() {
+                    return slot < usedSlotCount;
+                }
+
+                @Override
+                public Task next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    Task task = slots[slot];
+                    slot = nextUsedSlot(slot + 1);
+                    return task;
+                }
+            };
+        }
+    }
+
+    /**
+     * Creates an empty task list.
+     */
+    public TaskList() {
+        this(new ArrayList<>());
+    }
+
+    /**
+     * Creates a task list holding the given tasks, e.g. as loaded from storage.
+     * Tasks without an ID are given the next IDs after the largest ID in use.
+     *
+     * @param tasks Tasks in list order.
+     */
+    public TaskList(List<Task> tasks) {
+        for (Task task : tasks) {
+            nextTaskId = Math.max(nextTaskId, task.getId() + 1);
+        }
+        resizeSlots(Math.max(INITIAL_CAPACITY, tasks.size() * 2));
+        for (Task task : tasks) {
+            putTask(task);
+        }
+    }
+
+    /**
+     * Returns the first slot at or after the given one that holds a task, or the number of used slots if none does.
+     */
+    private int nextUsedSlot(int slot) {
+        while (slot < usedSlotCount && slots[slot] == null) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * Moves the tasks into a new set of slots with the given capacity, in list order and without empty slots.
+     */
+    private void resizeSlots(int capacity) {
+        Task[] oldSlots = slots;
+        int oldUsedSlotCount = usedSlotCount;
+        slots = new Task[capacity];
+        order = new TaskIds(capacity);
+        usedSlotCount = 0;
+        for (int slot = 0; slot < oldUsedSlotCount; slot++) {
+            if (oldSlots[slot] != null) {
+                putTask(oldSlots[slot]);
+            }
+        }
+    }
+
+    /**
+     * Puts the given task into the next free slot, at the end of the list, giving it an ID if it has none.
+     */
+    private void putTask(Task task) {
+        if (order.isFull()) {
+            resizeSlots(Math.max(INITIAL_CAPACITY, order.size() * 2));
+        }
+        if (task.getId() == Task.NO_ID) {
+            task.setId(nextTaskId++);
+        }
+
+        int slot = order.add();
+        assert slot == usedSlotCount : "slots should be used in order";
+        slots[slot] = task;
+        usedSlotCount++;
+        slotsById.put(task.getId(), slot);
+    }
+
+    /**
+     * Returns a read-only view of the tasks, in list order.
+     *
+     * @return tasks in the list.
+     */
+    public List<Task> getTaskList() {
+        return taskView;
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return task count.
+     */
+    public int size() {
+        return order.size();
+    }
+
+    /**
+     * Returns the task with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @return task at that number.
+     * @throws TomatoException If there is no task with that number.
+     */
+    public Task get(int taskNumber) throws TomatoException {
+        if (taskNumber < 0 || taskNumber >= order.size()) {
+            throw new TomatoException(String.format(NO_TASK_MESSAGE, taskNumber + 1));
+        }
+        return slots[order.getId(taskNumber)];
+    }
+
+    /**
+     * Returns the slot of the task with the given ID.
+     */
+    private int getSlot(long taskId) throws TomatoException {
+        int slot = slotsById.get(taskId);
+        if (slot == TaskIdMap.NOT_FOUND) {
+            throw new TomatoException(String.format(NO_TASK_ID_MESSAGE, taskId));
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the task with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @return task with that ID.
+     * @throws TomatoException If no task has that ID.
+     */
+    public Task getById(long taskId) throws TomatoException {
+        return slots[getSlot(taskId)];
+    }
+
+    /**
+     * Returns the current task number of the task with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @return zero-based task number.
+     * @throws TomatoException If no task has that ID.
+     */
+    public int getTaskNumber(long taskId) throws TomatoException {
+        return order.getTaskNumber(getSlot(taskId));
+    }
+
+    /**
+     * Returns a count that goes up whenever the list changes, so that anything computed from the list can tell
+     * whether it is still up to date.
+     *
+     * @return number of changes made so far.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the given index, newly built from the list, after adding it to the indexes kept in step with
+     * each change.
+     */
+    private <T extends TaskIndex> T keepInStep(T index) {
+        indexes.add(index);
+        return index;
+    }
+
+    /**
+     * Adds the given task to the end of the list and to every index.
+     */
+    private String addTask(Task task) {
+        putTask(task);
+        modificationCount++;
+        for (TaskIndex index : indexes) {
+            index.add(task);
+        }
+        return "Got it. I've added this task:\n" + task + "\nNow you have " + size() + " tasks in the list.";
+    }
+
+    /**
+     * Re-indexes the task in the given slot after its description or date-times changed.
+     */
+    private void indexUpdate(int slot) {
+        modificationCount++;
+        if (indexes.isEmpty()) {
+            return;
+        }
+        int taskNumber = order.getTaskNumber(slot);
+        for (TaskIndex index : indexes) {
+            index.update(taskNumber, slots[slot]);
+        }
+    }
+
+    /**
+     * Re-indexes the task in the given slot after it was marked as done or not done.
+     */
+    private void indexStatusUpdate(int slot) {
+        modificationCount++;
+        if (indexes.isEmpty()) {
+            return;
+        }
+        int taskNumber = order.getTaskNumber(slot);
+        for (TaskIndex index : indexes) {
+            index.updateStatus(taskNumber, slots[slot]);
+        }
+    }
+
+    private static void checkDescription(String description) throws TomatoException {
+        if (description.isBlank()) {
+            throw new TomatoException(EMPTY_DESCRIPTION_MESSAGE);
+        }
+    }
+
+    /**
+     * Adds a todo task to the end of the list.
+     *
+     * @param description Description of the todo, which must not be blank.
+     * @return message for the user.
+     */
+    public String createTodo(String description) {
+        return addTask(new Todo(description.trim()));
+    }
+
+    /**
+     * Adds a deadline task to the end of the list.
+     *
+     * @param description Description of the deadline.
+     * @param by Due date-time.
+     * @return message for the user.
+     * @throws TomatoException If the description is blank.
+     */
+    public String createDeadline(String description, LocalDateTime by) throws TomatoException {
+        checkDescription(description);
+        return addTask(new Deadline(description.trim(), by));
+    }
+
+    /**
+     * Adds an event task to the end of the list.
+     *
+     * @param description Description of the event.
+     * @param from Start date-time.
+     * @param to End date-time.
+     * @return message for the user.
+     * @throws TomatoException If the description is blank.
+     */
+    public String createEvent(String description, LocalDateTime from, LocalDateTime to) throws TomatoException {
+        checkDescription(description);
+        return addTask(new Event(description.trim(), from, to));
+    }
+
+    /**
+     * Deletes the task with the given ID, leaving an empty slot behind, so the tasks after it move up by one
+     * task number without being moved.
+     *
+     * @param taskId Stable task ID.
+     * @return message for the user.
+     * @throws TomatoException If no task has that ID.
+     */
+    public String deleteTaskById(long taskId) throws TomatoException {
+        int slot = getSlot(taskId);
+        Task task = slots[slot];
+        int taskNumber = order.getTaskNumber(slot);
+        slots[slot] = null;
+        order.remove(slot);
+        slotsById.remove(taskId);
+        modificationCount++;
+        for (TaskIndex index : indexes) {
+            index.remove(taskNumber);
+        }
+        if (usedSlotCount - order.size() > Math.max(INITIAL_CAPACITY, order.size())) {
+            resizeSlots(Math.max(INITIAL_CAPACITY, order.size() * 2));
+        }
+        return "Noted. I've removed this task:\n" + task + "\nNow you have " + size() + " tasks in the list.";
+    }
+
+    /**
+     * Deletes the task with the given task number, moving every later task up by one.
+     *
+     * @param taskNumber Zero-based task number.
+     * @return message for the user.
+     * @throws TomatoException If there is no task with that number.
+     */
+    public String deleteTask(int taskNumber) throws TomatoException {
+        return deleteTaskById(get(taskNumber).getId());
+    }
+
+    /**
+     * Marks the task with the given ID as done.
+     *
+     * @param taskId Stable task ID.
+     * @return message for the user.
+     * @throws TomatoException If no task has that ID.
+     */
+    public String markTaskById(long taskId) throws TomatoException {
+        int slot = getSlot(taskId);
+        slots[slot].setDone();
+        indexStatusUpdate(slot);
+        return "Nice! I've marked this task as done:\n" + slots[slot];
+    }
+
+    /**
+     * Marks the task with the given task number as done.
+     *
+     * @param taskNumber Zero-based task number.
+     * @return message for the user.
+     * @throws TomatoException If there is no task with that number.
+     */
+    public String markTask(int taskNumber) throws TomatoException {
+        return markTaskById(get(taskNumber).getId());
+    }
+
+    /**
+     * Marks the task with the given ID as not done.
+     *
+     * @param taskId Stable task ID.
+     * @return message for the user.
+     * @throws TomatoException If no task has that ID.
+     */
+    public String unmarkTaskById(long taskId) throws TomatoException {
+        int slot = getSlot(taskId);
+        slots[slot].setNotDone();
+        indexStatusUpdate(slot);
+        return "OK! I've marked this task as not done yet:\n" + slots[slot];
+    }
+
+    /**
+     * Marks the task with the given task number as not done.
+     *
+     * @param taskNumber Zero-based task number.
+     * @return message for the user.
+     * @throws TomatoException If there is no task with that number.
+     */
+    public String unmarkTask(int taskNumber) throws TomatoException {
+        return unmarkTaskById(get(taskNumber).getId());
+    }
+
+    /**
+     * Returns the tasks with the given task numbers, in list order.
+     *
+     * @throws TomatoException If there is no task with one of the numbers.
+     */
+    private ArrayList<Task> getTasks(BitSet taskNumbers) throws TomatoException {
+        ArrayList<Task> chosenTasks = new ArrayList<>(taskNumbers.cardinality());
+        for (int taskNumber = taskNumbers.nextSetBit(0); taskNumber >= 0;
+                taskNumber = taskNumbers.nextSetBit(taskNumber + 1)) {
+            chosenTasks.add(get(taskNumber));
+        }
+        return chosenTasks;
+    }
+
+    /**
+     * Marks the tasks with the given task numbers as done.
+     *
+     * @param taskNumbers Zero-based task numbers.
+     * @return marked tasks, in list order.
+     * @throws TomatoException If there is no task with one of the numbers, in which case no task is marked.
+     */
+    public ArrayList<Task> markTasks(BitSet taskNumbers) throws TomatoException {
+        ArrayList<Task> chosenTasks = getTasks(taskNumbers);
+        for (Task task : chosenTasks) {
+            markTaskById(task.getId());
+        }
+        return chosenTasks;
+    }
+
+    /**
+     * Marks the tasks with the given task numbers as not done.
+     *
+     * @param taskNumbers Zero-based task numbers.
+     * @return unmarked tasks, in list order.
+     * @throws TomatoException If there is no task with one of the numbers, in which case no task is unmarked.
+     */
+    public ArrayList<Task> unmarkTasks(BitSet taskNumbers) throws TomatoException {
+        ArrayList<Task> chosenTasks = getTasks(taskNumbers);
+        for (Task task : chosenTasks) {
+            unmarkTaskById(task.getId());
+        }
+        return chosenTasks;
+    }
+
+    /**
+     * Deletes the tasks with the given task numbers.
+     * They are deleted from the back of the list forward, so that the indexes shift the fewest task numbers.
+     *
+     * @param taskNumbers Zero-based task numbers.
+     * @return deleted tasks, in the list order they had.
+     * @throws TomatoException If there is no task with one of the numbers, in which case no task is deleted.
+     */
+    public ArrayList<Task> deleteTasks(BitSet taskNumbers) throws TomatoException {
+        ArrayList<Task> chosenTasks = getTasks(taskNumbers);
+        for (int i = chosenTasks.size() - 1; i >= 0; i--) {
+            deleteTaskById(chosenTasks.get(i).getId());
+        }
+        return chosenTasks;
+    }
+
+    /**
+     * Changes the description of the task with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @param description New description.
+     * @return message for the user.
+     * @throws TomatoException If no task has that ID, or the description is blank.
+     */
+    public String updateDescriptionById(long taskId, String description) throws TomatoException {
+        checkDescription(description);
+        int slot = getSlot(taskId);
+        slots[slot].setDescription(description.trim());
+        indexUpdate(slot);
+        return "OK! I've updated your task description!\n" + slots[slot];
+    }
+
+    /**
+     * Changes the description of the task with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @param description New description.
+     * @return message for the user.
+     * @throws TomatoException If there is no task with that number, or the description is blank.
+     */
+    public String updateDescription(int taskNumber, String description) throws TomatoException {
+        return updateDescriptionById(get(taskNumber).getId(), description);
+    }
+
+    private int getDeadlineSlot(long taskId) throws TomatoException {
+        int slot = getSlot(taskId);
+        if (!(slots[slot] instanceof Deadline)) {
+            throw new TomatoException("Task " + (order.getTaskNumber(slot) + 1) + " is not a deadline!");
+        }
+        return slot;
+    }
+
+    private int getEventSlot(long taskId) throws TomatoException {
+        int slot = getSlot(taskId);
+        if (!(slots[slot] instanceof Event)) {
+            throw new TomatoException("Task " + (order.getTaskNumber(slot) + 1) + " is not an event!");
+        }
+        return slot;
+    }
+
+    /**
+     * Changes the due date-time of the deadline with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @param by New due date-time.
+     * @return message for the user.
+     * @throws TomatoException If no deadline has that ID.
+     */
+    public String updateDeadlineTimeById(long taskId, LocalDateTime by) throws TomatoException {
+        int slot = getDeadlineSlot(taskId);
+        ((Deadline) slots[slot]).setDateTimeBy(by);
+        indexUpdate(slot);
+        return "OK! I've updated your deadline due datetime!\n" + slots[slot];
+    }
+
+    /**
+     * Changes the due date-time of the deadline with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @param by New due date-time.
+     * @return message for the user.
+     * @throws TomatoException If there is no deadline with that number.
+     */
+    public String updateDeadlineTime(int taskNumber, LocalDateTime by) throws TomatoException {
+        return updateDeadlineTimeById(get(taskNumber).getId(), by);
+    }
+
+    /**
+     * Changes the start date-time of the event with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @param from New start date-time.
+     * @return message for the user.
+     * @throws TomatoException If no event has that ID.
+     */
+    public String updateEventFromById(long taskId, LocalDateTime from) throws TomatoException {
+        int slot = getEventSlot(taskId);
+        ((Event) slots[slot]).setDateTimeFrom(from);
+        indexUpdate(slot);
+        return "OK! I've updated your event start datetime!\n" + slots[slot];
+    }
+
+    /**
+     * Changes the start date-time of the event with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @param from New start date-time.
+     * @return message for the user.
+     * @throws TomatoException If there is no event with that number.
+     */
+    public String updateEventFrom(int taskNumber, LocalDateTime from) throws TomatoException {
+        return updateEventFromById(get(taskNumber).getId(), from);
+    }
+
+    /**
+     * Changes the end date-time of the event with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @param to New end date-time.
+     * @return message for the user.
+     * @throws TomatoException If no event has that ID.
+     */
+    public String updateEventToById(long taskId, LocalDateTime to) throws TomatoException {
+        int slot = getEventSlot(taskId);
+        ((Event) slots[slot]).setDateTimeTo(to);
+        indexUpdate(slot);
+        return "OK! I've updated your event end datetime!\n" + slots[slot];
+    }
+
+    /**
+     * Changes the end date-time of the event with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @param to New end date-time.
+     * @return message for the user.
+     * @throws TomatoException If there is no event with that number.
+     */
+    public String updateEventTo(int taskNumber, LocalDateTime to) throws TomatoException {
+        return updateEventToById(get(taskNumber).getId(), to);
+    }
+
+    /**
+     * Changes the start and end date-times of the event with the given ID.
+     *
+     * @param taskId Stable task ID.
+     * @param from New start date-time.
+     * @param to New end date-time.
+     * @return message for the user.
+     * @throws TomatoException If no event has that ID.
+     */
+    public String updateEventTimeById(long taskId, LocalDateTime from, LocalDateTime to) throws TomatoException {
+        int slot = getEventSlot(taskId);
+        Event event = (Event) slots[slot];
+        event.setDateTimeFrom(from);
+        event.setDateTimeTo(to);
+        indexUpdate(slot);
+        return "OK! I've updated your event datetime!\n" + event;
+    }
+
+    /**
+     * Changes the start and end date-times of the event with the given task number.
+     *
+     * @param taskNumber Zero-based task number.
+     * @param from New start date-time.
+     * @param to New end date-time.
+     * @return message for the user.
+     * @throws TomatoException If there is no event with that number.
+     */
+    public String updateEventTime(int taskNumber, LocalDateTime from, LocalDateTime to) throws TomatoException {
+        return updateEventTimeById(get(taskNumber).getId(), from, to);
+    }
+
+    /**
+     * Returns the task numbers of the tasks whose descriptions have a word close to each of the given keywords,
+     * closest first, using the fuzzy index.
+     * The index is built on the first search and then kept in step with each change to the list.
+     *
+     * @param keywords Keywords to search for, possibly misspelt.
+     * @param maxDistance Largest number of typos allowed in each keyword.
+     * @param limit Maximum number of tasks to return.
+     * @return zero-based task numbers of matching tasks, in order of distance.
+     */
+    public ArrayList<Integer> findTasksFuzzy(String keywords, int maxDistance, int limit) {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = keepInStep(new FuzzyIndex(taskView));
+        }
+        return fuzzyIndex.find(keywords, maxDistance, limit);
+    }
+
+    /**
+     * Makes searches match keywords anywhere in task descriptions, e.g. "arist" in "read aristotle",
+     * instead of only at the start of words. This keeps a trigram index of the descriptions instead of the
+     * keyword index.
+     */
+    public void enableInfixSearch() {
+        isInfixSearchEnabled = true;
+    }
+
+    /**
+     * Returns the task numbers of the tasks whose descriptions match the given keywords, using the keyword index,
+     * or the trigram index if infix search is enabled.
+     * The index is built on the first search and then kept in step with each change to the list.
+     *
+     * @param keywords Keywords to search for.
+     * @param mode Whether a task must match all or any of the keywords.
+     * @return sorted zero-based task numbers of matching tasks.
+     */
+    public ArrayList<Integer> findTasks(String keywords, KeywordIndex.Mode mode) {
+        if (isInfixSearchEnabled) {
+            if (trigramIndex == null) {
+                trigramIndex = keepInStep(new TrigramIndex(taskView));
+            }
+            return trigramIndex.find(keywords, mode);
+        }
+
+        if (keywordIndex == null) {
+            keywordIndex = keepInStep(new KeywordIndex(taskView));
+        }
+        return keywordIndex.find(keywords, mode);
+    }
+
+    /**
+     * Returns the task numbers of the events that overlap the given period, using the interval index.
+     * The index is built on the first search and then kept in step with each change to the list.
+     *
+     * @param from Start of the period.
+     * @param to End of the period.
+     * @return zero-based task numbers of overlapping events, in order of start time.
+     */
+    public ArrayList<Integer> findEvents(LocalDateTime from, LocalDateTime to) {
+        if (intervalIndex == null) {
+            intervalIndex = keepInStep(new IntervalIndex(taskView));
+        }
+        return intervalIndex.findOverlapping(from, to);
+    }
+
+    /**
+     * Returns the task numbers of the earliest unfinished deadlines due within the given period,
+     * using the deadline index.
+     * The index is built on the first search and then kept in step with each change to the list.
+     *
+     * @param from Start of the period, inclusive.
+     * @param to End of the period, inclusive.
+     * @param limit Maximum number of deadlines to return.
+     * @return zero-based task numbers of deadlines, in order of due date-time.
+     */
+    public ArrayList<Integer> findDeadlines(LocalDateTime from, LocalDateTime to, int limit) {
+        if (deadlineIndex == null) {
+            deadlineIndex = keepInStep(new DeadlineIndex(taskView));
+        }
+        return deadlineIndex.findDue(from, to, limit);
+    }
+
+    /**
+     * Returns the task numbers of the tasks with the given status and type, using the status index.
+     * The index is built on the first lookup and then kept in step with each change to the list.
+     *
+     * @param status Completion status to keep.
+     * @param type Task type to keep.
+     * @return sorted zero-based task numbers of matching tasks.
+     */
+    public ArrayList<Integer> filterTasks(StatusIndex.Status status, StatusIndex.Type type) {
+        if (statusIndex == null) {
+            statusIndex = keepInStep(new StatusIndex(taskView));
+        }
+        return statusIndex.find(status, type);
+    }
+
+    /**
+     * Returns every task, one per line, numbered from 1.
+     *
+     * @return message for the user.
+     */
+    @Override
+    public String toString() {
+        StringBuilder res = new StringBuilder("Here are the tasks in your list:\n");
+        int taskNumber = 1;
+        for (Task task : taskView) {
+            res.append(taskNumber++).append(". ").append(task).append("\n");
+        }
+        return res.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package tomato.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Finds the tasks matching a condition that no index covers, by checking every task.
+ * <p>
+ * Lists longer than a cut-off are split into ranges that are checked in parallel on the common fork-join pool,
+ * and the matches of the ranges are joined back in list order. Shorter lists are checked on the calling thread,
+ * where handing the work to other threads would cost more than it saves.
+ * Conditions are checked from several threads at once, so they must only read the tasks.
+ */
+public class TaskScanner {
+    private static final int SEQUENTIAL_CUTOFF = 8192;
+
+    /**
+     * Represents the check of one range of positions, which splits itself in two until it is short enough.
+     */
+    private static class RangeScan extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final IntPredicate predicate;
+
+        private RangeScan(int from, int to, IntPredicate predicate) {
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SEQUENTIAL_CUTOFF) {
+                return scanRange(from, to, predicate);
+            }
+
+            int middle = (from + to) >>> 1;
+            RangeScan firstHalf = new RangeScan(from, middle, predicate);
+            firstHalf.fork();
+            int[] secondMatches = new RangeScan(middle, to, predicate).compute();
+            int[] firstMatches = firstHalf.join();
+            int[] matches = Arrays.copyOf(firstMatches, firstMatches.length + secondMatches.length);
+            System.arraycopy(secondMatches, 0, matches, firstMatches.length, secondMatches.length);
+            return matches;
+        }
+    }
+
+    private TaskScanner() {
+    }
+
+    private static int[] scanRange(int from, int to, IntPredicate predicate) {
+        int[] matches = new int[Math.min(to - from, 16)];
+        int count = 0;
+        for (int position = from; position < to; position++) {
+            if (predicate.test(position)) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = position;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Returns the positions from zero up to the given count that match the given condition.
+     *
+     * @param count Number of positions to check.
+     * @param predicate Condition on a position, which must be safe to check from several threads.
+     * @return matching positions, in ascending order.
+     */
+    public static int[] scan(int count, IntPredicate predicate) {
+        if (count <= SEQUENTIAL_CUTOFF) {
+            return scanRange(0, count, predicate);
+        }
+        return ForkJoinPool.commonPool().invoke(new RangeScan(0, count, predicate));
+    }
+}
@@ -0,0 +1,257 @@
+package tomato.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import tomato.task.Task;
+
+/**
+ * Represents an index from the three-character sequences (trigrams) in task descriptions to the tasks
+ * containing them, for finding tasks by any fragment of their description, e.g. "arist" in "read aristotle".
+ * <p>
+ * A query word is looked up by intersecting the posting lists of its trigrams, which narrows the search to
+ * tasks containing all of them, and each remaining task is then checked for the word itself. Query words
+ * shorter than a trigram cannot be narrowed this way, and are checked against every task with a
+ * {@link TaskScanner}.
+ * <p>
+ * Trigrams are packed into int keys in an open addressing table, and posting lists hold int task ids,
+ * so memory grows with the number of distinct trigrams and postings rather than with boxed objects.
+ */
+public class TrigramIndex implements TaskIndex {
+    private static final int TRIGRAM_LENGTH = 3;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_TABLE_SIZE = 1024;
+    private static final int CHAR_BITS = 10;
+    private static final int PACKED_KEY_FLAG = 1 << 30;
+    private static final int HASHED_KEY_FLAG = 1 << 31;
+    private static final int EMPTY_KEY = 0;
+
+    private String[] descriptionsById;
+    private TaskIds ids;
+    private int[] tableKeys;
+    private PostingList[] tableLists;
+    private int usedSlots;
+
+    /**
+     * Creates an index of the given tasks.
+     *
+     * @param tasks Tasks to index, in list order.
+     */
+    public TrigramIndex(List<Task> tasks) {
+        int capacity = Math.max(INITIAL_CAPACITY, tasks.size() * 2);
+        descriptionsById = new String[capacity];
+        ids = new TaskIds(capacity);
+        tableKeys = new int[INITIAL_TABLE_SIZE];
+        tableLists = new PostingList[INITIAL_TABLE_SIZE];
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Returns the int key of the trigram starting at the given index.
+     * Trigrams of characters below 1024 are packed exactly, and others are hashed, as every match
+     * is checked against the description anyway.
+     */
+    private static int getKey(String text, int start) {
+        char first = text.charAt(start);
+        char second = text.charAt(start + 1);
+        char third = text.charAt(start + 2);
+        if ((first | second | third) >>> CHAR_BITS == 0) {
+            return PACKED_KEY_FLAG | first << (2 * CHAR_BITS) | second << CHAR_BITS | third;
+        }
+        return HASHED_KEY_FLAG | ((first * 31 + second) * 31 + third);
+    }
+
+    /**
+     * Returns the distinct trigram keys of the given lower case text, in ascending order.
+     */
+    private static int[] getKeys(String text) {
+        if (text.length() < TRIGRAM_LENGTH) {
+            return new int[0];
+        }
+
+        int[] keys = new int[text.length() - TRIGRAM_LENGTH + 1];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = getKey(text, i);
+        }
+        Arrays.sort(keys);
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[count++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Returns the table slot holding the given key, or the empty slot where it would be added.
+     */
+    private int findSlot(int key) {
+        int mask = tableKeys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> 7 & mask;
+        while (tableKeys[slot] != EMPTY_KEY && tableKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Doubles the table, keeping it at most three quarters full.
+     */
+    private void growTable() {
+        int[] oldKeys = tableKeys;
+        PostingList[] oldLists = tableLists;
+        tableKeys = new int[oldKeys.length * 2];
+        tableLists = new PostingList[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = findSlot(oldKeys[i]);
+                tableKeys[slot] = oldKeys[i];
+                tableLists[slot] = oldLists[i];
+            }
+        }
+    }
+
+    private void indexDescription(int id, String description) {
+        descriptionsById[id] = description;
+        for (int key : getKeys(description)) {
+            int slot = findSlot(key);
+            if (tableKeys[slot] == EMPTY_KEY) {
+                tableKeys[slot] = key;
+                tableLists[slot] = new PostingList();
+                usedSlots++;
+            }
+            tableLists[slot].add(id);
+            if (usedSlots * 4 > tableKeys.length * 3) {
+                growTable();
+            }
+        }
+    }
+
+    /**
+     * Removes the given task id from the posting lists of its trigrams.
+     * Emptied posting lists are kept, so that table lookups never probe across a removed key.
+     */
+    private void unindexDescription(int id) {
+        for (int key : getKeys(descriptionsById[id])) {
+            tableLists[findSlot(key)].remove(id);
+        }
+        descriptionsById[id] = null;
+    }
+
+    /**
+     * Renumbers the tasks still in the list into new task ids, with room for as many more tasks.
+     */
+    private void compact() {
+        String[] oldDescriptionsById = descriptionsById;
+        int capacity = Math.max(INITIAL_CAPACITY, ids.size() * 2);
+        descriptionsById = new String[capacity];
+        ids = new TaskIds(capacity);
+        tableKeys = new int[INITIAL_TABLE_SIZE];
+        tableLists = new PostingList[INITIAL_TABLE_SIZE];
+        usedSlots = 0;
+        for (String description : oldDescriptionsById) {
+            if (description != null) {
+                indexDescription(ids.add(), description);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the index.
+     *
+     * @return indexed task count.
+     */
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Indexes a task added to the end of the list.
+     *
+     * @param task Added task.
+     */
+    @Override
+    public void add(Task task) {
+        if (ids.isFull()) {
+            compact();
+        }
+        indexDescription(ids.add(), task.getDescription().toLowerCase());
+    }
+
+    /**
+     * Removes the task with the given task number from the index.
+     *
+     * @param taskNumber Zero-based task number of the deleted task.
+     */
+    @Override
+    public void remove(int taskNumber) {
+        int id = ids.getId(taskNumber);
+        unindexDescription(id);
+        ids.remove(id);
+    }
+
+    /**
+     * Re-indexes the task with the given task number, e.g. after its description changed.
+     *
+     * @param taskNumber Zero-based task number of the changed task.
+     * @param task Task now at that task number.
+     */
+    @Override
+    public void update(int taskNumber, Task task) {
+        int id = ids.getId(taskNumber);
+        unindexDescription(id);
+        indexDescription(id, task.getDescription().toLowerCase());
+    }
+
+    /**
+     * Returns the sorted ids of the tasks whose descriptions contain the given query word.
+     */
+    private int[] findIds(String queryWord) {
+        int[] keys = getKeys(queryWord);
+        if (keys.length == 0) {
+            return TaskScanner.scan(descriptionsById.length,
+                    id -> descriptionsById[id] != null && descriptionsById[id].contains(queryWord));
+        }
+
+        int[][] idLists = new int[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            int slot = findSlot(keys[i]);
+            if (tableKeys[slot] == EMPTY_KEY) {
+                return new int[0];
+            }
+            idLists[i] = tableLists[slot].toArray();
+        }
+
+        int[] candidateIds = TaskIds.combine(idLists, KeywordIndex.Mode.ALL);
+        int[] matchingIds = new int[candidateIds.length];
+        int count = 0;
+        for (int id : candidateIds) {
+            if (descriptionsById[id] != null && descriptionsById[id].contains(queryWord)) {
+                matchingIds[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matchingIds, count);
+    }
+
+    /**
+     * Returns the task numbers of the tasks whose descriptions contain the words of the given query,
+     * anywhere in the description and ignoring case.
+     *
+     * @param query Query words.
+     * @param mode Whether a task must contain all or any of the words.
+     * @return sorted zero-based task numbers of matching tasks.
+     */
+    public ArrayList<Integer> find(String query, KeywordIndex.Mode mode) {
+        String[] queryWords = KeywordIndex.tokenize(query);
+        int[][] idLists = new int[queryWords.length][];
+        for (int i = 0; i < queryWords.length; i++) {
+            idLists[i] = findIds(queryWords[i]);
+        }
+        return ids.toTaskNumbers(TaskIds.combine(idLists, mode));
+    }
+}
@@ -0,0 +1,281 @@
+package tomato.parser;
+
+/**
+ * Splits a line of user input into its command word, its arguments and the flags within them, in a single pass
+ * over the characters and without creating any strings or arrays.
+ * <p>
+ * Each part is kept as a range of character offsets into the input, and text is only copied out when a command
+ * needs it, e.g. for a task description. A flag is found anywhere in the arguments, and its value runs from the
+ * end of the flag to the start of the next flag or the end of the arguments. A scanner is reused for every line
+ * its parser reads.
+ */
+class CommandScanner {
+    /**
+     * Represents the flags that separate the fields of a command.
+     */
+    static enum Flag {
+        BY("/by"), FROM("/from"), TO("/to"), DESCRIPTION("/description"), TIME("/time");
+
+        private final String text;
+
+        Flag(String text) {
+            this.text = text;
+        }
+    }
+
+    private static final Flag[] FLAGS = Flag.values();
+    private static final int NOT_FOUND = -1;
+
+    private final int[] flagStarts = new int[FLAGS.length];
+    private String input = "";
+    private int commandStart;
+    private int commandEnd;
+    private int argumentStart;
+    private int argumentEnd;
+    private boolean hasPipe;
+
+    /**
+     * Scans a new line of input, replacing the previous one.
+     *
+     * @param input Line of user input.
+     */
+    void reset(String input) {
+        this.input = input;
+        int end = input.length();
+        while (end > 0 && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+
+        int position = 0;
+        while (position < end && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        commandStart = position;
+        while (position < end && !Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        commandEnd = position;
+        while (position < end && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        argumentStart = position;
+        argumentEnd = end;
+
+        hasPipe = false;
+        for (int i = 0; i < flagStarts.length; i++) {
+            flagStarts[i] = NOT_FOUND;
+        }
+        for (; position < end; position++) {
+            char c = input.charAt(position);
+            if (c == '|') {
+                hasPipe = true;
+            } else if (c == '/') {
+                markFlag(position);
+            }
+        }
+    }
+
+    /**
+     * Records the flag starting at the given offset, if it is the first occurrence of a known flag and is followed
+     * by whitespace or the end of the arguments.
+     */
+    private void markFlag(int position) {
+        for (Flag flag : FLAGS) {
+            int flagEnd = position + flag.text.length();
+            boolean isFlagEnd = flagEnd == argumentEnd
+                    || flagEnd < argumentEnd && Character.isWhitespace(input.charAt(flagEnd));
+            if (flagStarts[flag.ordinal()] == NOT_FOUND && isFlagEnd
+                    && input.regionMatches(position, flag.text, 0, flag.text.length())) {
+                flagStarts[flag.ordinal()] = position;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the length of the command word.
+     *
+     * @return command word length.
+     */
+    int getCommandLength() {
+        return commandEnd - commandStart;
+    }
+
+    /**
+     * Returns the character of the command word at the given index, in lower case.
+     *
+     * @param index Zero-based index within the command word.
+     * @return lower case character.
+     */
+    char getCommandChar(int index) {
+        return Character.toLowerCase(input.charAt(commandStart + index));
+    }
+
+    /**
+     * Returns whether the command word is the given word, ignoring case.
+     *
+     * @param word Lower case command word.
+     * @return true if the command word matches.
+     */
+    boolean isCommand(String word) {
+        return word.length() == getCommandLength()
+                && input.regionMatches(true, commandStart, word, 0, word.length());
+    }
+
+    /**
+     * Returns the command word as typed.
+     *
+     * @return command word.
+     */
+    String getCommand() {
+        return input.substring(commandStart, commandEnd);
+    }
+
+    /**
+     * Returns whether any arguments follow the command word.
+     *
+     * @return true if there are arguments.
+     */
+    boolean hasArguments() {
+        return argumentStart < argumentEnd;
+    }
+
+    /**
+     * Returns the arguments after the command word, without surrounding whitespace.
+     *
+     * @return arguments, or an empty string if there are none.
+     */
+    String getArguments() {
+        return input.substring(argumentStart, argumentEnd);
+    }
+
+    /**
+     * Returns whether the arguments contain the "|" that separates fields in the task file.
+     *
+     * @return true if a "|" was found.
+     */
+    boolean hasPipe() {
+        return hasPipe;
+    }
+
+    /**
+     * Returns whether the arguments contain the given flag.
+     *
+     * @param flag Flag to look for.
+     * @return true if the flag was found.
+     */
+    boolean hasFlag(Flag flag) {
+        return flagStarts[flag.ordinal()] != NOT_FOUND;
+    }
+
+    /**
+     * Returns the first flag in the arguments.
+     *
+     * @return first flag, or null if there is none.
+     */
+    Flag getFirstFlag() {
+        Flag firstFlag = null;
+        for (Flag flag : FLAGS) {
+            boolean isEarlier = firstFlag == null || flagStarts[flag.ordinal()] < flagStarts[firstFlag.ordinal()];
+            if (hasFlag(flag) && isEarlier) {
+                firstFlag = flag;
+            }
+        }
+        return firstFlag;
+    }
+
+    private int getValueEnd(int valueStart) {
+        int valueEnd = argumentEnd;
+        for (int flagStart : flagStarts) {
+            if (flagStart >= valueStart && flagStart < valueEnd) {
+                valueEnd = flagStart;
+            }
+        }
+        return valueEnd;
+    }
+
+    /**
+     * Returns the text of the arguments before the given flag, or before the first flag if none is given.
+     *
+     * @param flag Flag the text ends at, or null for the first flag.
+     * @return text as typed, including any whitespace before the flag.
+     */
+    String getTextBefore(Flag flag) {
+        int end = flag == null ? getValueEnd(argumentStart) : flagStarts[flag.ordinal()];
+        return input.substring(argumentStart, end);
+    }
+
+    /**
+     * Returns the value of the given flag, up to the next flag or the end of the arguments.
+     *
+     * @param flag Flag found in the arguments.
+     * @return value without surrounding whitespace.
+     */
+    String getValue(Flag flag) {
+        assert hasFlag(flag) : "flag should be in the arguments";
+        int valueStart = flagStarts[flag.ordinal()] + flag.text.length();
+        int valueEnd = getValueEnd(valueStart);
+        while (valueStart < valueEnd && Character.isWhitespace(input.charAt(valueStart))) {
+            valueStart++;
+        }
+        while (valueEnd > valueStart && Character.isWhitespace(input.charAt(valueEnd - 1))) {
+            valueEnd--;
+        }
+        return input.substring(valueStart, valueEnd);
+    }
+
+    /**
+     * Returns the whole number at the start of the arguments, which must be followed by whitespace,
+     * a flag or nothing.
+     *
+     * @return parsed number, or -1 if the arguments do not start with a whole number.
+     */
+    int getLeadingNumber() {
+        int value = 0;
+        int position = argumentStart;
+        while (position < argumentEnd && Character.isDigit(input.charAt(position))) {
+            int digit = Character.digit(input.charAt(position), 10);
+            if (value > (Integer.MAX_VALUE - digit) / 10) {
+                return NOT_FOUND;
+            }
+            value = value * 10 + digit;
+            position++;
+        }
+
+        boolean isNumberEnd = position == argumentEnd || Character.isWhitespace(input.charAt(position))
+                || input.charAt(position) == '/';
+        return position > argumentStart && isNumberEnd ? value : NOT_FOUND;
+    }
+
+    /**
+     * Returns whether the arguments hold nothing but the leading whole number.
+     *
+     * @return true if only a number was given.
+     */
+    boolean isOnlyNumber() {
+        return isOnlyNumberUpTo(argumentEnd);
+    }
+
+    /**
+     * Returns whether the arguments before the given flag hold nothing but the leading whole number.
+     *
+     * @param flag Flag found in the arguments.
+     * @return true if only a number comes before the flag.
+     */
+    boolean isOnlyNumberBefore(Flag flag) {
+        assert hasFlag(flag) : "flag should be in the arguments";
+        return isOnlyNumberUpTo(flagStarts[flag.ordinal()]);
+    }
+
+    private boolean isOnlyNumberUpTo(int end) {
+        int position = argumentStart;
+        while (position < end && Character.isDigit(input.charAt(position))) {
+            position++;
+        }
+        boolean hasDigits = position > argumentStart;
+        while (position < end && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        return hasDigits && position == end;
+    }
+}
@@ -1,20 +1,25 @@
 package tomato.parser;
 
-import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import tomato.Tomato;
 import tomato.TomatoException;
+import tomato.commands.BulkTaskCommand;
 import tomato.commands.ByeCommand;
 import tomato.commands.Command;
 import tomato.commands.DeadlineCommand;
 import tomato.commands.DeleteCommand;
+import tomato.commands.DueCommand;
 import tomato.commands.EventCommand;
 import tomato.commands.FindCommand;
+import tomato.commands.FuzzyFindCommand;
 import tomato.commands.InvalidCommand;
 import tomato.commands.ListCommand;
 import tomato.commands.MarkCommand;
+import tomato.commands.OverdueCommand;
+import tomato.commands.ScheduleCommand;
 import tomato.commands.TodoCommand;
 import tomato.commands.UnmarkCommand;
 import tomato.commands.UpdateCommand;
@@ -23,6 +28,9 @@ import tomato.commands.UpdateDescriptionCommand;
 import tomato.commands.UpdateEventFromCommand;
 import tomato.commands.UpdateEventTimeCommand;
 import tomato.commands.UpdateEventToCommand;
+import tomato.data.KeywordIndex;
+import tomato.data.StatusIndex;
+import tomato.task.DateTimeCodec;
 import tomato.task.Deadline;
 import tomato.task.Event;
 import tomato.task.Task;
@@ -33,10 +41,10 @@ import tomato.task.Todo;
  */
 public class Parser {
     private static final int COMMAND_SPLIT_LIMIT = 2;
-    private static final int TASK_STATUS_DONE_FLAG = 1;
+    private static final String TASK_STATUS_DONE_FLAG = "1";
+    private static final String TASK_STATUS_NOT_DONE_FLAG = "0";
+    private static final int TASK_RECORD_FIELD_COUNT = 2;
     private static final int TASK_NUMBER_OFFSET = 1;
-    private static final int TASK_FIELD_COUNT = 2;
-    private static final int UPDATE_TIME_FIELD_COUNT = 3;
     private static final int TODO_STORAGE_FIELD_COUNT = 2;
     private static final int DEADLINE_STORAGE_FIELD_COUNT = 3;
     private static final int EVENT_STORAGE_FIELD_COUNT = 4;
@@ -50,10 +58,24 @@ public class Parser {
     private static final String REGEX_DEFAULT = "\\|";
     private static final String REGEX_BY = "/by|";
     private static final String REGEX_FROM_TO = "/from|\\\\/to|";
-    private static final String REGEX_DEADLINE = "/by|\\|";
-    private static final String REGEX_EVENT = "/from|\\/to|\\|";
-    private static final String DATE_TIME_FORMAT = "d/M/yyyy HHmm";
-
+    private static final String REGEX_TASK_RANGES = "[\\d,\\-\\s]+";
+    private static final String[] COMMAND_WORDS = {ByeCommand.COMMAND_WORD, ListCommand.COMMAND_WORD,
+        FindCommand.COMMAND_WORD, FuzzyFindCommand.COMMAND_WORD, MarkCommand.COMMAND_WORD,
+        UnmarkCommand.COMMAND_WORD, TodoCommand.COMMAND_WORD, DeadlineCommand.COMMAND_WORD,
+        EventCommand.COMMAND_WORD, DeleteCommand.COMMAND_WORD, UpdateCommand.COMMAND_WORD,
+        ScheduleCommand.COMMAND_WORD, DueCommand.COMMAND_WORD, OverdueCommand.COMMAND_WORD};
+    private static final String[] COMMAND_TABLE = buildCommandTable();
+    private static final int COMMAND_CACHE_CAPACITY = 256;
+    private static final float COMMAND_CACHE_LOAD_FACTOR = 0.75f;
+
+    private final CommandScanner scanner = new CommandScanner();
+    private final LinkedHashMap<String, Command> commandCache = new LinkedHashMap<>(COMMAND_CACHE_CAPACITY,
+            COMMAND_CACHE_LOAD_FACTOR, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Command> eldest) {
+            return size() > COMMAND_CACHE_CAPACITY;
+        }
+    };
 
     /**
      * Creates a parser instance.
@@ -63,41 +85,115 @@ public class Parser {
 
     /**
      * Returns a command parsed from the given user input.
+     * Read-only commands are kept in a cache of the most recently used inputs, so input given again,
+     * e.g. "list" or "find meeting", returns the same command without being parsed again.
      *
      * @param input string representing the command to be executed.
      * @return Parsed command.
      * @throws TomatoException If parsing fails due to invalid arguments.
      */
     public Command parse(String input) throws TomatoException {
-        String[] args = input.trim().split(" ", COMMAND_SPLIT_LIMIT);
-        String stringCommand = args[0].toLowerCase();
+        String normalisedInput = input.strip();
+        Command cachedCommand = commandCache.get(normalisedInput);
+        if (cachedCommand != null) {
+            return cachedCommand;
+        }
+
+        Command command = parseCommand(input);
+        if (command.isReadOnly()) {
+            commandCache.put(normalisedInput, command);
+        }
+        return command;
+    }
+
+    /**
+     * Returns a command parsed from the given user input, without looking in the cache.
+     */
+    private Command parseCommand(String input) throws TomatoException {
+        scanner.reset(input);
+        String commandWord = matchCommandWord();
+        if (commandWord == null) {
+            return handleInvalidCommand(scanner);
+        }
 
-        switch (stringCommand) {
+        switch (commandWord) {
         case ByeCommand.COMMAND_WORD:
             return new ByeCommand();
         case ListCommand.COMMAND_WORD:
-            return new ListCommand();
+            return handleListTasks(scanner);
         case FindCommand.COMMAND_WORD:
-            return handleFindTasks(args);
+            return handleFindTasks(scanner);
+        case FuzzyFindCommand.COMMAND_WORD:
+            return handleFuzzyFindTasks(scanner);
         case MarkCommand.COMMAND_WORD:
-            return handleMarkTask(args);
+            return handleMarkTask(scanner);
         case UnmarkCommand.COMMAND_WORD:
-            return handleUnmarkTask(args);
+            return handleUnmarkTask(scanner);
         case TodoCommand.COMMAND_WORD:
-            return handleCreateTodo(args);
+            return handleCreateTodo(scanner);
         case DeadlineCommand.COMMAND_WORD:
-            return handleCreateDeadline(args);
+            return handleCreateDeadline(scanner);
         case EventCommand.COMMAND_WORD:
-            return handleCreateEvent(args);
+            return handleCreateEvent(scanner);
         case DeleteCommand.COMMAND_WORD:
-            return handleDeleteTask(args);
+            return handleDeleteTask(scanner);
         case UpdateCommand.COMMAND_WORD:
-            return handleUpdateTask(args);
+            return handleUpdateTask(scanner);
+        case ScheduleCommand.COMMAND_WORD:
+            return handleSchedule(scanner);
+        case DueCommand.COMMAND_WORD:
+            return handleDue(scanner);
+        case OverdueCommand.COMMAND_WORD:
+            return handleOverdue(scanner);
         default:
-            return handleInvalidCommand(args);
+            return handleInvalidCommand(scanner);
         }
     }
 
+    /**
+     * Returns the slot of a command word in the command table, from its length and its first and last characters,
+     * which no two command words share.
+     */
+    private static int getCommandSlot(int length, char first, char last, int tableSize) {
+        return ((length * 31 + first) * 31 + last) & (tableSize - 1);
+    }
+
+    /**
+     * Returns the command words placed at their slots, in the smallest power-of-two table where no two words
+     * share a slot, so that a command word is matched with one lookup and one comparison.
+     */
+    private static String[] buildCommandTable() {
+        for (int tableSize = Integer.highestOneBit(COMMAND_WORDS.length) * 2; ; tableSize *= 2) {
+            String[] table = new String[tableSize];
+            boolean hasCollision = false;
+            for (String word : COMMAND_WORDS) {
+                int slot = getCommandSlot(word.length(), word.charAt(0), word.charAt(word.length() - 1), tableSize);
+                hasCollision |= table[slot] != null;
+                table[slot] = word;
+            }
+            if (!hasCollision) {
+                return table;
+            }
+        }
+    }
+
+    /**
+     * Returns the command word of the scanned input, looked up in the command table.
+     *
+     * @return matching command word, or null if the input does not start with one.
+     */
+    private String matchCommandWord() {
+        int length = scanner.getCommandLength();
+        if (length == 0) {
+            return null;
+        }
+
+        int slot = getCommandSlot(length, scanner.getCommandChar(0), scanner.getCommandChar(length - 1),
+                COMMAND_TABLE.length);
+        String commandWord = COMMAND_TABLE[slot];
+        return commandWord != null && scanner.isCommand(commandWord) ? commandWord : null;
+    }
+
     /**
      * Checks whether the given argument array has the required length.
      *
@@ -114,62 +210,73 @@ public class Parser {
     }
 
     /**
-     * Returns arguments split by the given keyword pattern.
+     * Checks whether the scanned command has arguments.
      *
-     * @param inputArgs input string.
-     * @param keyword regex to split arguments.
-     * @return array of string.
+     * @param command Scanned command.
+     * @param cmdUsage string name of the command.
+     * @throws TomatoException If no arguments are given.
      */
-    public String[] parseArgs(String inputArgs, String keyword) {
-        return inputArgs.split(keyword + REGEX_DEFAULT);
+    private void checkHasArguments(CommandScanner command, String cmdUsage) throws TomatoException {
+        if (!command.hasArguments()) {
+            throw new TomatoException("Incorrect number of arguments provided! " +
+                    "Please give the correct arguments.\n" + cmdUsage);
+        }
     }
 
     /**
-     * Returns deadline arguments split by `/by`.
+     * Returns the arguments of the scanned command.
      *
-     * @param deadlineArgs Raw deadline argument string.
-     * @return Split argument array.
+     * @param command Scanned command.
+     * @param cmdUsage string name of the command.
+     * @return arguments without surrounding whitespace.
+     * @throws TomatoException If no arguments are given.
      */
-    private String[] parseSlashDeadline(String deadlineArgs) {
-        return deadlineArgs.split(REGEX_DEADLINE);
+    private String getArguments(CommandScanner command, String cmdUsage) throws TomatoException {
+        checkHasArguments(command, cmdUsage);
+        return command.getArguments();
     }
 
     /**
-     * Returns event arguments split by `/from` and `/to`.
+     * Returns the value of a flag the scanned command requires.
      *
-     * @param eventArgs Raw event argument string.
-     * @return Split argument array.
+     * @param command Scanned command.
+     * @param flag Required flag.
+     * @param cmdUsage string name of the command.
+     * @return flag value without surrounding whitespace.
+     * @throws TomatoException If the flag or its value is missing.
      */
-    private String[] parseSlashEvent(String eventArgs) {
-        return eventArgs.split(REGEX_EVENT);
+    private String getFlagValue(CommandScanner command, CommandScanner.Flag flag, String cmdUsage)
+            throws TomatoException {
+        String value = command.hasFlag(flag) ? command.getValue(flag) : "";
+        if (value.isEmpty()) {
+            throw new TomatoException("Incorrect number of arguments provided! " +
+                    "Please give the correct arguments.\n" + cmdUsage);
+        }
+        return value;
     }
 
     /**
-     * Returns validated and parsed arguments for creating a deadline task.
+     * Checks that the scanned command has none of the "|" characters that separate fields in the task file.
      *
-     * @param args Raw command arguments.
-     * @return Parsed deadline arguments.
-     * @throws TomatoException If the arguments are invalid.
+     * @param command Scanned command.
+     * @param cmdUsage string name of the command.
+     * @throws TomatoException If a "|" is found.
      */
-    private String[] parseDeadline(String[] args) throws TomatoException {
-        checkArgLength(args, 2, DeadlineCommand.MESSAGE_USAGE);
-        String[] parsedArgs = parseSlashDeadline(args[1]);
-        checkArgLength(parsedArgs, 2, DeadlineCommand.MESSAGE_USAGE);
-        return parsedArgs;
+    private void checkNoPipe(CommandScanner command, String cmdUsage) throws TomatoException {
+        if (command.hasPipe()) {
+            throw new TomatoException("Task details cannot contain \"|\"!\n" + cmdUsage, "|");
+        }
     }
 
     /**
-     * Returns validated and parsed arguments for creating an event task.
+     * Returns arguments split by the given keyword pattern.
      *
-     * @param args Raw command arguments.
-     * @return Parsed event arguments.
-     * @throws TomatoException If the arguments are invalid.
+     * @param inputArgs input string.
+     * @param keyword regex to split arguments.
+     * @return array of string.
      */
-    private String[] parseEvent(String[] args) throws TomatoException {
-        checkArgLength(args, 2, EventCommand.MESSAGE_USAGE);
-        String[] parsedArgs = parseSlashEvent(args[1]);
-        checkArgLength(parsedArgs, 3, EventCommand.MESSAGE_USAGE);
-        return parsedArgs;
+    public String[] parseArgs(String inputArgs, String keyword) {
+        return inputArgs.split(keyword + REGEX_DEFAULT);
     }
 
     /**
@@ -180,241 +287,543 @@ public class Parser {
      * @throws TomatoException If unable to parse input.
      */
     public LocalDateTime parseDate(String dateString) throws TomatoException {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_FORMAT);
-        String trimmedDateString = dateString.trim();
-
-        try {
-            return LocalDateTime.parse(trimmedDateString, formatter);
-        } catch (DateTimeException exception) {
-            // move on and try the second parser
-        }
-
-        try {
-            return LocalDateTime.parse(trimmedDateString);
-        } catch (DateTimeException exception) {
+        LocalDateTime dateTime = DateTimeCodec.parse(dateString.trim());
+        if (dateTime == null) {
             throw new TomatoException("Unable to parse date: " + dateString + "\n" +
                     "Please give the datetime in the following format: " +
                     "DD/MM/YYYY HHMM (e.g. 2/10/2025 1900)", dateString);
         }
+        return dateTime;
     }
 
     /**
-     * Returns a zero-based task index parsed from the given task number input.
+     * Returns the zero-based task index given as the only argument of the scanned command.
      *
-     * @param taskNumber Input task number string.
+     * @param command Scanned command.
+     * @param cmdUsage string name of the command.
      * @return Zero-based task index.
-     * @throws TomatoException If the input is not a valid task number.
+     * @throws TomatoException If the argument is missing or not a valid task number.
      */
-    private int parseTaskNo(String taskNumber) throws TomatoException {
-        try {
-            return Integer.parseInt(taskNumber) - TASK_NUMBER_OFFSET;
-        } catch (Exception exception) {
+    private int parseTaskNo(CommandScanner command, String cmdUsage) throws TomatoException {
+        checkHasArguments(command, cmdUsage);
+        int taskNumber = command.getLeadingNumber();
+        if (!command.isOnlyNumber() || taskNumber < 0) {
             throw new TomatoException("You must provide a task number!");
         }
+        return taskNumber - TASK_NUMBER_OFFSET;
     }
 
     /**
      * Returns a command for creating a todo task.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Todo command.
      * @throws TomatoException If arguments are insufficient or invalid.
      */
-    private Command handleCreateTodo(String[] args) throws TomatoException {
-        checkArgLength(args, 2, TodoCommand.MESSAGE_USAGE);
-        String description = args[1];
+    private Command handleCreateTodo(CommandScanner command) throws TomatoException {
+        String description = getArguments(command, TodoCommand.MESSAGE_USAGE);
+        checkNoPipe(command, TodoCommand.MESSAGE_USAGE);
         return new TodoCommand(description);
     }
 
     /**
      * Returns a command for creating a deadline task.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Deadline command.
      * @throws TomatoException If arguments are insufficient or invalid.
      */
-    private Command handleCreateDeadline(String[] args) throws TomatoException {
-        String[] deadlineArgs = parseDeadline(args);
-        String description = deadlineArgs[0];
-        LocalDateTime dateTime = parseDate(deadlineArgs[1]);
+    private Command handleCreateDeadline(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, DeadlineCommand.MESSAGE_USAGE);
+        checkNoPipe(command, DeadlineCommand.MESSAGE_USAGE);
+        LocalDateTime dateTime = parseDate(getFlagValue(command, CommandScanner.Flag.BY,
+                DeadlineCommand.MESSAGE_USAGE));
+        String description = command.getTextBefore(CommandScanner.Flag.BY);
         return new DeadlineCommand(description, dateTime);
     }
 
     /**
      * Returns a command for creating an event task.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Event command.
      * @throws TomatoException If arguments are insufficient or invalid.
      */
-    private Command handleCreateEvent(String[] args) throws TomatoException {
-        String[] eventArgs = parseEvent(args);
-        String description = eventArgs[0];
-        LocalDateTime startDateTime = parseDate(eventArgs[1]);
-        LocalDateTime endDateTime = parseDate(eventArgs[2]);
-        return new EventCommand(description, startDateTime, endDateTime);
+    private Command handleCreateEvent(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, EventCommand.MESSAGE_USAGE);
+        checkNoPipe(command, EventCommand.MESSAGE_USAGE);
+        String startArg = getFlagValue(command, CommandScanner.Flag.FROM, EventCommand.MESSAGE_USAGE);
+        String endArg = getFlagValue(command, CommandScanner.Flag.TO, EventCommand.MESSAGE_USAGE);
+        String description = command.getTextBefore(null);
+        return new EventCommand(description, parseDate(startArg), parseDate(endArg));
+    }
+
+    /**
+     * Returns a command for listing the events within a period.
+     *
+     * @param command Scanned command.
+     * @return Schedule command.
+     * @throws TomatoException If the period is missing, invalid, or ends before it starts.
+     */
+    private Command handleSchedule(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, ScheduleCommand.MESSAGE_USAGE);
+        String fromArg = getFlagValue(command, CommandScanner.Flag.FROM, ScheduleCommand.MESSAGE_USAGE);
+        String toArg = getFlagValue(command, CommandScanner.Flag.TO, ScheduleCommand.MESSAGE_USAGE);
+        if (!command.getTextBefore(null).isBlank()) {
+            throw new TomatoException("Invalid schedule format!\n" + ScheduleCommand.MESSAGE_USAGE);
+        }
+
+        LocalDateTime from = parseDate(fromArg);
+        LocalDateTime to = parseDate(toArg);
+        if (from.isAfter(to)) {
+            throw new TomatoException("The period must not end before it starts!");
+        }
+        return new ScheduleCommand(from, to);
+    }
+
+    /**
+     * Returns a non-negative count parsed from the given input.
+     *
+     * @param count Input count string.
+     * @param cmdUsage Usage of the command, shown if the count is invalid.
+     * @return Parsed count.
+     * @throws TomatoException If the input is not a non-negative whole number.
+     */
+    private int parseCount(String count, String cmdUsage) throws TomatoException {
+        try {
+            int parsedCount = Integer.parseInt(count.trim());
+            if (parsedCount >= 0) {
+                return parsedCount;
+            }
+        } catch (NumberFormatException exception) {
+            // fall through to the error below
+        }
+        throw new TomatoException("You must provide a whole number!\n" + cmdUsage, count);
+    }
+
+    /**
+     * Returns the maximum number of tasks to list, given by an optional "/top" argument.
+     *
+     * @param topArg Argument after "/top", or null if none was given.
+     * @param cmdUsage Usage of the command, shown if the argument is invalid.
+     * @return Parsed limit, or no limit if none was given.
+     * @throws TomatoException If the limit is not a positive whole number.
+     */
+    private int parseTopLimit(String topArg, String cmdUsage) throws TomatoException {
+        if (topArg == null) {
+            return Integer.MAX_VALUE;
+        }
+
+        int limit = parseCount(topArg, cmdUsage);
+        if (limit == 0) {
+            throw new TomatoException("The number of tasks to list must be positive!\n" + cmdUsage, topArg);
+        }
+        return limit;
+    }
+
+    /**
+     * Returns a command for listing the unfinished deadlines due within a number of days.
+     *
+     * @param command Scanned command.
+     * @return Due command.
+     * @throws TomatoException If the number of days or the limit is missing or invalid.
+     */
+    private Command handleDue(CommandScanner command) throws TomatoException {
+        String[] dueArgs = getArguments(command, DueCommand.MESSAGE_USAGE).split(DueCommand.TOP_FLAG, 2);
+        int days = parseCount(dueArgs[0], DueCommand.MESSAGE_USAGE);
+        int limit = parseTopLimit(dueArgs.length > 1 ? dueArgs[1] : null, DueCommand.MESSAGE_USAGE);
+        return new DueCommand(days, limit);
+    }
+
+    /**
+     * Returns a command for listing the overdue unfinished deadlines.
+     *
+     * @param command Scanned command.
+     * @return Overdue command.
+     * @throws TomatoException If the limit is invalid.
+     */
+    private Command handleOverdue(CommandScanner command) throws TomatoException {
+        if (!command.hasArguments()) {
+            return new OverdueCommand(Integer.MAX_VALUE);
+        }
+
+        String topArgs = command.getArguments();
+        if (!topArgs.startsWith(DueCommand.TOP_FLAG)) {
+            throw new TomatoException("Invalid overdue format!\n" + OverdueCommand.MESSAGE_USAGE);
+        }
+        return new OverdueCommand(parseTopLimit(topArgs.substring(DueCommand.TOP_FLAG.length()),
+                OverdueCommand.MESSAGE_USAGE));
+    }
+
+    /**
+     * Returns the order given by the argument after "/sort".
+     *
+     * @param sortArg Name of the field to sort by.
+     * @return Sort key.
+     * @throws TomatoException If the field cannot be sorted by.
+     */
+    private ListCommand.SortKey parseSortKey(String sortArg) throws TomatoException {
+        switch (sortArg.toLowerCase()) {
+        case "by":
+            return ListCommand.SortKey.BY;
+        case "from":
+            return ListCommand.SortKey.FROM;
+        case ListCommand.DONE_WORD:
+            return ListCommand.SortKey.DONE;
+        default:
+            throw new TomatoException("Tasks can only be sorted by, from or done!\n" + ListCommand.MESSAGE_USAGE,
+                    sortArg);
+        }
+    }
+
+    /**
+     * Returns a command for listing tasks, keeping only the status and type given by optional filter words
+     * and the text given by an optional "/has" argument, in the order given by an optional "/sort" argument,
+     * and limited by optional "/top" and page arguments.
+     *
+     * @param command Scanned command.
+     * @return List command.
+     * @throws TomatoException If an argument is unknown, invalid or given twice.
+     */
+    private Command handleListTasks(CommandScanner command) throws TomatoException {
+        StatusIndex.Status status = StatusIndex.Status.ANY;
+        StatusIndex.Type type = StatusIndex.Type.ANY;
+        ListCommand.SortKey sortKey = ListCommand.SortKey.NONE;
+        String text = null;
+        String topArg = null;
+        int[] pageArgs = new int[] {ListCommand.NO_PAGE, ListCommand.DEFAULT_PAGE_SIZE};
+        int pageArgCount = 0;
+        String[] listArgs = !command.hasArguments() ? new String[0] : command.getArguments().split("\\s+");
+        for (int i = 0; i < listArgs.length; i++) {
+            String listArg = listArgs[i].toLowerCase();
+            if (listArg.equals(ListCommand.SORT_FLAG) || listArg.equals(ListCommand.HAS_FLAG)
+                    || listArg.equals(DueCommand.TOP_FLAG)) {
+                boolean isGivenTwice = listArg.equals(ListCommand.SORT_FLAG) ? sortKey != ListCommand.SortKey.NONE
+                        : listArg.equals(ListCommand.HAS_FLAG) ? text != null : topArg != null;
+                if (i + 1 == listArgs.length || isGivenTwice) {
+                    throw new TomatoException("Give " + listArg + " exactly once, followed by its value!\n"
+                            + ListCommand.MESSAGE_USAGE, listArg);
+                }
+                i++;
+                if (listArg.equals(ListCommand.SORT_FLAG)) {
+                    sortKey = parseSortKey(listArgs[i]);
+                } else if (listArg.equals(ListCommand.HAS_FLAG)) {
+                    text = listArgs[i];
+                } else {
+                    topArg = listArgs[i];
+                }
+                continue;
+            }
+
+            if (Character.isDigit(listArg.charAt(0))) {
+                if (pageArgCount == pageArgs.length) {
+                    throw new TomatoException("Only a page and a page size can be given!\n"
+                            + ListCommand.MESSAGE_USAGE, listArg);
+                }
+                pageArgs[pageArgCount] = parseCount(listArg, ListCommand.MESSAGE_USAGE);
+                if (pageArgs[pageArgCount] == 0) {
+                    throw new TomatoException("The page and page size must be positive!\n"
+                            + ListCommand.MESSAGE_USAGE, listArg);
+                }
+                pageArgCount++;
+                continue;
+            }
+
+            StatusIndex.Status wordStatus = StatusIndex.Status.ANY;
+            StatusIndex.Type wordType = StatusIndex.Type.ANY;
+            switch (listArg) {
+            case ListCommand.DONE_WORD:
+                wordStatus = StatusIndex.Status.DONE;
+                break;
+            case ListCommand.UNDONE_WORD:
+                wordStatus = StatusIndex.Status.UNDONE;
+                break;
+            case TodoCommand.COMMAND_WORD:
+                wordType = StatusIndex.Type.TODO;
+                break;
+            case DeadlineCommand.COMMAND_WORD:
+                wordType = StatusIndex.Type.DEADLINE;
+                break;
+            case EventCommand.COMMAND_WORD:
+                wordType = StatusIndex.Type.EVENT;
+                break;
+            default:
+                throw new TomatoException("Unknown list filter!\n" + ListCommand.MESSAGE_USAGE, listArgs[i]);
+            }
+
+            if ((wordStatus != StatusIndex.Status.ANY && status != StatusIndex.Status.ANY)
+                    || (wordType != StatusIndex.Type.ANY && type != StatusIndex.Type.ANY)) {
+                throw new TomatoException("Only one status and one task type can be listed!\n"
+                        + ListCommand.MESSAGE_USAGE, listArgs[i]);
+            }
+            status = wordStatus == StatusIndex.Status.ANY ? status : wordStatus;
+            type = wordType == StatusIndex.Type.ANY ? type : wordType;
+        }
+
+        int limit = parseTopLimit(topArg, ListCommand.MESSAGE_USAGE);
+        return new ListCommand(status, type, text, sortKey, limit, pageArgs[0], pageArgs[1]);
+    }
+
+    /**
+     * Returns a command for marking, unmarking or deleting many tasks at once, given as "all" or as a list of
+     * task numbers and ranges such as "1-5,8", optionally followed by "/find" and keywords the tasks must contain.
+     *
+     * @param command Scanned command.
+     * @param action Change to make to each task.
+     * @param cmdUsage string name of the command.
+     * @return Bulk task command.
+     * @throws TomatoException If the tasks are not given as "all" or as valid task numbers and ranges.
+     */
+    private Command parseBulkCommand(CommandScanner command, BulkTaskCommand.Action action, String cmdUsage)
+            throws TomatoException {
+        String[] bulkArgs = command.getArguments().split(BulkTaskCommand.FIND_FLAG, COMMAND_SPLIT_LIMIT);
+        String keywords = bulkArgs.length > 1 ? bulkArgs[1].trim() : null;
+        if (keywords != null && keywords.isEmpty()) {
+            throw new TomatoException("You must provide keywords to find!\n" + cmdUsage);
+        }
+
+        String targets = bulkArgs[0].trim();
+        if (targets.equalsIgnoreCase(BulkTaskCommand.ALL_WORD)) {
+            return new BulkTaskCommand(action, keywords);
+        }
+
+        String[] ranges = targets.split(",");
+        if (!targets.matches(REGEX_TASK_RANGES) || ranges.length == 0) {
+            throw new TomatoException("You must provide a task number!");
+        }
+
+        int[] firstTaskNums = new int[ranges.length];
+        int[] lastTaskNums = new int[ranges.length];
+        for (int i = 0; i < ranges.length; i++) {
+            String[] bounds = ranges[i].split("-", COMMAND_SPLIT_LIMIT);
+            firstTaskNums[i] = parseCount(bounds[0], cmdUsage) - TASK_NUMBER_OFFSET;
+            lastTaskNums[i] = bounds.length > 1 ? parseCount(bounds[1], cmdUsage) - TASK_NUMBER_OFFSET
+                    : firstTaskNums[i];
+            if (firstTaskNums[i] < 0 || lastTaskNums[i] < firstTaskNums[i]) {
+                throw new TomatoException("Task numbers start from 1, and ranges must not end before they start!\n"
+                        + cmdUsage, ranges[i]);
+            }
+        }
+        return new BulkTaskCommand(action, firstTaskNums, lastTaskNums, keywords);
     }
 
     /**
      * Returns a command for deleting a task.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Delete command.
      * @throws TomatoException If task number is not provided or invalid.
      */
-    private Command handleDeleteTask(String[] args) throws TomatoException {
-        checkArgLength(args, 2, DeleteCommand.MESSAGE_USAGE);
-        int taskNum = parseTaskNo(args[1]);
+    private Command handleDeleteTask(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, DeleteCommand.MESSAGE_USAGE);
+        if (!command.isOnlyNumber()) {
+            return parseBulkCommand(command, BulkTaskCommand.Action.DELETE, DeleteCommand.MESSAGE_USAGE);
+        }
+
+        int taskNum = parseTaskNo(command, DeleteCommand.MESSAGE_USAGE);
         return new DeleteCommand(taskNum);
     }
 
     /**
      * Returns a command for marking a task as done.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Mark command.
      * @throws TomatoException If task number is not provided or invalid.
      */
-    private Command handleMarkTask(String[] args) throws TomatoException {
-        checkArgLength(args, 2, MarkCommand.MESSAGE_USAGE);
-        int taskNum = parseTaskNo(args[1]);
+    private Command handleMarkTask(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, MarkCommand.MESSAGE_USAGE);
+        if (!command.isOnlyNumber()) {
+            return parseBulkCommand(command, BulkTaskCommand.Action.MARK, MarkCommand.MESSAGE_USAGE);
+        }
+
+        int taskNum = parseTaskNo(command, MarkCommand.MESSAGE_USAGE);
         return new MarkCommand(taskNum);
     }
 
     /**
      * Returns a command for marking a task as not done.
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Unmark command.
      * @throws TomatoException If task number is not provided or invalid.
      */
-    private Command handleUnmarkTask(String[] args) throws TomatoException {
-        checkArgLength(args, 2, UnmarkCommand.MESSAGE_USAGE);
-        int taskNum = parseTaskNo(args[1]);
+    private Command handleUnmarkTask(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, UnmarkCommand.MESSAGE_USAGE);
+        if (!command.isOnlyNumber()) {
+            return parseBulkCommand(command, BulkTaskCommand.Action.UNMARK, UnmarkCommand.MESSAGE_USAGE);
+        }
+
+        int taskNum = parseTaskNo(command, UnmarkCommand.MESSAGE_USAGE);
         return new UnmarkCommand(taskNum);
     }
 
     /**
      * Returns a command for finding tasks by keyword.
+     * Tasks must contain every keyword, or any of them if the keywords start with "/any".
      *
-     * @param args string[] of input arguments.
+     * @param command Scanned command.
      * @return Find command.
      * @throws TomatoException If keyword argument is not provided.
      */
-    private Command handleFindTasks(String[] args) throws TomatoException {
-        checkArgLength(args, 2, FindCommand.MESSAGE_USAGE);
-        String keyword = args[1];
-        return new FindCommand(keyword);
+    private Command handleFindTasks(CommandScanner command) throws TomatoException {
+        String keyword = getArguments(command, FindCommand.MESSAGE_USAGE);
+        if (!keyword.startsWith(FindCommand.ANY_FLAG + " ")) {
+            return new FindCommand(keyword);
+        }
+
+        String anyKeywords = keyword.substring(FindCommand.ANY_FLAG.length()).trim();
+        return new FindCommand(anyKeywords, KeywordIndex.Mode.ANY);
     }
 
     /**
-     * Returns the update argument enum parsed from the given input token.
+     * Returns a command for finding tasks by keywords that may be misspelt, with optional "/distance" and "/top"
+     * arguments after the keywords.
      *
-     * @param updateFieldToken Update argument token.
-     * @return Parsed update argument enum.
+     * @param command Scanned command.
+     * @return Fuzzy find command.
+     * @throws TomatoException If no keyword is given or an argument is invalid.
      */
-    private UpdateCommand.UpdateField parseUpdateArgument(String updateFieldToken) throws TomatoException {
-        UpdateCommand.UpdateField updateField;
-        try {
-            updateField = UpdateCommand.UpdateField.valueOf(updateFieldToken.toUpperCase());
-        } catch (IllegalArgumentException exception) {
-            throw new TomatoException("Invalid argument given: " + updateFieldToken +
-                    "\nPlease choose from [description, by, from, to, time].", updateFieldToken);
+    private Command handleFuzzyFindTasks(CommandScanner command) throws TomatoException {
+        String[] keywordArgs = getArguments(command, FuzzyFindCommand.MESSAGE_USAGE).split(DueCommand.TOP_FLAG, 2);
+        String topArg = keywordArgs.length > 1 ? keywordArgs[1] : null;
+        String[] distanceArgs = keywordArgs[0].split(FuzzyFindCommand.DISTANCE_FLAG, 2);
+        String keyword = distanceArgs[0].trim();
+        if (keyword.isEmpty()) {
+            throw new TomatoException("You must provide keywords to find!\n" + FuzzyFindCommand.MESSAGE_USAGE);
         }
-        return updateField;
-    }
 
-    private int parseUpdateTaskNum(String[] args) throws TomatoException {
-        checkArgLength(args, TASK_FIELD_COUNT, UpdateCommand.MESSAGE_USAGE);
-        String[] updateArgs = args[1].split(" /");
-        return parseTaskNo(updateArgs[0]);
+        int maxDistance = distanceArgs.length > 1 ? parseCount(distanceArgs[1], FuzzyFindCommand.MESSAGE_USAGE)
+                : FuzzyFindCommand.DEFAULT_DISTANCE;
+        int limit = topArg == null ? FuzzyFindCommand.DEFAULT_LIMIT
+                : parseTopLimit(topArg, FuzzyFindCommand.MESSAGE_USAGE);
+        return new FuzzyFindCommand(keyword, maxDistance, limit);
     }
 
-    private String[] parseUpdateArgValues(String[] args) throws TomatoException {
-        String[] updateArgs = args[1].split(" /");
-        return updateArgs[1].split(" ", COMMAND_SPLIT_LIMIT);
-    }
+    /**
+     * Returns the error for update arguments that do not start with a task number followed by a field to update.
+     */
+    private TomatoException getUpdateError(CommandScanner command) {
+        String[] updateArgs = command.getArguments().split(" /", COMMAND_SPLIT_LIMIT);
+        if (updateArgs.length < COMMAND_SPLIT_LIMIT) {
+            return new TomatoException("Incorrect number of arguments provided! " +
+                    "Please give the correct arguments.\n" + UpdateCommand.MESSAGE_USAGE);
+        }
 
-    private String[] parseUpdateTime(String[] args) throws TomatoException {
-        checkArgLength(args, TASK_FIELD_COUNT, UpdateCommand.MESSAGE_USAGE);
-        String[] updateArgs = args[1].split(" /");
-        checkArgLength(updateArgs, UPDATE_TIME_FIELD_COUNT, UpdateCommand.MESSAGE_USAGE);
-        String[] timeArgs = updateArgs[2].split(" ", COMMAND_SPLIT_LIMIT);
-        checkArgLength(timeArgs, TASK_FIELD_COUNT, UpdateCommand.MESSAGE_USAGE);
-        String[] argAndValues = parseUpdateArgValues(args);
-        String startDateTime = argAndValues[1];
-        String endDateTime = timeArgs[1];
-        return new String[]{startDateTime, endDateTime};
+        try {
+            Integer.parseInt(updateArgs[0]);
+        } catch (NumberFormatException exception) {
+            return new TomatoException("You must provide a task number!");
+        }
+        String updateFieldToken = updateArgs[1].split(" ", COMMAND_SPLIT_LIMIT)[0];
+        return new TomatoException("Invalid argument given: " + updateFieldToken +
+                "\nPlease choose from [description, by, from, to, time].", updateFieldToken);
     }
 
     /**
      * Returns an update command for task description.
      */
-    private Command createDescriptionUpdateCommand(int taskNum, String[] updateFieldAndValue) throws TomatoException {
-        checkArgLength(updateFieldAndValue, TASK_FIELD_COUNT, UpdateDescriptionCommand.MESSAGE_USAGE);
-        return new UpdateCommand(UpdateCommand.UpdateField.DESCRIPTION, taskNum, updateFieldAndValue[1]);
+    private Command createDescriptionUpdateCommand(int taskNum, CommandScanner command) throws TomatoException {
+        String description = getFlagValue(command, CommandScanner.Flag.DESCRIPTION,
+                UpdateDescriptionCommand.MESSAGE_USAGE);
+        checkNoPipe(command, UpdateDescriptionCommand.MESSAGE_USAGE);
+        return new UpdateCommand(UpdateCommand.UpdateField.DESCRIPTION, taskNum, description);
     }
 
     /**
      * Returns an update command for deadline due date-time.
      */
-    private Command createDeadlineUpdateCommand(int taskNum, String[] updateFieldAndValue) throws TomatoException {
-        checkArgLength(updateFieldAndValue, TASK_FIELD_COUNT, UpdateDeadlineCommand.MESSAGE_USAGE);
-        return new UpdateCommand(UpdateCommand.UpdateField.BY, taskNum, parseDate(updateFieldAndValue[1]));
+    private Command createDeadlineUpdateCommand(int taskNum, CommandScanner command) throws TomatoException {
+        String byArg = getFlagValue(command, CommandScanner.Flag.BY, UpdateDeadlineCommand.MESSAGE_USAGE);
+        return new UpdateCommand(UpdateCommand.UpdateField.BY, taskNum, parseDate(byArg));
     }
 
     /**
      * Returns an update command for event start date-time.
      */
-    private Command createEventFromUpdateCommand(int taskNum, String[] updateFieldAndValue) throws TomatoException {
-        checkArgLength(updateFieldAndValue, TASK_FIELD_COUNT, UpdateEventFromCommand.MESSAGE_USAGE);
-        return new UpdateCommand(UpdateCommand.UpdateField.FROM, taskNum, parseDate(updateFieldAndValue[1]));
+    private Command createEventFromUpdateCommand(int taskNum, CommandScanner command) throws TomatoException {
+        String fromArg = getFlagValue(command, CommandScanner.Flag.FROM, UpdateEventFromCommand.MESSAGE_USAGE);
+        return new UpdateCommand(UpdateCommand.UpdateField.FROM, taskNum, parseDate(fromArg));
     }
 
     /**
      * Returns an update command for event end date-time.
      */
-    private Command createEventToUpdateCommand(int taskNum, String[] updateFieldAndValue) throws TomatoException {
-        checkArgLength(updateFieldAndValue, TASK_FIELD_COUNT, UpdateEventToCommand.MESSAGE_USAGE);
-        return new UpdateCommand(UpdateCommand.UpdateField.TO, taskNum, parseDate(updateFieldAndValue[1]));
+    private Command createEventToUpdateCommand(int taskNum, CommandScanner command) throws TomatoException {
+        String toArg = getFlagValue(command, CommandScanner.Flag.TO, UpdateEventToCommand.MESSAGE_USAGE);
+        return new UpdateCommand(UpdateCommand.UpdateField.TO, taskNum, parseDate(toArg));
     }
 
     /**
      * Returns an update command for event time range.
      */
-    private Command createEventTimeUpdateCommand(int taskNum, String[] args) throws TomatoException {
-        String[] timeRangeValues = parseUpdateTime(args);
-        checkArgLength(timeRangeValues, TASK_FIELD_COUNT, UpdateEventTimeCommand.MESSAGE_USAGE);
-        return new UpdateCommand(UpdateCommand.UpdateField.TIME, taskNum,
-                parseDate(timeRangeValues[0]), parseDate(timeRangeValues[1]));
-    }
-
-    private Command handleUpdateTask(String[] args) throws TomatoException {
-        int taskNum = parseUpdateTaskNum(args);
-        String[] updateFieldAndValue = parseUpdateArgValues(args);
-        UpdateCommand.UpdateField updateField = parseUpdateArgument(updateFieldAndValue[0]);
+    private Command createEventTimeUpdateCommand(int taskNum, CommandScanner command) throws TomatoException {
+        String startArg = getFlagValue(command, CommandScanner.Flag.TIME, UpdateEventTimeCommand.MESSAGE_USAGE);
+        String endArg = getFlagValue(command, CommandScanner.Flag.TO, UpdateEventTimeCommand.MESSAGE_USAGE);
+        return new UpdateCommand(UpdateCommand.UpdateField.TIME, taskNum, parseDate(startArg), parseDate(endArg));
+    }
+
+    private Command handleUpdateTask(CommandScanner command) throws TomatoException {
+        checkHasArguments(command, UpdateCommand.MESSAGE_USAGE);
+        CommandScanner.Flag updateFlag = command.getFirstFlag();
+        int taskNumber = command.getLeadingNumber();
+        if (updateFlag == null || taskNumber < 0 || !command.isOnlyNumberBefore(updateFlag)) {
+            throw getUpdateError(command);
+        }
+        int taskNum = taskNumber - TASK_NUMBER_OFFSET;
 
-        switch (updateField) {
+        switch (updateFlag) {
         case DESCRIPTION:
-            return createDescriptionUpdateCommand(taskNum, updateFieldAndValue);
+            return createDescriptionUpdateCommand(taskNum, command);
         case BY:
-            return createDeadlineUpdateCommand(taskNum, updateFieldAndValue);
+            return createDeadlineUpdateCommand(taskNum, command);
         case FROM:
-            return createEventFromUpdateCommand(taskNum, updateFieldAndValue);
+            return createEventFromUpdateCommand(taskNum, command);
         case TO:
-            return createEventToUpdateCommand(taskNum, updateFieldAndValue);
+            return createEventToUpdateCommand(taskNum, command);
         case TIME:
-            return createEventTimeUpdateCommand(taskNum, args);
+            return createEventTimeUpdateCommand(taskNum, command);
         default:
             throw new TomatoException(UpdateCommand.MESSAGE_USAGE);
         }
     }
 
-    private Command handleInvalidCommand(String[] args) throws TomatoException {
-        String invalidCmd = args[0];
+    private Command handleInvalidCommand(CommandScanner command) throws TomatoException {
+        String invalidCmd = command.getCommand();
         return new InvalidCommand(invalidCmd);
     }
 
+    /**
+     * Returns whether a stored task is done, decoded from its stored status flag.
+     *
+     * @param status Stored status flag, "1" if done or "0" if not.
+     * @return true if the task is done.
+     * @throws TomatoException If the status flag is neither.
+     */
+    private boolean decodeStatus(String status) throws TomatoException {
+        if (status.equals(TASK_STATUS_DONE_FLAG)) {
+            return true;
+        }
+        if (status.equals(TASK_STATUS_NOT_DONE_FLAG)) {
+            return false;
+        }
+        throw new TomatoException("Invalid task status: " + status, status);
+    }
+
+    /**
+     * Returns the description of a stored task, checked to not be blank.
+     *
+     * @param description Stored description.
+     * @return description.
+     * @throws TomatoException If the description is blank.
+     */
+    private String decodeDescription(String description) throws TomatoException {
+        if (description.isBlank()) {
+            throw new TomatoException("Stored task has no description!");
+        }
+        return description;
+    }
+
     /**
      * Returns a todo task decoded from the given storage string.
      *
@@ -425,8 +834,8 @@ public class Parser {
     private Task decodeTodo(String args) throws TomatoException {
         String[] splitArgs = parseArgs(args, REGEX_EMPTY);
         checkArgLength(splitArgs, TODO_STORAGE_FIELD_COUNT, TodoCommand.MESSAGE_USAGE);
-        return new Todo(splitArgs[STORAGE_DESCRIPTION_INDEX],
-                (Integer.parseInt(splitArgs[STORAGE_STATUS_INDEX]) == TASK_STATUS_DONE_FLAG));
+        return new Todo(decodeDescription(splitArgs[STORAGE_DESCRIPTION_INDEX]),
+                decodeStatus(splitArgs[STORAGE_STATUS_INDEX]));
     }
 
     /**
@@ -440,8 +849,8 @@ public class Parser {
         String[] splitArgs = parseArgs(args, REGEX_BY);
         checkArgLength(splitArgs, DEADLINE_STORAGE_FIELD_COUNT, DeadlineCommand.MESSAGE_USAGE);
         LocalDateTime dateTime = parseDate(splitArgs[STORAGE_DEADLINE_INDEX]);
-        return new Deadline(splitArgs[STORAGE_DESCRIPTION_INDEX],
-                (Integer.parseInt(splitArgs[STORAGE_STATUS_INDEX]) == TASK_STATUS_DONE_FLAG), dateTime);
+        return new Deadline(decodeDescription(splitArgs[STORAGE_DESCRIPTION_INDEX]),
+                decodeStatus(splitArgs[STORAGE_STATUS_INDEX]), dateTime);
     }
 
     /**
@@ -456,19 +865,22 @@ public class Parser {
         checkArgLength(splitArgs, EVENT_STORAGE_FIELD_COUNT, EventCommand.MESSAGE_USAGE);
         LocalDateTime startDateTime = parseDate(splitArgs[STORAGE_EVENT_START_INDEX]);
         LocalDateTime endDateTime = parseDate(splitArgs[STORAGE_EVENT_END_INDEX]);
-        return new Event(splitArgs[STORAGE_DESCRIPTION_INDEX],
-                (Integer.parseInt(splitArgs[STORAGE_STATUS_INDEX]) == TASK_STATUS_DONE_FLAG),
-                startDateTime, endDateTime);
+        return new Event(decodeDescription(splitArgs[STORAGE_DESCRIPTION_INDEX]),
+                decodeStatus(splitArgs[STORAGE_STATUS_INDEX]), startDateTime, endDateTime);
     }
 
     /**
      * Returns a task decoded from split storage fields.
      *
-     * @param args array of string.
+     * @param args Type tag and the rest of the record e.g. {"T", "1|read book"}.
      * @return Task object.
-     * @throws TomatoException If unable to parse arguments.
+     * @throws TomatoException If the fields are missing, or the type tag, status or any field is invalid.
      */
     public Task decodeTask(String[] args) throws TomatoException {
+        if (args.length < TASK_RECORD_FIELD_COUNT) {
+            throw new TomatoException("Incomplete task record: " + String.join("|", args), args[0]);
+        }
+
         switch (args[0]) {
         case "T":
             return decodeTodo(args[1]);
@@ -477,10 +889,7 @@ public class Parser {
         case "E":
             return decodeEvent(args[1]);
         default:
-            assert false : "code should not reach here";
+            throw new TomatoException("Unknown task type: " + args[0], args[0]);
         }
-
-        assert false : "code should not reach here";
-        return null;
     }
 }
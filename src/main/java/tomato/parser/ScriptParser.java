@@ -0,0 +1,91 @@
+package tomato.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import tomato.TomatoException;
+import tomato.commands.Command;
+
+/**
+ * Parses a script of commands, one per line, before any of them is run.
+ * <p>
+ * Long scripts are split into chunks of lines that are parsed in parallel on the common fork-join pool,
+ * each with its own parser, as a parser reuses its scanner between lines.
+ */
+public class ScriptParser {
+    private static final int CHUNK_LINES = 4096;
+    private static final String LINE_ERROR_FORMAT = "Line %d: %s";
+    private static final int LINE_NUMBER_OFFSET = 1;
+
+    private ScriptParser() {
+    }
+
+    /**
+     * Returns the given error with the line it was raised for.
+     *
+     * @param lineNumber One-based line number in the script.
+     * @param error Error raised for the line.
+     * @return error naming the line.
+     */
+    public static TomatoException getLineError(int lineNumber, TomatoException error) {
+        return new TomatoException(String.format(LINE_ERROR_FORMAT, lineNumber, error.getMessage()),
+                error.getErrorWord());
+    }
+
+    private static void parseChunk(List<String> lines, int start, int end, Command[] commands,
+            TomatoException[] errors) {
+        Parser parser = new Parser();
+        for (int i = start; i < end; i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+
+            try {
+                commands[i] = parser.parse(lines.get(i));
+            } catch (TomatoException exception) {
+                errors[i] = getLineError(i + LINE_NUMBER_OFFSET, exception);
+            }
+        }
+    }
+
+    /**
+     * Returns the commands on the given lines, in order, with no command for a blank line.
+     *
+     * @param lines Lines of the script.
+     * @return parsed commands, with null for each blank line.
+     * @throws TomatoException If any line cannot be parsed, naming every such line.
+     */
+    public static Command[] parse(List<String> lines) throws TomatoException {
+        Command[] commands = new Command[lines.size()];
+        TomatoException[] errors = new TomatoException[lines.size()];
+        if (lines.size() <= CHUNK_LINES) {
+            parseChunk(lines, 0, lines.size(), commands, errors);
+        } else {
+            ArrayList<ForkJoinTask<?>> chunks = new ArrayList<>();
+            for (int start = 0; start < lines.size(); start += CHUNK_LINES) {
+                int chunkStart = start;
+                int chunkEnd = Math.min(lines.size(), start + CHUNK_LINES);
+                chunks.add(ForkJoinPool.commonPool().submit(() ->
+                        parseChunk(lines, chunkStart, chunkEnd, commands, errors)));
+            }
+            for (ForkJoinTask<?> chunk : chunks) {
+                chunk.join();
+            }
+        }
+
+        StringBuilder errorMessages = new StringBuilder();
+        String errorWord = null;
+        for (TomatoException error : errors) {
+            if (error != null) {
+                errorMessages.append(errorMessages.length() == 0 ? "" : "\n").append(error.getMessage());
+                errorWord = errorWord == null ? error.getErrorWord() : errorWord;
+            }
+        }
+        if (errorMessages.length() > 0) {
+            throw new TomatoException(errorMessages.toString(), errorWord);
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,370 @@
+package tomato.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import tomato.TomatoException;
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
+import tomato.task.Todo;
+
+/**
+ * Encodes and decodes tasks in the binary task file format.
+ * <p>
+ * A binary task file starts with a magic number, a format version and the number of tasks. Each task is then
+ * stored as a tag byte holding the task type and done bit, a length-prefixed UTF-8 description, and its
+ * date-times as minutes since the epoch (so seconds are not kept). From version 2, each task record is followed by
+ * the CRC32C checksum of its bytes, and from version 3, the task's ID comes after its date-times.
+ * Version 1 and 2 files can still be read, and their tasks are read without IDs.
+ * <p>
+ * Reading a header records the file's version, so a codec should only read one file at a time.
+ */
+public class BinaryTaskCodec {
+    private static final byte[] MAGIC = {(byte) 0x89, 'T', 'M', 'T'};
+    private static final short VERSION = 3;
+    private static final short UNCHECKED_VERSION = 1;
+    private static final short UNNUMBERED_VERSION = 2;
+    private static final int DONE_BIT = 0x80;
+    private static final int TYPE_MASK = 0x7F;
+    private static final byte TODO_TAG = 'T';
+    private static final byte DEADLINE_TAG = 'D';
+    private static final byte EVENT_TAG = 'E';
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int INITIAL_CAPACITY_LIMIT = 1 << 16;
+
+    private boolean hasChecksums = true;
+    private boolean hasIds = true;
+
+    /**
+     * Creates a binary task codec.
+     */
+    public BinaryTaskCodec() {
+    }
+
+    /**
+     * Returns whether the given leading bytes of a file start with the binary format magic number.
+     *
+     * @param leadingBytes Leading bytes of a task file.
+     * @return true if the file is in the binary format.
+     */
+    public static boolean isBinary(byte[] leadingBytes) {
+        return leadingBytes.length >= MAGIC.length
+                && Arrays.equals(leadingBytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
+
+    /**
+     * Returns the number of leading bytes needed by {@link #isBinary(byte[])}.
+     *
+     * @return magic number length.
+     */
+    public static int getMagicLength() {
+        return MAGIC.length;
+    }
+
+    private static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_MINUTE;
+    }
+
+    private static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * SECONDS_PER_MINUTE, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes a single task record.
+     *
+     * @param output Stream to write into.
+     * @param task Task to write.
+     * @throws IOException If an input output error occurs while writing.
+     */
+    private void writeTask(DataOutputStream output, Task task) throws IOException {
+        byte tag;
+        if (task instanceof Deadline) {
+            tag = DEADLINE_TAG;
+        } else if (task instanceof Event) {
+            tag = EVENT_TAG;
+        } else {
+            tag = TODO_TAG;
+        }
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        output.writeByte(task.isDone() ? tag | DONE_BIT : tag);
+        output.writeInt(description.length);
+        output.write(description);
+
+        if (task instanceof Deadline) {
+            output.writeLong(toEpochMinute(((Deadline) task).getDateTimeBy()));
+        } else if (task instanceof Event) {
+            output.writeLong(toEpochMinute(((Event) task).getDateTimeFrom()));
+            output.writeLong(toEpochMinute(((Event) task).getDateTimeTo()));
+        }
+        output.writeLong(task.getId());
+    }
+
+    /**
+     * Returns the given tasks encoded as a binary task file.
+     *
+     * @param tasks List of tasks.
+     * @return binary task file contents.
+     */
+    public byte[] encode(List<Task> tasks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        CRC32C crc = new CRC32C();
+        DataOutputStream checkedOutput = new DataOutputStream(new CheckedOutputStream(bytes, crc));
+        try {
+            output.write(MAGIC);
+            output.writeShort(VERSION);
+            output.writeInt(tasks.size());
+            for (Task task : tasks) {
+                crc.reset();
+                writeTask(checkedOutput, task);
+                output.writeInt((int) crc.getValue());
+            }
+        } catch (IOException exception) {
+            assert false : "writing to memory should not fail";
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Returns the number of tasks in a binary task file, after checking its header.
+     * The buffer is left positioned at the first task record, and the file's version is recorded
+     * for reading its task records.
+     *
+     * @param buffer Buffer positioned at the start of the file.
+     * @return number of tasks in the file.
+     * @throws TomatoException If the header is not a valid binary task file header.
+     */
+    public int readHeader(ByteBuffer buffer) throws TomatoException {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!isBinary(magic)) {
+                throw new TomatoException("Not a binary task file!");
+            }
+
+            short version = buffer.getShort();
+            if (version != VERSION && version != UNNUMBERED_VERSION && version != UNCHECKED_VERSION) {
+                throw new TomatoException("Unsupported binary task file version: " + version);
+            }
+            hasChecksums = version != UNCHECKED_VERSION;
+            hasIds = version == VERSION;
+
+            int taskCount = buffer.getInt();
+            if (taskCount < 0) {
+                throw new TomatoException("Corrupted binary task file!");
+            }
+            return taskCount;
+        } catch (BufferUnderflowException exception) {
+            throw new TomatoException("Corrupted binary task file!");
+        }
+    }
+
+    /**
+     * Returns the length of the description of the task record at the buffer's position.
+     * The buffer is left positioned at the first byte of the description.
+     *
+     * @param buffer Buffer positioned at the start of a task record.
+     * @return description length in bytes.
+     * @throws TomatoException If the record is corrupted.
+     */
+    public int readDescriptionLength(ByteBuffer buffer) throws TomatoException {
+        buffer.get();
+        int descriptionLength = buffer.getInt();
+        if (descriptionLength < 0 || descriptionLength > buffer.remaining()) {
+            throw new TomatoException("Corrupted binary task file!");
+        }
+        return descriptionLength;
+    }
+
+    private int getDateTimeCount(byte tag) throws TomatoException {
+        switch (tag) {
+        case TODO_TAG:
+            return 0;
+        case DEADLINE_TAG:
+            return 1;
+        case EVENT_TAG:
+            return 2;
+        default:
+            throw new TomatoException("Unknown task type in binary task file: " + tag);
+        }
+    }
+
+    /**
+     * Moves the buffer past the task record at its position, excluding its checksum, without decoding it.
+     */
+    private void skipRecordBody(ByteBuffer buffer) throws TomatoException {
+        try {
+            byte tag = (byte) (buffer.get(buffer.position()) & TYPE_MASK);
+            int descriptionLength = readDescriptionLength(buffer);
+            int longCount = getDateTimeCount(tag) + (hasIds ? 1 : 0);
+            buffer.position(buffer.position() + descriptionLength + longCount * Long.BYTES);
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            throw new TomatoException("Corrupted binary task file!");
+        }
+    }
+
+    /**
+     * Moves the buffer past the task record at its position without decoding it.
+     *
+     * @param buffer Buffer positioned at the start of a task record.
+     * @throws TomatoException If the record is corrupted.
+     */
+    public void skipTask(ByteBuffer buffer) throws TomatoException {
+        skipRecordBody(buffer);
+        if (hasChecksums) {
+            try {
+                buffer.position(buffer.position() + Integer.BYTES);
+            } catch (IllegalArgumentException exception) {
+                throw new TomatoException("Corrupted binary task file!");
+            }
+        }
+    }
+
+    /**
+     * Checks the task record at the buffer's position against the checksum stored after it.
+     *
+     * @param buffer Buffer positioned at the start of a task record, left unmoved.
+     * @throws TomatoException If the record is corrupted or does not match its checksum.
+     */
+    private void checkTask(ByteBuffer buffer) throws TomatoException {
+        ByteBuffer record = buffer.duplicate();
+        skipRecordBody(record);
+        int recordEnd = record.position();
+        int storedChecksum;
+        try {
+            storedChecksum = record.getInt();
+        } catch (BufferUnderflowException exception) {
+            throw new TomatoException("Corrupted binary task file!");
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(record.position(buffer.position()).limit(recordEnd));
+        if ((int) crc.getValue() != storedChecksum) {
+            throw new TomatoException("Binary task record does not match its checksum!");
+        }
+    }
+
+    /**
+     * Returns the task record read from the buffer's position, after checking it against its checksum.
+     *
+     * @param buffer Buffer positioned at the start of a task record.
+     * @return Decoded task.
+     * @throws TomatoException If the record is corrupted.
+     */
+    public Task readTask(ByteBuffer buffer) throws TomatoException {
+        if (hasChecksums) {
+            checkTask(buffer);
+        }
+
+        try {
+            int tagAndDone = buffer.get(buffer.position()) & 0xFF;
+            boolean isDone = (tagAndDone & DONE_BIT) != 0;
+            byte tag = (byte) (tagAndDone & TYPE_MASK);
+
+            byte[] description = new byte[readDescriptionLength(buffer)];
+            buffer.get(description);
+            String descriptionText = new String(description, StandardCharsets.UTF_8);
+            if (descriptionText.isBlank()) {
+                throw new TomatoException("Task with no description in binary task file!");
+            }
+
+            Task task;
+            switch (tag) {
+            case TODO_TAG:
+                task = new Todo(descriptionText, isDone);
+                break;
+            case DEADLINE_TAG:
+                task = new Deadline(descriptionText, isDone, fromEpochMinute(buffer.getLong()));
+                break;
+            case EVENT_TAG:
+                LocalDateTime from = fromEpochMinute(buffer.getLong());
+                LocalDateTime to = fromEpochMinute(buffer.getLong());
+                task = new Event(descriptionText, isDone, from, to);
+                break;
+            default:
+                throw new TomatoException("Unknown task type in binary task file: " + tag);
+            }
+
+            if (hasIds) {
+                long taskId = buffer.getLong();
+                if (taskId != Task.NO_ID) {
+                    task.setId(taskId);
+                    task.setClean();
+                }
+            }
+            if (hasChecksums) {
+                buffer.getInt();
+            }
+            return task;
+        } catch (BufferUnderflowException exception) {
+            throw new TomatoException("Corrupted binary task file!");
+        }
+    }
+
+    /**
+     * Returns the tasks read from the given binary task file contents.
+     *
+     * @param buffer Buffer positioned at the start of the file.
+     * @return List of decoded tasks.
+     * @throws TomatoException If the file is not a valid binary task file.
+     */
+    public ArrayList<Task> decode(ByteBuffer buffer) throws TomatoException {
+        return decode(buffer, null);
+    }
+
+    /**
+     * Returns the tasks read from the given binary task file contents.
+     * If a quarantine is given, task records that fail their checksum or cannot be decoded are moved into it
+     * and the remaining records are still read. Once a record is too damaged to find where the next one starts,
+     * the rest of the file is quarantined together.
+     *
+     * @param buffer Buffer positioned at the start of the file.
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
+     * @return List of decoded tasks.
+     * @throws TomatoException If the header is invalid, or a record is invalid and there is no quarantine.
+     */
+    public ArrayList<Task> decode(ByteBuffer buffer, Quarantine quarantine) throws TomatoException {
+        int taskCount = readHeader(buffer);
+        ArrayList<Task> tasks = new ArrayList<>(Math.min(taskCount, INITIAL_CAPACITY_LIMIT));
+        for (int i = 0; i < taskCount; i++) {
+            int recordStart = buffer.position();
+            try {
+                tasks.add(readTask(buffer));
+            } catch (TomatoException exception) {
+                if (quarantine == null) {
+                    throw exception;
+                }
+
+                boolean isRecordFound = true;
+                buffer.position(recordStart);
+                try {
+                    skipTask(buffer);
+                } catch (TomatoException skipException) {
+                    isRecordFound = false;
+                    buffer.position(buffer.limit());
+                }
+
+                byte[] record = new byte[buffer.position() - recordStart];
+                buffer.duplicate().position(recordStart).get(record);
+                quarantine.addBinary("Task " + (i + 1), exception.getMessage(), record);
+                if (!isRecordFound) {
+                    break;
+                }
+            }
+        }
+        return tasks;
+    }
+}
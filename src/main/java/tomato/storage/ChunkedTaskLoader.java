@@ -0,0 +1,197 @@
+package tomato.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import tomato.TomatoException;
+import tomato.task.Task;
+
+/**
+ * Decodes a text task file in parallel, from its contents read into memory.
+ * The file is split into chunks at line boundaries, each chunk is decoded on a fork-join pool,
+ * and the decoded tasks are joined back in file order. Files small enough to fit one chunk are decoded
+ * on the calling thread.
+ * Each line is checked against its checksum, if it has one, before it is decoded as UTF-8.
+ * Tombstones left by deleted tasks are skipped.
+ */
+public class ChunkedTaskLoader {
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final Storage decoder;
+    private final ForkJoinPool pool;
+
+    /**
+     * Represents a line that failed its checksum or could not be decoded.
+     */
+    private static class BadLine {
+        private final int lineNumber;
+        private final String line;
+        private final TomatoException error;
+
+        private BadLine(int lineNumber, String line, TomatoException error) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Represents the tasks decoded from one chunk, and the lines in it that could not be decoded.
+     * Line numbers are counted from the start of the chunk.
+     */
+    private static class ChunkResult {
+        private final ArrayList<Task> tasks = new ArrayList<>();
+        private final ArrayList<BadLine> badLines = new ArrayList<>();
+        private int lineCount;
+    }
+
+    /**
+     * Creates a loader that decodes chunks on the common fork-join pool.
+     *
+     * @param decoder Storage used to decode each line.
+     */
+    public ChunkedTaskLoader(Storage decoder) {
+        this(decoder, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a loader that decodes chunks on the given pool.
+     *
+     * @param decoder Storage used to decode each line.
+     * @param pool Pool to decode chunks on.
+     */
+    public ChunkedTaskLoader(Storage decoder, ForkJoinPool pool) {
+        this.decoder = decoder;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the offsets that split the given contents into chunks, each ending just after a newline.
+     */
+    private ArrayList<Integer> findChunkBoundaries(ByteBuffer contents) {
+        int limit = contents.limit();
+        int chunkBytes = Math.max(MIN_CHUNK_BYTES, limit / (pool.getParallelism() * CHUNKS_PER_THREAD));
+
+        ArrayList<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int next = chunkBytes;
+        while (next < limit) {
+            while (next < limit && contents.get(next - 1) != NEWLINE) {
+                next++;
+            }
+            boundaries.add(next);
+            next += chunkBytes;
+        }
+        if (boundaries.get(boundaries.size() - 1) < limit) {
+            boundaries.add(limit);
+        }
+        return boundaries;
+    }
+
+    /**
+     * Decodes every line between the given offsets.
+     * Stops at the first line that cannot be decoded, unless bad lines are being skipped.
+     */
+    private ChunkResult decodeChunk(ByteBuffer contents, int start, int end, boolean isSkippingBadLines) {
+        byte[] chunk = new byte[end - start];
+        contents.duplicate().position(start).get(chunk);
+
+        ChunkResult result = new ChunkResult();
+        int lineStart = 0;
+        while (lineStart < chunk.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < chunk.length && chunk[lineEnd] != NEWLINE) {
+                lineEnd++;
+            }
+            int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && chunk[lineEnd - 1] == CARRIAGE_RETURN) {
+                lineEnd--;
+            }
+
+            result.lineCount++;
+            if (lineEnd > lineStart && !RecordTable.isTombstone(chunk[lineStart])) {
+                try {
+                    int recordStart = RecordChecksum.checkRecord(chunk, lineStart, lineEnd);
+                    result.tasks.add(decoder.decodeLine(new String(chunk, recordStart, lineEnd - recordStart,
+                            StandardCharsets.UTF_8)));
+                } catch (TomatoException exception) {
+                    String line = new String(chunk, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+                    result.badLines.add(new BadLine(result.lineCount, line, exception));
+                    if (!isSkippingBadLines) {
+                        return result;
+                    }
+                }
+            }
+            lineStart = nextLineStart;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tasks decoded from the given text task file contents, in file order.
+     *
+     * @param contents Text task file contents.
+     * @return List of decoded tasks.
+     * @throws TomatoException If a line cannot be decoded, with the line number of the first such line.
+     */
+    public ArrayList<Task> load(ByteBuffer contents) throws TomatoException {
+        return load(contents, null);
+    }
+
+    /**
+     * Returns the tasks decoded from the given text task file contents, in file order.
+     * If a quarantine is given, lines that fail their checksum or cannot be decoded are moved into it
+     * and the remaining lines are still loaded.
+     *
+     * @param contents Text task file contents.
+     * @param quarantine Quarantine to move bad lines into, or null to stop at the first bad line.
+     * @return List of decoded tasks.
+     * @throws TomatoException If a line cannot be decoded and there is no quarantine,
+     *     with the line number of the first such line.
+     */
+    public ArrayList<Task> load(ByteBuffer contents, Quarantine quarantine) throws TomatoException {
+        boolean isSkippingBadLines = quarantine != null;
+        ArrayList<Integer> boundaries = findChunkBoundaries(contents);
+        ArrayList<ForkJoinTask<ChunkResult>> chunks = new ArrayList<>();
+        for (int i = 1; i < boundaries.size(); i++) {
+            int start = boundaries.get(i - 1);
+            int end = boundaries.get(i);
+            if (boundaries.size() == 2) {
+                chunks.add(ForkJoinTask.adapt(() -> decodeChunk(contents, start, end, isSkippingBadLines)));
+                chunks.get(0).invoke();
+            } else {
+                chunks.add(pool.submit(() -> decodeChunk(contents, start, end, isSkippingBadLines)));
+            }
+        }
+
+        ArrayList<ChunkResult> results = new ArrayList<>();
+        int taskCount = 0;
+        int lineOffset = 0;
+        for (ForkJoinTask<ChunkResult> chunk : chunks) {
+            ChunkResult result = chunk.join();
+            for (BadLine badLine : result.badLines) {
+                int lineNumber = lineOffset + badLine.lineNumber;
+                if (!isSkippingBadLines) {
+                    throw new TomatoException("Line " + lineNumber + ": " + badLine.error.getMessage(),
+                            badLine.error.getErrorWord());
+                }
+                quarantine.add("Line " + lineNumber, badLine.error.getMessage(), badLine.line);
+            }
+            results.add(result);
+            taskCount += result.tasks.size();
+            lineOffset += result.lineCount;
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>(taskCount);
+        for (ChunkResult result : results) {
+            tasks.addAll(result.tasks);
+        }
+        return tasks;
+    }
+}
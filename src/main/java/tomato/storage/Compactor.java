@@ -0,0 +1,278 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import tomato.TomatoException;
+import tomato.task.Task;
+
+/**
+ * Folds the task journal into a fresh task file snapshot, in the storage's current format, on a background thread.
+ * <p>
+ * A compaction moves the current journal aside to a compacting file, so that commands keep appending to a new
+ * journal, then replays the compacting file over the last snapshot and writes the result to a temporary file.
+ * The compacting file is then renamed to a compacted marker, the temporary file is moved over the task file,
+ * and the marker is deleted. {@link #recover()} uses these files to finish or discard an interrupted compaction.
+ * <p>
+ * A full save hands off from the journals in the same way, see {@link #replaceSnapshot(byte[], Journal)}, but with
+ * a superseded marker, as the new snapshot then holds the records of both journals.
+ * <p>
+ * A compaction that fails leaves the compacting file in place, to be retried by a later compaction, and its
+ * failure is kept until {@link #checkFailure()} reports it on the thread that saves. Failures in a row are retried
+ * with backoff, skipping twice as many calls to {@link #start(Journal)} after each one, and compaction stops once
+ * too many have failed in a row, e.g. on a full disk. Only the first failure in a row is reported, so a failure
+ * that keeps recurring is not reported on every save.
+ */
+public class Compactor {
+    private static final String COMPACTING_FILE_SUFFIX = ".compacting";
+    private static final String COMPACTED_FILE_SUFFIX = ".compacted";
+    private static final String SUPERSEDED_FILE_SUFFIX = ".superseded";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String FAILURE_MESSAGE = "Unable to compact task journal, changes are kept in the journal: ";
+    private static final int RETRY_DELAY_STARTS = 16;
+    private static final int MAX_FAILURES_IN_A_ROW = 5;
+
+    private final Storage storage;
+    private final File taskFile;
+    private final File compactingFile;
+    private final File compactedFile;
+    private final File supersededFile;
+    private final File journalFile;
+    private final File tempFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tomato-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> compaction;
+    private final AtomicReference<TomatoException> failure = new AtomicReference<>();
+    private final AtomicInteger failuresInARow = new AtomicInteger();
+    private int backedOffFailures;
+    private int startsToSkip;
+
+    /**
+     * Creates a compactor for the given task file and its journal file.
+     *
+     * @param storage Storage used to read and decode the task file.
+     * @param taskFile Task file holding the last snapshot.
+     * @param journalFile Journal file holding changes since the last snapshot.
+     */
+    public Compactor(Storage storage, File taskFile, File journalFile) {
+        this.storage = storage;
+        this.taskFile = taskFile;
+        this.compactingFile = new File(journalFile.getPath() + COMPACTING_FILE_SUFFIX);
+        this.compactedFile = new File(journalFile.getPath() + COMPACTED_FILE_SUFFIX);
+        this.supersededFile = new File(journalFile.getPath() + SUPERSEDED_FILE_SUFFIX);
+        this.journalFile = journalFile;
+        this.tempFile = new File(taskFile.getPath() + TEMP_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns the journal file being compacted, which must be replayed before the current journal on load.
+     *
+     * @return compacting journal file.
+     */
+    public File getCompactingFile() {
+        return compactingFile;
+    }
+
+    /**
+     * Returns whether a compaction is currently running.
+     *
+     * @return true if a compaction has been started and has not finished.
+     */
+    public boolean isCompacting() {
+        return compaction != null && !compaction.isDone();
+    }
+
+    /**
+     * Finishes or discards a compaction that was interrupted, e.g. by the app closing.
+     * Must be called before the task file is loaded.
+     *
+     * @throws IOException If an input output error occurs while moving or deleting files.
+     */
+    public void recover() throws IOException {
+        if (supersededFile.exists()) {
+            // a full save was fully written, so the journals it holds must not be replayed again
+            finishReplacingSnapshot();
+            return;
+        }
+        if (compactedFile.exists()) {
+            // the new snapshot was fully written, so only the swap may be left to do
+            if (tempFile.exists()) {
+                Files.move(tempFile.toPath(), taskFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.delete(compactedFile.toPath());
+            return;
+        }
+        // the new snapshot may be incomplete, the compacting journal is replayed on load instead
+        Files.deleteIfExists(tempFile.toPath());
+    }
+
+    /**
+     * Swaps in the given snapshot, which holds every change in the compacting journal and the given journal,
+     * and deletes both journals. Must only be called after {@link #awaitCompletion()}.
+     * <p>
+     * The snapshot is written into the temporary file first, and a superseded marker is created before it is
+     * moved over the task file, so that a crash after the swap but before the journals are deleted does not
+     * replay the journals over a snapshot that already holds them.
+     *
+     * @param snapshot Encoded task file contents.
+     * @param journal Current journal.
+     * @throws IOException If an input output error occurs while writing, moving or deleting files.
+     */
+    public void replaceSnapshot(byte[] snapshot, Journal journal) throws IOException {
+        assert journal.getFile().equals(journalFile) : "journal should be the one being compacted";
+        Storage.writeAndForce(tempFile, snapshot);
+        Storage.writeAndForce(supersededFile, new byte[0]);
+        Storage.forceDirectory(taskFile);
+        finishReplacingSnapshot();
+        journal.clear();
+    }
+
+    /**
+     * Moves a fully written snapshot over the task file, if not moved yet, deletes the journals and compaction
+     * files it supersedes, and then deletes the superseded marker.
+     *
+     * @throws IOException If an input output error occurs while moving or deleting files.
+     */
+    private void finishReplacingSnapshot() throws IOException {
+        if (tempFile.exists()) {
+            Files.move(tempFile.toPath(), taskFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(journalFile.toPath());
+        Files.deleteIfExists(compactingFile.toPath());
+        Files.deleteIfExists(compactedFile.toPath());
+        Storage.forceDirectory(taskFile);
+        Files.delete(supersededFile.toPath());
+    }
+
+    /**
+     * Starts compacting the given journal on the background thread, unless a compaction is already running,
+     * failed recently, or has failed too many times in a row.
+     * A journal left over from a failed compaction is retried before the current journal is moved aside.
+     *
+     * @param journal Journal to compact.
+     * @throws IOException If an input output error occurs while moving the journal aside.
+     */
+    public void start(Journal journal) throws IOException {
+        if (isCompacting() || isBackingOff()) {
+            return;
+        }
+
+        if (!compactingFile.exists()) {
+            journal.rotateTo(compactingFile);
+        }
+        compaction = executor.submit(this::compact);
+    }
+
+    /**
+     * Returns whether this call to start a compaction should be skipped, as the last ones failed.
+     * Each failure in a row doubles the number of calls skipped before the next attempt.
+     */
+    private boolean isBackingOff() {
+        int failures = failuresInARow.get();
+        if (failures >= MAX_FAILURES_IN_A_ROW) {
+            return true;
+        }
+        if (failures != backedOffFailures) {
+            backedOffFailures = failures;
+            startsToSkip = failures == 0 ? 0 : RETRY_DELAY_STARTS << (failures - 1);
+        }
+        if (startsToSkip == 0) {
+            return false;
+        }
+        startsToSkip--;
+        return true;
+    }
+
+    /**
+     * Counts a failed compaction, and keeps its failure to be reported if it is the first failure in a row.
+     *
+     * @param detail Cause of the failure.
+     */
+    private void recordFailure(String detail) {
+        if (failuresInARow.incrementAndGet() == 1) {
+            failure.compareAndSet(null, new TomatoException(FAILURE_MESSAGE + detail));
+        }
+    }
+
+    /**
+     * Waits for a running compaction to finish.
+     * If it failed, the failure is kept to be reported by {@link #checkFailure()}.
+     */
+    public void awaitCompletion() {
+        if (compaction == null) {
+            return;
+        }
+
+        try {
+            compaction.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException exception) {
+            recordFailure(String.valueOf(exception.getCause()));
+        }
+    }
+
+    /**
+     * Reports the failure of a compaction that has finished since the last check, if any.
+     * Only the first of several failures in a row is reported.
+     *
+     * @throws TomatoException If a compaction failed.
+     */
+    public void checkFailure() throws TomatoException {
+        TomatoException compactionFailure = failure.getAndSet(null);
+        if (compactionFailure != null) {
+            throw compactionFailure;
+        }
+    }
+
+    /**
+     * Writes the given tasks into the temporary snapshot file.
+     *
+     * @param tasks Tasks to write.
+     * @throws IOException If an input output error occurs while writing.
+     */
+    private void writeSnapshot(List<Task> tasks) throws IOException {
+        Storage.writeAndForce(tempFile, storage.encodeSnapshot(tasks));
+    }
+
+    /**
+     * Replays the compacting journal over the last snapshot and swaps in the result as the new snapshot.
+     */
+    private void compact() {
+        if (!compactingFile.exists()) {
+            return;
+        }
+
+        try {
+            ArrayList<Task> tasks = storage.readTaskFile(taskFile);
+            // the same IDs that loading gives, which the journal's records refer to
+            Storage.giveMissingTaskIds(tasks);
+            new Journal(compactingFile).replay(tasks, storage);
+            writeSnapshot(tasks);
+
+            Files.move(compactingFile.toPath(), compactedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tempFile.toPath(), taskFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Storage.forceDirectory(taskFile);
+            Files.delete(compactedFile.toPath());
+            failuresInARow.set(0);
+        } catch (IOException | TomatoException exception) {
+            recordFailure(exception.getMessage());
+        }
+    }
+}
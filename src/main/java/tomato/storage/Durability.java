@@ -0,0 +1,13 @@
+package tomato.storage;
+
+/**
+ * Represents how soon queued saves are forced to disk by a {@link GroupCommitWriter}.
+ */
+public enum Durability {
+    /** Each save is written and forced to disk before the command returns. */
+    EACH_COMMAND,
+    /** Saves are collected for a short interval and written together in the background. */
+    BATCHED,
+    /** Saves are only written when storage is flushed, e.g. when Tomato exits. */
+    ON_EXIT
+}
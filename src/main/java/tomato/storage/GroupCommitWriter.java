@@ -0,0 +1,214 @@
+package tomato.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+
+/**
+ * Writes queued saves to storage on a background thread.
+ * Saves queued while a write is pending are coalesced into a single write: only the latest full task list
+ * and the record patches or journal records queued after it are written, and they are forced to disk once.
+ * Once a write fails, every later save and flush reports the failure, as the queued saves after it may no
+ * longer apply to what is on disk.
+ */
+public class GroupCommitWriter {
+    private final Storage storage;
+    private final Durability durability;
+    private final long batchIntervalMillis;
+
+    private final ArrayList<PendingWrite> queue = new ArrayList<>();
+    private long queuedCount;
+    private long writtenCount;
+    private long flushTarget;
+    private TomatoException writeFailure;
+
+    /**
+     * Represents a save waiting in the queue: a full task list, a patch of changed records, or the journal records
+     * of one command.
+     */
+    private static class PendingWrite {
+        private final byte[] snapshot;
+        private final RecordTable.Patch patch;
+        private final List<String> journalRecords;
+
+        private PendingWrite(byte[] snapshot, RecordTable.Patch patch, List<String> journalRecords) {
+            this.snapshot = snapshot;
+            this.patch = patch;
+            this.journalRecords = journalRecords;
+        }
+    }
+
+    /**
+     * Creates and starts a writer for the given storage.
+     *
+     * @param storage Storage to write saves into.
+     * @param durability How soon queued saves are forced to disk.
+     * @param batchIntervalMillis Time to collect saves for before writing them, in {@link Durability#BATCHED} mode.
+     */
+    public GroupCommitWriter(Storage storage, Durability durability, long batchIntervalMillis) {
+        assert batchIntervalMillis >= 0 : "batch interval should not be negative";
+        this.storage = storage;
+        this.durability = durability;
+        this.batchIntervalMillis = batchIntervalMillis;
+        Thread writerThread = new Thread(this::runWriter, "tomato-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a full save of the task list, replacing any full save still in the queue.
+     *
+     * @param snapshot Encoded task file contents.
+     * @throws TomatoException If an earlier write failed, or this save fails in {@link Durability#EACH_COMMAND} mode.
+     */
+    public void queueSnapshot(byte[] snapshot) throws TomatoException {
+        queue(new PendingWrite(snapshot, null, List.of()));
+    }
+
+    /**
+     * Queues a patch of the task file's changed records, to be written after every save queued before it.
+     *
+     * @param patch Patch planned from the task file's record table.
+     * @throws TomatoException If an earlier write failed, or this save fails in {@link Durability#EACH_COMMAND} mode.
+     */
+    public void queuePatch(RecordTable.Patch patch) throws TomatoException {
+        queue(new PendingWrite(null, patch, List.of()));
+    }
+
+    /**
+     * Queues journal records to be appended together.
+     *
+     * @param journalRecords Journal record strings, in order.
+     * @throws TomatoException If an earlier write failed, or this save fails in {@link Durability#EACH_COMMAND} mode.
+     */
+    public void queueJournalRecords(List<String> journalRecords) throws TomatoException {
+        queue(new PendingWrite(null, null, journalRecords));
+    }
+
+    /**
+     * Adds the given save to the queue and wakes the writer.
+     * In {@link Durability#EACH_COMMAND} mode, waits until the save has been written.
+     *
+     * @param pendingWrite Save to queue.
+     * @throws TomatoException If an earlier write failed, or this save fails in {@link Durability#EACH_COMMAND} mode.
+     */
+    private void queue(PendingWrite pendingWrite) throws TomatoException {
+        synchronized (this) {
+            throwWriteFailure();
+            queue.add(pendingWrite);
+            queuedCount++;
+            notifyAll();
+        }
+
+        if (durability == Durability.EACH_COMMAND) {
+            flush();
+        }
+    }
+
+    /**
+     * Waits until every save queued so far has been written and forced to disk.
+     *
+     * @throws TomatoException If a queued save could not be written.
+     */
+    public synchronized void flush() throws TomatoException {
+        long target = queuedCount;
+        flushTarget = Math.max(flushTarget, target);
+        notifyAll();
+
+        boolean isInterrupted = false;
+        while (writtenCount < target && writeFailure == null) {
+            try {
+                wait();
+            } catch (InterruptedException exception) {
+                isInterrupted = true;
+            }
+        }
+
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+        throwWriteFailure();
+    }
+
+    private void throwWriteFailure() throws TomatoException {
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    private synchronized boolean isFlushRequested() {
+        return writtenCount < flushTarget;
+    }
+
+    /**
+     * Returns whether the writer should keep waiting before taking queued saves.
+     */
+    private boolean isWaitingForSaves() {
+        return queue.isEmpty() || (durability == Durability.ON_EXIT && !isFlushRequested());
+    }
+
+    /**
+     * Takes and writes queued saves until the app exits.
+     */
+    private void runWriter() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    while (isWaitingForSaves()) {
+                        wait();
+                    }
+                }
+                if (durability == Durability.BATCHED && !isFlushRequested()) {
+                    Thread.sleep(batchIntervalMillis);
+                }
+            } catch (InterruptedException exception) {
+                return;
+            }
+            writeQueuedSaves();
+        }
+    }
+
+    /**
+     * Writes every queued save in one batch, dropping the saves superseded by a later full save.
+     */
+    private void writeQueuedSaves() {
+        ArrayList<PendingWrite> batch;
+        long batchEnd;
+        synchronized (this) {
+            batch = new ArrayList<>(queue);
+            queue.clear();
+            batchEnd = queuedCount;
+        }
+
+        byte[] snapshot = null;
+        ArrayList<RecordTable.Patch> patches = new ArrayList<>();
+        ArrayList<String> journalRecords = new ArrayList<>();
+        for (PendingWrite pendingWrite : batch) {
+            if (pendingWrite.snapshot != null) {
+                snapshot = pendingWrite.snapshot;
+                patches.clear();
+                journalRecords.clear();
+            } else if (pendingWrite.patch != null) {
+                patches.add(pendingWrite.patch);
+            } else {
+                journalRecords.addAll(pendingWrite.journalRecords);
+            }
+        }
+
+        TomatoException failure = null;
+        try {
+            storage.writeNow(snapshot, patches, journalRecords);
+        } catch (TomatoException exception) {
+            failure = exception;
+        }
+
+        synchronized (this) {
+            if (failure != null && writeFailure == null) {
+                writeFailure = failure;
+            }
+            writtenCount = batchEnd;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Scanner;
+
+import tomato.TomatoException;
+import tomato.task.Task;
+
+/**
+ * Handles the append-only journal of task mutations kept alongside the task file.
+ * Each mutation is appended as a single record so that the cost of a save does not grow with the task list.
+ * Records refer to the task they change by its stable ID, e.g. "M|@7", so that a delete does not change
+ * which task the later records refer to. Records written before tasks had IDs refer to a task by its
+ * zero-based position instead, e.g. "M|3", and are still replayed.
+ */
+public class Journal {
+    private static final String RECORD_SEPARATOR = "|";
+    private static final String RECORD_SPLIT_REGEX = "\\|";
+    private static final String TASK_ID_MARKER = "@";
+    private static final int RECORD_OPERATION_INDEX = 0;
+    private static final int RECORD_TASK_INDEX = 1;
+    private static final int RECORD_ADD_PAYLOAD_INDEX = 1;
+    private static final int RECORD_UPDATE_PAYLOAD_INDEX = 2;
+    private static final int RECORD_ADD_SPLIT_LIMIT = 2;
+    private static final int RECORD_INDEXED_SPLIT_LIMIT = 3;
+    private static final byte RECORD_TERMINATOR = '\n';
+
+    /**
+     * Represents the task mutations recorded in the journal.
+     */
+    public static enum Operation {
+        ADD("A"),
+        MARK("M"),
+        UNMARK("U"),
+        DELETE("X"),
+        UPDATE("S");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Returns the operation matching the given record tag.
+         *
+         * @param tag Record tag e.g. "A".
+         * @return Matching operation.
+         * @throws TomatoException If the tag is not a known operation.
+         */
+        static Operation fromTag(String tag) throws TomatoException {
+            for (Operation operation : values()) {
+                if (operation.tag.equals(tag)) {
+                    return operation;
+                }
+            }
+            throw new TomatoException("Unknown journal operation: " + tag, tag);
+        }
+    }
+
+    private final File journalFile;
+    private int recordCount;
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param journalFile File to append journal records into.
+     */
+    public Journal(File journalFile) {
+        assert journalFile != null : "journal file should not be null";
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * Returns the file backing this journal.
+     *
+     * @return journal file.
+     */
+    public File getFile() {
+        return journalFile;
+    }
+
+    /**
+     * Returns the number of records currently in the journal.
+     *
+     * @return journal record count.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the size of the journal file in bytes.
+     *
+     * @return journal file size, or 0 if the journal file does not exist.
+     */
+    public long getSizeInBytes() {
+        return journalFile.length();
+    }
+
+    /**
+     * Returns the storage string of a journal record for the given mutation.
+     *
+     * @param operation Mutation applied to the task list.
+     * @param task Task the mutation was applied to, which must have an ID.
+     * @return journal record string.
+     */
+    public static String encodeRecord(Operation operation, Task task) {
+        assert task.getId() != Task.NO_ID : "journaled task should have an ID";
+        switch (operation) {
+        case ADD:
+            return operation.tag + RECORD_SEPARATOR + Storage.encodeLine(task);
+        case UPDATE:
+            return operation.tag + RECORD_SEPARATOR + TASK_ID_MARKER + task.getId() + RECORD_SEPARATOR
+                    + Storage.encodeLine(task);
+        default:
+            return operation.tag + RECORD_SEPARATOR + TASK_ID_MARKER + task.getId();
+        }
+    }
+
+    /**
+     * Appends the given records, each with its checksum, to the end of the journal in a single write,
+     * and forces them to disk.
+     *
+     * @param records Journal record strings, in order.
+     * @throws IOException If an input output error occurs while appending.
+     */
+    public void appendRecords(List<String> records) throws IOException {
+        StringBuilder recordBlock = new StringBuilder();
+        for (String record : records) {
+            recordBlock.append(RecordChecksum.seal(record)).append("\n");
+        }
+
+        FileOutputStream journalStream = new FileOutputStream(journalFile, true);
+        journalStream.write(recordBlock.toString().getBytes(StandardCharsets.UTF_8));
+        journalStream.getFD().sync();
+        journalStream.close();
+        recordCount += records.size();
+    }
+
+    /**
+     * Truncates a record cut off by a crash during an append from the end of the journal.
+     * Every appended record ends with a newline, so any bytes after the last newline are a torn record.
+     *
+     * @return bytes of the dropped record, or null if the journal ends with a complete record.
+     * @throws IOException If an input output error occurs while reading or truncating.
+     */
+    public byte[] dropTornRecord() throws IOException {
+        if (!journalFile.exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long recordsEnd = channel.size();
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            while (recordsEnd > 0) {
+                lastByte.clear();
+                channel.read(lastByte, recordsEnd - 1);
+                if (lastByte.get(0) == RECORD_TERMINATOR) {
+                    break;
+                }
+                recordsEnd--;
+            }
+            if (recordsEnd == channel.size()) {
+                return null;
+            }
+
+            ByteBuffer tornRecord = ByteBuffer.allocate((int) (channel.size() - recordsEnd));
+            channel.read(tornRecord, recordsEnd);
+            channel.truncate(recordsEnd);
+            channel.force(true);
+            return tornRecord.array();
+        }
+    }
+
+    /**
+     * Removes all records from the journal, e.g. after a full snapshot has been written, by deleting its file.
+     * The next append starts a new file.
+     *
+     * @throws IOException If an input output error occurs while deleting.
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(journalFile.toPath());
+        recordCount = 0;
+    }
+
+    /**
+     * Moves all current records into the given file and starts a new, empty journal.
+     *
+     * @param target File to move the current records into.
+     * @throws IOException If an input output error occurs while moving the journal file.
+     */
+    public void rotateTo(File target) throws IOException {
+        if (journalFile.exists()) {
+            Files.move(journalFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        recordCount = 0;
+    }
+
+    /**
+     * Represents the tasks being replayed onto. A deleted task leaves a gap until the replay ends,
+     * so that each record finds its task by ID without the tasks after a delete being moved.
+     */
+    private static class ReplayedTasks {
+        private final ArrayList<Task> tasks;
+        private final HashMap<Long, Integer> positionsById = new HashMap<>();
+        private boolean hasGaps;
+
+        private ReplayedTasks(ArrayList<Task> tasks) {
+            this.tasks = tasks;
+            indexPositions();
+        }
+
+        private void indexPositions() {
+            positionsById.clear();
+            for (int position = 0; position < tasks.size(); position++) {
+                long taskId = tasks.get(position).getId();
+                if (taskId != Task.NO_ID) {
+                    positionsById.put(taskId, position);
+                }
+            }
+        }
+
+        /**
+         * Removes the gaps left by deleted tasks, so that positions are task numbers again.
+         */
+        private void closeGaps() {
+            if (hasGaps) {
+                tasks.removeIf(Objects::isNull);
+                indexPositions();
+                hasGaps = false;
+            }
+        }
+
+        /**
+         * Returns the position of the task a record refers to, by its ID or, in an older record,
+         * by its zero-based task number.
+         *
+         * @throws TomatoException If the token is not an ID or number, or no task has it.
+         */
+        private int findPosition(String token) throws TomatoException {
+            if (token.startsWith(TASK_ID_MARKER)) {
+                Integer position;
+                try {
+                    position = positionsById.get(Long.parseLong(token.substring(TASK_ID_MARKER.length())));
+                } catch (NumberFormatException exception) {
+                    throw new TomatoException("Invalid task ID in journal: " + token, token);
+                }
+                if (position == null) {
+                    throw new TomatoException("Journal refers to a missing task: " + token, token);
+                }
+                return position;
+            }
+
+            int taskNumber;
+            try {
+                taskNumber = Integer.parseInt(token);
+            } catch (NumberFormatException exception) {
+                throw new TomatoException("Invalid task number in journal: " + token, token);
+            }
+            closeGaps();
+            if (taskNumber < 0 || taskNumber >= tasks.size()) {
+                throw new TomatoException("Journal refers to a missing task: " + token, token);
+            }
+            return taskNumber;
+        }
+
+        private void add(Task task) {
+            if (task.getId() != Task.NO_ID) {
+                positionsById.put(task.getId(), tasks.size());
+            }
+            tasks.add(task);
+        }
+
+        private void set(int position, Task task) {
+            Task oldTask = tasks.set(position, task);
+            positionsById.remove(oldTask.getId());
+            if (task.getId() != Task.NO_ID) {
+                positionsById.put(task.getId(), position);
+            }
+        }
+
+        private void remove(int position) {
+            Task task = tasks.set(position, null);
+            positionsById.remove(task.getId());
+            hasGaps = true;
+        }
+    }
+
+    /**
+     * Checks whether the given journal record has the required number of fields.
+     *
+     * @param fields Split record fields.
+     * @param len Number of fields required.
+     * @param record Original record string.
+     * @throws TomatoException If the record has too few fields.
+     */
+    private void checkRecordLength(String[] fields, int len, String record) throws TomatoException {
+        if (fields.length < len) {
+            throw new TomatoException("Incomplete journal record: " + record, record);
+        }
+    }
+
+    /**
+     * Applies a single journal record onto the given task list.
+     *
+     * @param tasks Tasks being replayed onto.
+     * @param sealedRecord Journal record string, with or without its checksum.
+     * @param decoder Storage used to decode serialised tasks.
+     * @throws TomatoException If the record is invalid or does not match its checksum.
+     */
+    private void applyRecord(ReplayedTasks tasks, String sealedRecord, Storage decoder) throws TomatoException {
+        String record = RecordChecksum.unseal(sealedRecord);
+        String[] fields = record.split(RECORD_SPLIT_REGEX, RECORD_INDEXED_SPLIT_LIMIT);
+        Operation operation = Operation.fromTag(fields[RECORD_OPERATION_INDEX]);
+
+        if (operation == Operation.ADD) {
+            String[] addFields = record.split(RECORD_SPLIT_REGEX, RECORD_ADD_SPLIT_LIMIT);
+            checkRecordLength(addFields, RECORD_ADD_SPLIT_LIMIT, record);
+            tasks.add(decoder.decodeLine(addFields[RECORD_ADD_PAYLOAD_INDEX]));
+            return;
+        }
+
+        checkRecordLength(fields, RECORD_INDEXED_SPLIT_LIMIT - 1, record);
+        int position = tasks.findPosition(fields[RECORD_TASK_INDEX]);
+
+        switch (operation) {
+        case MARK:
+            tasks.tasks.get(position).setDone();
+            return;
+        case UNMARK:
+            tasks.tasks.get(position).setNotDone();
+            return;
+        case DELETE:
+            tasks.remove(position);
+            return;
+        case UPDATE:
+            checkRecordLength(fields, RECORD_INDEXED_SPLIT_LIMIT, record);
+            tasks.set(position, decoder.decodeLine(fields[RECORD_UPDATE_PAYLOAD_INDEX]));
+            return;
+        default:
+            assert false : "code should not reach here";
+        }
+    }
+
+    /**
+     * Replays every journal record, in order, onto the given snapshot of tasks.
+     *
+     * @param tasks Tasks loaded from the last snapshot.
+     * @param decoder Storage used to decode serialised tasks.
+     * @throws TomatoException If a journal record cannot be applied.
+     */
+    public void replay(ArrayList<Task> tasks, Storage decoder) throws TomatoException {
+        replay(tasks, decoder, null);
+    }
+
+    /**
+     * Replays every journal record, in order, onto the given snapshot of tasks.
+     * If a quarantine is given, the first record that cannot be applied and every record after it are moved
+     * into it instead, as the later records may refer to the tasks that record changed.
+     *
+     * @param tasks Tasks loaded from the last snapshot.
+     * @param decoder Storage used to decode serialised tasks.
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
+     * @throws TomatoException If a journal record cannot be applied and there is no quarantine.
+     */
+    public void replay(ArrayList<Task> tasks, Storage decoder, Quarantine quarantine) throws TomatoException {
+        recordCount = 0;
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        ReplayedTasks replayedTasks = new ReplayedTasks(tasks);
+        String skipReason = null;
+        try (Scanner journalScanner = new Scanner(journalFile, StandardCharsets.UTF_8)) {
+            while (journalScanner.hasNextLine()) {
+                String record = journalScanner.nextLine();
+                recordCount++;
+                if (record.isBlank()) {
+                    continue;
+                }
+
+                String location = journalFile.getName() + " record " + recordCount;
+                if (skipReason != null) {
+                    quarantine.add(location, skipReason, record);
+                    continue;
+                }
+                try {
+                    applyRecord(replayedTasks, record, decoder);
+                } catch (TomatoException exception) {
+                    if (quarantine == null) {
+                        throw exception;
+                    }
+                    quarantine.add(location, exception.getMessage(), record);
+                    skipReason = "Follows a record that could not be applied";
+                }
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("Unable to read journal file!");
+        } catch (TomatoException exception) {
+            throw new TomatoException("Journal record " + recordCount + ": " + exception.getMessage(),
+                    exception.getErrorWord());
+        } finally {
+            replayedTasks.closeGaps();
+        }
+    }
+}
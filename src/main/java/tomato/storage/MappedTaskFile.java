@@ -0,0 +1,204 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import tomato.TomatoException;
+import tomato.task.Task;
+
+/**
+ * Represents a read-only view of a task file that is memory-mapped rather than read into memory.
+ * <p>
+ * Opening the file only builds an index of where each task record starts. A task is decoded the first time it
+ * is asked for, and keyword searches scan the mapped bytes so that only matching tasks are decoded.
+ * This lets list and find commands show a task file that is too large to load, e.g. an archive.
+ * Works with both task file formats.
+ */
+public class MappedTaskFile {
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final ByteBuffer buffer;
+    private final TaskFileFormat format;
+    private final Storage decoder;
+    private final BinaryTaskCodec binaryCodec = new BinaryTaskCodec();
+    private int[] recordOffsets = new int[INITIAL_INDEX_CAPACITY];
+    private int recordCount;
+    private final Task[] decodedTasks;
+
+    /**
+     * Maps the given task file and indexes its task records.
+     *
+     * @param file Task file to map.
+     * @param format Format of the task file.
+     * @param decoder Storage used to decode text task records.
+     * @throws IOException If the file cannot be mapped.
+     * @throws TomatoException If the file is too large to map or its records cannot be indexed.
+     */
+    public MappedTaskFile(File file, TaskFileFormat format, Storage decoder) throws IOException, TomatoException {
+        this.format = format;
+        this.decoder = decoder;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new TomatoException("Task file is too large to map!");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (format == TaskFileFormat.BINARY) {
+            indexBinaryRecords();
+        } else {
+            indexTextRecords();
+        }
+        decodedTasks = new Task[recordCount];
+    }
+
+    private void addRecordOffset(int offset) {
+        if (recordCount == recordOffsets.length) {
+            recordOffsets = Arrays.copyOf(recordOffsets, recordCount * 2);
+        }
+        recordOffsets[recordCount++] = offset;
+    }
+
+    private void indexTextRecords() {
+        int limit = buffer.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit || buffer.get(i) == NEWLINE) {
+                if (i > lineStart && !RecordTable.isTombstone(buffer.get(lineStart))) {
+                    addRecordOffset(lineStart);
+                }
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    private void indexBinaryRecords() throws TomatoException {
+        ByteBuffer records = buffer.duplicate();
+        int taskCount = binaryCodec.readHeader(records);
+        for (int i = 0; i < taskCount; i++) {
+            addRecordOffset(records.position());
+            binaryCodec.skipTask(records);
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the file.
+     *
+     * @return task count.
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Returns the end offset, exclusive of any line ending, of the text record at the given index.
+     * The end is found from the record's own line, as the next record may start after a tombstone.
+     */
+    private int getTextRecordEnd(int index) {
+        int limit = buffer.limit();
+        int end = recordOffsets[index];
+        while (end < limit && buffer.get(end) != NEWLINE) {
+            end++;
+        }
+        if (end > recordOffsets[index] && buffer.get(end - 1) == CARRIAGE_RETURN) {
+            end--;
+        }
+        return end;
+    }
+
+    private Task decodeTask(int index) throws TomatoException {
+        ByteBuffer record = buffer.duplicate();
+        record.position(recordOffsets[index]);
+        if (format == TaskFileFormat.BINARY) {
+            return binaryCodec.readTask(record);
+        }
+
+        byte[] line = new byte[getTextRecordEnd(index) - recordOffsets[index]];
+        record.get(line);
+        return decoder.decodeSealedLine(new String(line, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the task at the given index, decoding it on first access.
+     *
+     * @param index Zero-based task index.
+     * @return Task at the index.
+     * @throws TomatoException If the index is out of range or the record cannot be decoded.
+     */
+    public Task get(int index) throws TomatoException {
+        if (index < 0 || index >= recordCount) {
+            throw new TomatoException("Invalid task number: " + (index + 1));
+        }
+
+        if (decodedTasks[index] == null) {
+            decodedTasks[index] = decodeTask(index);
+        }
+        return decodedTasks[index];
+    }
+
+    private static byte toLowerCase(byte character) {
+        return character >= 'A' && character <= 'Z' ? (byte) (character + ('a' - 'A')) : character;
+    }
+
+    /**
+     * Returns whether the given lower case bytes occur in the mapped region from start (inclusive) to end
+     * (exclusive), ignoring the case of ASCII letters in the region.
+     */
+    private boolean containsBytes(int start, int end, byte[] pattern) {
+        int lastStart = end - pattern.length;
+        for (int i = start; i <= lastStart; i++) {
+            int matched = 0;
+            while (matched < pattern.length && toLowerCase(buffer.get(i + matched)) == pattern[matched]) {
+                matched++;
+            }
+            if (matched == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the indexes of the tasks whose description contains the given keyword, ignoring case.
+     * Records are searched in their mapped bytes, and only tasks that may match are decoded.
+     * Letters outside ASCII only match where the file has them in lower case.
+     *
+     * @param keyword Keyword to search for.
+     * @return zero-based indexes of matching tasks, in file order.
+     * @throws TomatoException If a candidate record cannot be decoded.
+     */
+    public ArrayList<Integer> findMatching(String keyword) throws TomatoException {
+        ArrayList<Integer> matches = new ArrayList<>();
+        String lowerCaseKeyword = keyword.toLowerCase();
+        byte[] pattern = lowerCaseKeyword.getBytes(StandardCharsets.UTF_8);
+        if (format == TaskFileFormat.BINARY) {
+            ByteBuffer record = buffer.duplicate();
+            for (int i = 0; i < recordCount; i++) {
+                record.position(recordOffsets[i]);
+                int descriptionLength = binaryCodec.readDescriptionLength(record);
+                int descriptionStart = record.position();
+                if (containsBytes(descriptionStart, descriptionStart + descriptionLength, pattern)) {
+                    matches.add(i);
+                }
+            }
+            return matches;
+        }
+
+        for (int i = 0; i < recordCount; i++) {
+            // a text record also holds its type, status and date-times, so check the decoded description too
+            if (containsBytes(recordOffsets[i], getTextRecordEnd(i), pattern)
+                    && get(i).getDescription().toLowerCase().contains(lowerCaseKeyword)) {
+                matches.add(i);
+            }
+        }
+        return matches;
+    }
+}
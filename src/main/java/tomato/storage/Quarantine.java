@@ -0,0 +1,91 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Collects corrupted records found while loading, so they can be set aside in a quarantine file
+ * instead of aborting the load.
+ * <p>
+ * Each quarantined record is written as a "#" line giving where it was found and why it was rejected,
+ * followed by the record itself. Binary records are written in Base64.
+ */
+public class Quarantine {
+    private static final String BINARY_RECORD_PREFIX = "base64:";
+
+    private final File quarantineFile;
+    private final StringBuilder entries = new StringBuilder();
+    private int recordCount;
+
+    /**
+     * Creates an empty quarantine that is saved into the given file.
+     *
+     * @param quarantineFile File to append quarantined records into.
+     */
+    public Quarantine(File quarantineFile) {
+        assert quarantineFile != null : "quarantine file should not be null";
+        this.quarantineFile = quarantineFile;
+    }
+
+    /**
+     * Returns the file that quarantined records are saved into.
+     *
+     * @return quarantine file.
+     */
+    public File getFile() {
+        return quarantineFile;
+    }
+
+    /**
+     * Returns the number of records quarantined so far.
+     *
+     * @return quarantined record count.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Quarantines a text record.
+     *
+     * @param location Where the record was found e.g. "Line 3".
+     * @param reason Why the record was rejected.
+     * @param record Record string.
+     */
+    public void add(String location, String reason, String record) {
+        entries.append("# ").append(location).append(": ").append(reason).append("\n");
+        entries.append(record).append("\n");
+        recordCount++;
+    }
+
+    /**
+     * Quarantines a binary record.
+     *
+     * @param location Where the record was found e.g. "Task 3".
+     * @param reason Why the record was rejected.
+     * @param record Record bytes.
+     */
+    public void addBinary(String location, String reason, byte[] record) {
+        add(location, reason, BINARY_RECORD_PREFIX + Base64.getEncoder().encodeToString(record));
+    }
+
+    /**
+     * Appends the quarantined records to the quarantine file, keeping records quarantined earlier,
+     * and forces them to disk.
+     *
+     * @throws IOException If an input output error occurs while appending.
+     */
+    public void writeToDisk() throws IOException {
+        if (recordCount == 0) {
+            return;
+        }
+
+        FileOutputStream quarantineStream = new FileOutputStream(quarantineFile, true);
+        quarantineStream.write(entries.toString().getBytes(StandardCharsets.UTF_8));
+        quarantineStream.getFD().sync();
+        quarantineStream.close();
+    }
+}
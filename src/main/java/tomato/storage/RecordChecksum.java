@@ -0,0 +1,100 @@
+package tomato.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+import tomato.TomatoException;
+
+/**
+ * Seals text records with a CRC32C checksum of their UTF-8 bytes, and checks sealed records when they are read back.
+ * <p>
+ * A sealed record is written as "#" followed by its checksum in eight hex digits, a "|" and the record itself,
+ * e.g. "#1a2b3c4d|T|0|read book". Records written before checksums were added do not start with "#" and
+ * are read back unchecked.
+ */
+public class RecordChecksum {
+    private static final byte SEAL_MARKER = '#';
+    private static final byte SEAL_SEPARATOR = '|';
+    private static final int CHECKSUM_HEX_DIGITS = 8;
+    private static final int SEAL_LENGTH = CHECKSUM_HEX_DIGITS + 2;
+    private static final int HEX_RADIX = 16;
+
+    private RecordChecksum() {
+    }
+
+    /**
+     * Returns the CRC32C checksum of the given bytes.
+     *
+     * @param bytes Bytes to checksum.
+     * @param offset Offset of the first byte.
+     * @param length Number of bytes.
+     * @return checksum value.
+     */
+    public static int compute(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Returns the given record sealed with its checksum.
+     *
+     * @param record Record string e.g. "T|0|read book".
+     * @return sealed record string.
+     */
+    public static String seal(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        return (char) SEAL_MARKER + String.format("%08x", compute(bytes, 0, bytes.length))
+                + (char) SEAL_SEPARATOR + record;
+    }
+
+    /**
+     * Checks the record between the given offsets against its checksum, if it is sealed.
+     *
+     * @param bytes Bytes holding the record.
+     * @param start Offset of the first byte of the record.
+     * @param end Offset just after the last byte of the record.
+     * @return offset of the record itself, after its seal.
+     * @throws TomatoException If the seal is malformed or the record does not match its checksum.
+     */
+    public static int checkRecord(byte[] bytes, int start, int end) throws TomatoException {
+        if (start == end || bytes[start] != SEAL_MARKER) {
+            return start;
+        }
+        if (end - start < SEAL_LENGTH || bytes[start + SEAL_LENGTH - 1] != SEAL_SEPARATOR) {
+            throw new TomatoException("Malformed record checksum!");
+        }
+
+        int storedChecksum = 0;
+        for (int i = start + 1; i < start + SEAL_LENGTH - 1; i++) {
+            int digit = Character.digit(bytes[i], HEX_RADIX);
+            if (digit < 0) {
+                throw new TomatoException("Malformed record checksum!");
+            }
+            storedChecksum = (storedChecksum << 4) | digit;
+        }
+
+        int recordStart = start + SEAL_LENGTH;
+        if (compute(bytes, recordStart, end - recordStart) != storedChecksum) {
+            throw new TomatoException("Record does not match its checksum!");
+        }
+        return recordStart;
+    }
+
+    /**
+     * Returns the record inside the given line, after checking it against its checksum if it is sealed.
+     *
+     * @param line Sealed or unsealed record string.
+     * @return record string without its seal.
+     * @throws TomatoException If the seal is malformed or the record does not match its checksum.
+     */
+    public static String unseal(String line) throws TomatoException {
+        if (line.isEmpty() || line.charAt(0) != SEAL_MARKER) {
+            return line;
+        }
+
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        int recordStart = checkRecord(bytes, 0, bytes.length);
+        return new String(bytes, recordStart, bytes.length - recordStart, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,242 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import tomato.task.Task;
+
+/**
+ * Tracks where each task's record lies in a text task file, so that a save only rewrites the records that changed.
+ * <p>
+ * On a save, a changed task whose record keeps its length is overwritten in place, tasks added at the end are
+ * appended, and the records of deleted tasks are overwritten with a tombstone line of the same length, which
+ * loading skips. Changed tasks are found through their dirty flag. A save that cannot be patched this way,
+ * e.g. a record that changes length, or once tombstones make up most of the file, needs a full save instead,
+ * which also cleans up the tombstones.
+ * <p>
+ * Patches are written in place rather than through a rename, so a crash while patching can tear a patched record.
+ * Its checksum then fails, and a verified load quarantines it. A patch is planned on the calling thread and can be
+ * written later, e.g. by a background writer, as long as patches are written in the order they were planned.
+ */
+public class RecordTable {
+    private static final byte NEWLINE = '\n';
+    private static final byte TOMBSTONE_MARKER = '~';
+    private static final byte TOMBSTONE_FILL = ' ';
+    private static final int MIN_TOMBSTONES_TO_CLEAN = 64;
+
+    private final File taskFile;
+    private ArrayList<Slot> slots;
+    private long fileEnd;
+    private int tombstoneCount;
+
+    /**
+     * Represents the position of a task's record in the task file.
+     */
+    private static class Slot {
+        private final long offset;
+        private final int length;
+        private final Task task;
+
+        private Slot(long offset, int length, Task task) {
+            this.offset = offset;
+            this.length = length;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Represents the writes that patch the task file for a single save, in the order they are made.
+     */
+    public static class Patch {
+        private final File taskFile;
+        private final ArrayList<Long> offsets = new ArrayList<>();
+        private final ArrayList<byte[]> writes = new ArrayList<>();
+        private boolean isGrowing;
+
+        private Patch(File taskFile) {
+            this.taskFile = taskFile;
+        }
+
+        private void add(long offset, byte[] bytes) {
+            offsets.add(offset);
+            writes.add(bytes);
+        }
+
+        /**
+         * Writes the patch into the task file and forces it to disk.
+         *
+         * @throws IOException If an input output error occurs while patching, after which a full save is needed.
+         */
+        public void write() throws IOException {
+            try (FileChannel channel = FileChannel.open(taskFile.toPath(), StandardOpenOption.WRITE)) {
+                for (int i = 0; i < writes.size(); i++) {
+                    writeFully(channel, writes.get(i), offsets.get(i));
+                }
+                channel.force(isGrowing);
+            }
+        }
+    }
+
+    private RecordTable(File taskFile, ArrayList<Slot> slots, long fileEnd, int tombstoneCount) {
+        this.taskFile = taskFile;
+        this.slots = slots;
+        this.fileEnd = fileEnd;
+        this.tombstoneCount = tombstoneCount;
+    }
+
+    /**
+     * Returns whether a task file line starting with the given byte is the tombstone of a deleted task.
+     *
+     * @param firstByte First byte of the line.
+     * @return true if the line is a tombstone.
+     */
+    public static boolean isTombstone(byte firstByte) {
+        return firstByte == TOMBSTONE_MARKER;
+    }
+
+    /**
+     * Returns a record table for the given tasks, indexed from the text task file contents they were loaded from
+     * or saved as. The tasks are set as clean, as they match their records.
+     *
+     * @param taskFile Task file the contents are from.
+     * @param contents Text task file contents.
+     * @param tasks Tasks decoded from the contents, in order.
+     * @return record table, or null if the contents do not hold one complete record line per task.
+     */
+    public static RecordTable index(File taskFile, ByteBuffer contents, List<Task> tasks) {
+        int limit = contents.limit();
+        if (limit > 0 && contents.get(limit - 1) != NEWLINE) {
+            return null;
+        }
+
+        ArrayList<Slot> slots = new ArrayList<>(tasks.size());
+        int tombstoneCount = 0;
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (contents.get(i) != NEWLINE) {
+                continue;
+            }
+
+            if (i > lineStart && isTombstone(contents.get(lineStart))) {
+                tombstoneCount++;
+            } else if (i > lineStart) {
+                if (slots.size() == tasks.size()) {
+                    return null;
+                }
+                slots.add(new Slot(lineStart, i - lineStart, tasks.get(slots.size())));
+            }
+            lineStart = i + 1;
+        }
+        if (slots.size() != tasks.size()) {
+            return null;
+        }
+
+        for (Task task : tasks) {
+            task.setClean();
+        }
+        return new RecordTable(taskFile, slots, limit, tombstoneCount);
+    }
+
+    private static byte[] encodeRecord(Task task) {
+        return RecordChecksum.seal(Storage.encodeLine(task)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeTombstone(int length) {
+        byte[] tombstone = new byte[length];
+        Arrays.fill(tombstone, TOMBSTONE_FILL);
+        tombstone[0] = TOMBSTONE_MARKER;
+        return tombstone;
+    }
+
+    /**
+     * Returns the patch that saves the given tasks by rewriting only the changed records in the task file, and
+     * updates the table as if it were written. The patch must be written before any patch planned after it.
+     *
+     * @param tasks Tasks to save, in order.
+     * @return patch to write, or null if a full save is needed instead, in which case the table is unchanged.
+     */
+    public Patch plan(List<Task> tasks) {
+        ArrayList<Slot> keptSlots = new ArrayList<>(tasks.size());
+        ArrayList<Slot> patchedSlots = new ArrayList<>();
+        ArrayList<byte[]> patches = new ArrayList<>();
+        ArrayList<Slot> deletedSlots = new ArrayList<>();
+        ArrayList<Task> appendedTasks = new ArrayList<>();
+
+        int slotIndex = 0;
+        for (Task task : tasks) {
+            // records of tasks no longer in the list, up to this task's record, are deleted
+            while (slotIndex < slots.size() && slots.get(slotIndex).task != task) {
+                deletedSlots.add(slots.get(slotIndex++));
+            }
+            if (slotIndex == slots.size()) {
+                appendedTasks.add(task);
+                continue;
+            }
+
+            Slot slot = slots.get(slotIndex++);
+            keptSlots.add(slot);
+            if (task.isDirty()) {
+                byte[] record = encodeRecord(task);
+                if (record.length != slot.length) {
+                    return null;
+                }
+                patchedSlots.add(slot);
+                patches.add(record);
+            }
+        }
+        deletedSlots.addAll(slots.subList(slotIndex, slots.size()));
+
+        int newTombstoneCount = tombstoneCount + deletedSlots.size();
+        if (newTombstoneCount >= MIN_TOMBSTONES_TO_CLEAN && newTombstoneCount > tasks.size()) {
+            return null;
+        }
+
+        ArrayList<byte[]> appendedRecords = new ArrayList<>(appendedTasks.size());
+        int appendedLength = 0;
+        for (Task task : appendedTasks) {
+            byte[] record = encodeRecord(task);
+            appendedRecords.add(record);
+            appendedLength += record.length + 1;
+        }
+        ByteBuffer appendedBlock = ByteBuffer.allocate(appendedLength);
+        for (byte[] record : appendedRecords) {
+            appendedBlock.put(record).put(NEWLINE);
+        }
+
+        Patch patch = new Patch(taskFile);
+        for (int i = 0; i < patches.size(); i++) {
+            patch.add(patchedSlots.get(i).offset, patches.get(i));
+        }
+        for (Slot slot : deletedSlots) {
+            patch.add(slot.offset, encodeTombstone(slot.length));
+        }
+        patch.add(fileEnd, appendedBlock.array());
+        patch.isGrowing = appendedLength > 0;
+
+        for (Slot slot : patchedSlots) {
+            slot.task.setClean();
+        }
+        for (int i = 0; i < appendedTasks.size(); i++) {
+            keptSlots.add(new Slot(fileEnd, appendedRecords.get(i).length, appendedTasks.get(i)));
+            fileEnd += appendedRecords.get(i).length + 1;
+            appendedTasks.get(i).setClean();
+        }
+        slots = keptSlots;
+        tombstoneCount = newTombstoneCount;
+        return patch;
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+}
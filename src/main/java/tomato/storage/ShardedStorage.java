@@ -0,0 +1,759 @@
+package tomato.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import tomato.TomatoException;
+import tomato.parser.Parser;
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
+
+/**
+ * Handles loading and saving tasks in a directory of shard files instead of a single task file.
+ * <p>
+ * Todos are kept in one shard, while deadlines and events are sharded by the month of their deadline or start,
+ * e.g. "deadline-2025-02.txt". Each record holds a sequence number that keeps the tasks in list order across
+ * shards, and a generation that grows with every record written, so that the newer of two copies left by a crash
+ * can be told apart. A save only rewrites the shards holding the changed tasks, along with a small manifest that
+ * records each shard's task count, largest sequence number and time range. A task's sequence number is its stable
+ * ID less one, so that no ID is {@link Task#NO_ID}, and it never changes however the list around it changes.
+ * <p>
+ * Every shard is loaded up front, as task numbers count across all of them. Time range queries skip every shard
+ * whose time range cannot match, using the manifest.
+ */
+public class ShardedStorage implements TaskStorage {
+    private static final String TODO_SHARD_NAME = "todo";
+    private static final String DEADLINE_SHARD_PREFIX = "deadline-";
+    private static final String EVENT_SHARD_PREFIX = "event-";
+    private static final String SHARD_FILE_SUFFIX = ".txt";
+    private static final String MANIFEST_FILE_NAME = "shards.manifest";
+    private static final String QUARANTINE_FILE_NAME = "shards.quarantine";
+    private static final String FIELD_SEPARATOR = "|";
+    private static final String FIELD_SPLIT_REGEX = "\\|";
+    private static final String NO_TIME = "-";
+    private static final String BACKUP_DIRECTORY_SUFFIX = ".bak";
+    private static final int MANIFEST_FIELD_COUNT = 5;
+    private static final byte NEWLINE = '\n';
+
+    private final Parser parser = new Parser();
+    private final String directoryPath;
+    private Path directory;
+    private boolean isNewTaskFile;
+    private boolean isDeferringSaves;
+    private final ArrayList<String> recoveryMessages = new ArrayList<>();
+    private final TreeMap<String, Shard> shards = new TreeMap<>();
+    private final HashMap<Long, Shard> shardOfSequence = new HashMap<>();
+    private final LinkedHashSet<Shard> deferredShards = new LinkedHashSet<>();
+    private long nextSequence;
+    private long lastGeneration;
+
+    /**
+     * Represents a single shard file and, once loaded, the tasks in it.
+     */
+    private static class Shard {
+        private final String name;
+        private final File file;
+        private final YearMonth month;
+        private final TreeMap<Long, Task> tasks = new TreeMap<>();
+        private final HashMap<Long, Long> generations = new HashMap<>();
+        private boolean isLoaded;
+        private int taskCount;
+        private long maxSequence = -1;
+        private LocalDateTime earliest;
+        private LocalDateTime latest;
+
+        private Shard(String name, File file, YearMonth month) {
+            this.name = name;
+            this.file = file;
+            this.month = month;
+        }
+
+        private void putTask(long sequence, Task task, long generation) {
+            tasks.put(sequence, task);
+            generations.put(sequence, generation);
+        }
+
+        private void removeTask(long sequence) {
+            tasks.remove(sequence);
+            generations.remove(sequence);
+        }
+
+        /**
+         * Returns the generation of the record of the task with the given sequence number, or 0 for a record
+         * written before records had generations.
+         */
+        private long getGeneration(long sequence) {
+            return generations.getOrDefault(sequence, 0L);
+        }
+
+        /**
+         * Recomputes the task count, largest sequence number and time range from the loaded tasks.
+         */
+        private void updateStats() {
+            assert isLoaded : "stats should only be recomputed from a loaded shard";
+            taskCount = tasks.size();
+            maxSequence = tasks.isEmpty() ? -1 : tasks.lastKey();
+            earliest = null;
+            latest = null;
+            for (Task task : tasks.values()) {
+                LocalDateTime start = getStart(task);
+                LocalDateTime end = getEnd(task);
+                if (start != null && (earliest == null || start.isBefore(earliest))) {
+                    earliest = start;
+                }
+                if (end != null && (latest == null || end.isAfter(latest))) {
+                    latest = end;
+                }
+            }
+        }
+
+        /**
+         * Returns whether any task in this shard may fall within the given time range.
+         */
+        private boolean mayOverlap(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+            if (earliest == null || latest == null) {
+                return month != null;
+            }
+            return !earliest.isAfter(rangeEnd) && !latest.isBefore(rangeStart);
+        }
+    }
+
+    /**
+     * Creates a sharded storage instance for the specified directory path.
+     *
+     * @param directoryPath string of directory path to store the shard files in.
+     */
+    public ShardedStorage(String directoryPath) {
+        assert !directoryPath.isBlank() : "directory path string must not be blank";
+        this.directoryPath = directoryPath;
+    }
+
+    private static LocalDateTime getStart(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDateTimeBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getDateTimeFrom();
+        }
+        return null;
+    }
+
+    private static LocalDateTime getEnd(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getDateTimeBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getDateTimeTo();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the name of the shard the given task belongs in.
+     */
+    private static String getShardName(Task task) {
+        if (task instanceof Deadline) {
+            return DEADLINE_SHARD_PREFIX + YearMonth.from(getStart(task));
+        } else if (task instanceof Event) {
+            return EVENT_SHARD_PREFIX + YearMonth.from(getStart(task));
+        }
+        return TODO_SHARD_NAME;
+    }
+
+    /**
+     * Returns the month of the shard with the given name, or null if the shard is not sharded by month.
+     *
+     * @throws TomatoException If the name is not a known shard name.
+     */
+    private static YearMonth parseShardMonth(String name) throws TomatoException {
+        if (name.equals(TODO_SHARD_NAME)) {
+            return null;
+        }
+
+        String month;
+        if (name.startsWith(DEADLINE_SHARD_PREFIX)) {
+            month = name.substring(DEADLINE_SHARD_PREFIX.length());
+        } else if (name.startsWith(EVENT_SHARD_PREFIX)) {
+            month = name.substring(EVENT_SHARD_PREFIX.length());
+        } else {
+            throw new TomatoException("Unknown shard: " + name, name);
+        }
+
+        try {
+            return YearMonth.parse(month);
+        } catch (DateTimeParseException exception) {
+            throw new TomatoException("Unknown shard: " + name, name);
+        }
+    }
+
+    /**
+     * Returns the shard with the given name, adding an empty, loaded shard if it does not exist yet.
+     */
+    private Shard getOrAddShard(String name) throws TomatoException {
+        Shard shard = shards.get(name);
+        if (shard == null) {
+            shard = new Shard(name, directory.resolve(name + SHARD_FILE_SUFFIX).toFile(), parseShardMonth(name));
+            shard.isLoaded = !shard.file.exists();
+            shards.put(name, shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Adds the shard with the given name, found in the directory. Other files in the directory are ignored.
+     */
+    private void addShardFile(String name) {
+        try {
+            getOrAddShard(name);
+        } catch (TomatoException exception) {
+            // not a shard file
+        }
+    }
+
+    /**
+     * Finds the shard files in the directory and reads the manifest, creating the directory if it does not exist.
+     *
+     * @throws TomatoException If the directory cannot be created or read.
+     */
+    private void openDirectory() throws TomatoException {
+        directory = Paths.get(System.getProperty("user.dir"), directoryPath);
+        shards.clear();
+        shardOfSequence.clear();
+        nextSequence = 0;
+        lastGeneration = 0;
+
+        try {
+            isNewTaskFile = Files.notExists(directory);
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> shardFiles = Files.newDirectoryStream(directory, "*" + SHARD_FILE_SUFFIX)) {
+                for (Path shardFile : shardFiles) {
+                    String fileName = shardFile.getFileName().toString();
+                    addShardFile(fileName.substring(0, fileName.length() - SHARD_FILE_SUFFIX.length()));
+                }
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to read shard directory.");
+        }
+        readManifest();
+    }
+
+    /**
+     * Reads each shard's task count, largest sequence number and time range from the manifest.
+     * Shards missing from the manifest are given no time range, so no query skips them.
+     *
+     * @throws TomatoException If the manifest cannot be read.
+     */
+    private void readManifest() throws TomatoException {
+        Path manifest = directory.resolve(MANIFEST_FILE_NAME);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest);
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to read shard manifest.");
+        }
+
+        for (String line : lines) {
+            String[] fields = line.split(FIELD_SPLIT_REGEX);
+            Shard shard = shards.get(fields[0]);
+            if (fields.length != MANIFEST_FIELD_COUNT || shard == null) {
+                continue;
+            }
+
+            try {
+                shard.taskCount = Integer.parseInt(fields[1]);
+                shard.maxSequence = Long.parseLong(fields[2]);
+                shard.earliest = fields[3].equals(NO_TIME) ? null : LocalDateTime.parse(fields[3]);
+                shard.latest = fields[4].equals(NO_TIME) ? null : LocalDateTime.parse(fields[4]);
+            } catch (NumberFormatException | DateTimeParseException exception) {
+                throw new TomatoException("Corrupted shard manifest: " + line, line);
+            }
+            nextSequence = Math.max(nextSequence, shard.maxSequence + 1);
+        }
+    }
+
+    /**
+     * Writes every shard's task count, largest sequence number and time range into the manifest.
+     *
+     * @throws IOException If an input output error occurs while writing.
+     */
+    private void writeManifest() throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (Shard shard : shards.values()) {
+            manifest.append(shard.name).append(FIELD_SEPARATOR)
+                    .append(shard.taskCount).append(FIELD_SEPARATOR)
+                    .append(shard.maxSequence).append(FIELD_SEPARATOR)
+                    .append(shard.earliest == null ? NO_TIME : shard.earliest).append(FIELD_SEPARATOR)
+                    .append(shard.latest == null ? NO_TIME : shard.latest).append("\n");
+        }
+        Storage.replaceAtomically(directory.resolve(MANIFEST_FILE_NAME).toFile(),
+                manifest.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the tasks read from the given shard file, by sequence number.
+     *
+     * @param shard Shard to read.
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
+     * @param generations Map to put each record's generation into, or null if they are not needed.
+     * @return tasks in the shard.
+     * @throws TomatoException If a record cannot be decoded and there is no quarantine.
+     */
+    private TreeMap<Long, Task> readShard(Shard shard, Quarantine quarantine, Map<Long, Long> generations)
+            throws TomatoException {
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(shard.file.toPath());
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to read shard " + shard.name + ".");
+        }
+
+        TreeMap<Long, Task> tasks = new TreeMap<>();
+        int lineNumber = 0;
+        int lineStart = 0;
+        while (lineStart < contents.length) {
+            int lineEnd = lineStart;
+            while (lineEnd < contents.length && contents[lineEnd] != NEWLINE) {
+                lineEnd++;
+            }
+            lineNumber++;
+            if (lineEnd > lineStart) {
+                try {
+                    int recordStart = RecordChecksum.checkRecord(contents, lineStart, lineEnd);
+                    String[] fields = new String(contents, recordStart, lineEnd - recordStart, StandardCharsets.UTF_8)
+                            .split(FIELD_SPLIT_REGEX, 2);
+                    if (fields.length < 2) {
+                        throw new TomatoException("Incomplete shard record!");
+                    }
+                    long sequence = Long.parseLong(fields[0]);
+                    String line = fields[1];
+                    long generation = 0;
+                    // a record written before records had generations starts straight with the task line
+                    if (!line.isEmpty() && Character.isDigit(line.charAt(0))) {
+                        String[] generationAndLine = line.split(FIELD_SPLIT_REGEX, 2);
+                        if (generationAndLine.length < 2) {
+                            throw new TomatoException("Incomplete shard record!");
+                        }
+                        generation = Long.parseLong(generationAndLine[0]);
+                        line = generationAndLine[1];
+                    }
+                    Task task = parser.decodeTask(line.split(FIELD_SPLIT_REGEX, 2));
+                    task.setId(sequence + 1);
+                    task.setClean();
+                    tasks.put(sequence, task);
+                    if (generations != null) {
+                        generations.put(sequence, generation);
+                    }
+                } catch (TomatoException | NumberFormatException exception) {
+                    String location = shard.name + " line " + lineNumber;
+                    if (quarantine == null) {
+                        throw new TomatoException(location + ": " + exception.getMessage());
+                    }
+                    quarantine.add(location, exception.getMessage(),
+                            new String(contents, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return tasks;
+    }
+
+    /**
+     * Loads the given shard's tasks into memory, if not loaded yet.
+     */
+    private void loadShard(Shard shard, Quarantine quarantine) throws TomatoException {
+        if (shard.isLoaded) {
+            return;
+        }
+
+        shard.tasks.putAll(readShard(shard, quarantine, shard.generations));
+        shard.isLoaded = true;
+        shard.updateStats();
+        for (long generation : shard.generations.values()) {
+            lastGeneration = Math.max(lastGeneration, generation);
+        }
+        for (Long sequence : shard.tasks.keySet()) {
+            shardOfSequence.put(sequence, shard);
+        }
+        nextSequence = Math.max(nextSequence, shard.maxSequence + 1);
+    }
+
+    /**
+     * Returns the tasks of every loaded shard in list order.
+     * A task found in two shards, left by a crash while it was moving between them, is kept in the shard holding
+     * the newer record by generation, and the other shard is rewritten without it so that the copies cannot drift
+     * apart. Records written before records had generations are tied, and the copy in the later shard is kept.
+     *
+     * @throws TomatoException If a shard holding a duplicate cannot be rewritten.
+     */
+    private ArrayList<Task> mergeLoadedShards() throws TomatoException {
+        TreeMap<Long, Task> merged = new TreeMap<>();
+        LinkedHashSet<Shard> staleShards = new LinkedHashSet<>();
+        for (Shard shard : shards.values()) {
+            for (Long sequence : new ArrayList<>(shard.tasks.keySet())) {
+                Shard duplicateShard = merged.containsKey(sequence) ? shardOfSequence.get(sequence) : null;
+                if (duplicateShard != null && duplicateShard != shard) {
+                    boolean isStale = shard.getGeneration(sequence) < duplicateShard.getGeneration(sequence);
+                    Shard staleShard = isStale ? shard : duplicateShard;
+                    staleShard.removeTask(sequence);
+                    staleShards.add(staleShard);
+                    if (isStale) {
+                        continue;
+                    }
+                }
+                merged.put(sequence, shard.tasks.get(sequence));
+                shardOfSequence.put(sequence, shard);
+            }
+        }
+        if (!staleShards.isEmpty()) {
+            writeShards(staleShards);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Returns an arraylist of tasks loaded from every shard.
+     *
+     * @return arraylist of tasks.
+     * @throws TomatoException If the shard directory cannot be read or a record cannot be decoded.
+     */
+    public ArrayList<Task> load() throws TomatoException {
+        openDirectory();
+        for (Shard shard : shards.values()) {
+            loadShard(shard, null);
+        }
+        return mergeLoadedShards();
+    }
+
+    /**
+     * Returns an arraylist of tasks loaded from every shard, moving corrupted records into a quarantine file.
+     * Shards that held corrupted records are rewritten without them.
+     *
+     * @return arraylist of tasks.
+     * @throws TomatoException If the shard directory cannot be read or the quarantine cannot be saved.
+     */
+    @Override
+    public ArrayList<Task> loadVerified() throws TomatoException {
+        recoveryMessages.clear();
+        openDirectory();
+        Quarantine quarantine = new Quarantine(directory.resolve(QUARANTINE_FILE_NAME).toFile());
+        ArrayList<Shard> repairedShards = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            int quarantinedCount = quarantine.getRecordCount();
+            loadShard(shard, quarantine);
+            if (quarantine.getRecordCount() > quarantinedCount) {
+                repairedShards.add(shard);
+            }
+        }
+        if (repairedShards.isEmpty()) {
+            return mergeLoadedShards();
+        }
+
+        try {
+            quarantine.writeToDisk();
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to quarantine file.");
+        }
+        recoveryMessages.add("Moved " + quarantine.getRecordCount() + " corrupted records to "
+                + quarantine.getFile().getPath() + ".");
+        writeShards(repairedShards);
+        return mergeLoadedShards();
+    }
+
+    @Override
+    public ArrayList<String> getRecoveryMessages() {
+        return new ArrayList<>(recoveryMessages);
+    }
+
+    @Override
+    public boolean isNewTaskFile() {
+        return isNewTaskFile;
+    }
+
+    /**
+     * Moves the shard directory aside as a backup, replacing any earlier backup, and starts a new, empty one.
+     *
+     * @return path of the backed up shard directory.
+     * @throws TomatoException If the directory cannot be moved aside or a new one cannot be created.
+     */
+    @Override
+    public String backUpAndReset() throws TomatoException {
+        assert directory != null : "shards should be loaded first";
+        Path backupDirectory = Paths.get(directory + BACKUP_DIRECTORY_SUFFIX);
+        try {
+            if (Files.exists(backupDirectory)) {
+                try (DirectoryStream<Path> backupFiles = Files.newDirectoryStream(backupDirectory)) {
+                    for (Path backupFile : backupFiles) {
+                        Files.delete(backupFile);
+                    }
+                }
+                Files.delete(backupDirectory);
+            }
+            Files.move(directory, backupDirectory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to back up shard directory.");
+        }
+
+        deferredShards.clear();
+        openDirectory();
+        return backupDirectory.toString();
+    }
+
+    /**
+     * Returns the deadlines and events that fall within the given time range, from every shard.
+     * Shards whose time range cannot match are skipped without being read, and shards not loaded yet are read
+     * without being added to the loaded tasks.
+     *
+     * @param rangeStart Start of the time range, inclusive.
+     * @param rangeEnd End of the time range, inclusive.
+     * @return matching tasks in list order.
+     * @throws TomatoException If a record of a shard that is read cannot be decoded.
+     */
+    public ArrayList<Task> findInRange(LocalDateTime rangeStart, LocalDateTime rangeEnd) throws TomatoException {
+        assert directory != null : "shards should be loaded first";
+        TreeMap<Long, Task> matches = new TreeMap<>();
+        for (Shard shard : shards.values()) {
+            if (!shard.mayOverlap(rangeStart, rangeEnd)) {
+                continue;
+            }
+
+            Map<Long, Task> shardTasks = shard.isLoaded ? shard.tasks : readShard(shard, null, null);
+            for (Map.Entry<Long, Task> entry : shardTasks.entrySet()) {
+                LocalDateTime start = getStart(entry.getValue());
+                LocalDateTime end = getEnd(entry.getValue());
+                if (start != null && !start.isAfter(rangeEnd) && !end.isBefore(rangeStart)) {
+                    matches.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return new ArrayList<>(matches.values());
+    }
+
+    /**
+     * Rewrites the given shards, deleting those left empty, and then the manifest.
+     * Each shard is replaced atomically; the manifest is written last, as it only narrows which shards are read.
+     *
+     * @param touchedShards Loaded shards to rewrite.
+     * @throws TomatoException If writing a shard or the manifest fails.
+     */
+    private void writeShards(Iterable<Shard> touchedShards) throws TomatoException {
+        try {
+            for (Shard shard : touchedShards) {
+                assert shard.isLoaded : "only loaded shards should be rewritten";
+                shard.updateStats();
+                if (shard.tasks.isEmpty()) {
+                    Files.deleteIfExists(shard.file.toPath());
+                    shards.remove(shard.name);
+                    continue;
+                }
+
+                StringBuilder shardBlock = new StringBuilder();
+                for (Map.Entry<Long, Task> entry : shard.tasks.entrySet()) {
+                    String record = entry.getKey() + FIELD_SEPARATOR + shard.getGeneration(entry.getKey())
+                            + FIELD_SEPARATOR + entry.getValue().toSave();
+                    shardBlock.append(RecordChecksum.seal(record)).append("\n");
+                }
+                Storage.replaceAtomically(shard.file, shardBlock.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            writeManifest();
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to shard.");
+        }
+    }
+
+    /**
+     * Moves the task with the given sequence number into the shard it now belongs in.
+     * The shard it moves into comes first, so that a crash between the two writes leaves a duplicate,
+     * which loading drops, rather than losing the task.
+     *
+     * @return shards whose contents changed, in the order to write them.
+     */
+    private ArrayList<Shard> placeTask(long sequence, Task task) throws TomatoException {
+        ArrayList<Shard> touchedShards = new ArrayList<>();
+        Shard oldShard = shardOfSequence.get(sequence);
+        Shard newShard = getOrAddShard(getShardName(task));
+        loadShard(newShard, null);
+        touchedShards.add(newShard);
+        if (oldShard != null && oldShard != newShard) {
+            oldShard.removeTask(sequence);
+            touchedShards.add(oldShard);
+        }
+
+        newShard.putTask(sequence, task, ++lastGeneration);
+        shardOfSequence.put(sequence, newShard);
+        return touchedShards;
+    }
+
+    /**
+     * Rewrites the given shards, or holds them back until {@link #saveDeferred(List)} if saves are deferred.
+     *
+     * @param touchedShards Loaded shards to rewrite, in order.
+     * @throws TomatoException If writing a shard or the manifest fails.
+     */
+    private void saveShards(Iterable<Shard> touchedShards) throws TomatoException {
+        if (!isDeferringSaves) {
+            writeShards(touchedShards);
+            return;
+        }
+        for (Shard shard : touchedShards) {
+            deferredShards.add(shard);
+        }
+    }
+
+    /**
+     * Saves the given task list into its shards, rewriting every loaded shard.
+     * Each task keeps the sequence number derived from its ID, and tasks without an ID are given new ones,
+     * which places them after every task saved so far.
+     *
+     * @param tasks Array list of Task objects.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    @Override
+    public void saveToDisk(List<Task> tasks) throws TomatoException {
+        assert directory != null : "shards should be loaded first";
+        HashSet<Long> liveSequences = new HashSet<>();
+        for (Task task : tasks) {
+            liveSequences.add(getSequence(task));
+        }
+        LinkedHashSet<Shard> emptiedShards = new LinkedHashSet<>();
+        Iterator<Map.Entry<Long, Shard>> entries = shardOfSequence.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Shard> entry = entries.next();
+            if (!liveSequences.contains(entry.getKey())) {
+                entry.getValue().removeTask(entry.getKey());
+                emptiedShards.add(entry.getValue());
+                entries.remove();
+            }
+        }
+
+        LinkedHashSet<Shard> touchedShards = new LinkedHashSet<>();
+        for (Task task : tasks) {
+            touchedShards.addAll(placeTask(getSequence(task), task));
+        }
+        // shards that only lost tasks come last, so a crash part way leaves duplicates rather than losses
+        touchedShards.addAll(emptiedShards);
+        saveShards(touchedShards);
+    }
+
+    /**
+     * Returns the sequence number of the given task, giving the task a new ID first if it has none.
+     */
+    private long getSequence(Task task) {
+        if (task.getId() == Task.NO_ID) {
+            task.setId(nextSequence + 1);
+        }
+        long sequence = task.getId() - 1;
+        nextSequence = Math.max(nextSequence, sequence + 1);
+        return sequence;
+    }
+
+    /**
+     * Saves the same change made to many tasks of the given task list, rewriting each shard they touch once.
+     *
+     * @param tasks Array list of Task objects after the changes.
+     * @param operation Change made to each task.
+     * @param changedTasks Changed tasks, which a delete has already removed from the list.
+     * @throws TomatoException If writing the changes to storage fails.
+     */
+    @Override
+    public void saveChanges(List<Task> tasks, Journal.Operation operation, List<Task> changedTasks)
+            throws TomatoException {
+        assert directory != null : "shards should be loaded first";
+        LinkedHashSet<Shard> touchedShards = new LinkedHashSet<>();
+        for (Task task : changedTasks) {
+            long sequence = getSequence(task);
+            if (operation == Journal.Operation.DELETE) {
+                Shard shard = shardOfSequence.remove(sequence);
+                assert shard != null : "deleted task should be in a shard";
+                shard.removeTask(sequence);
+                touchedShards.add(shard);
+            } else {
+                touchedShards.addAll(placeTask(sequence, task));
+            }
+        }
+        saveShards(touchedShards);
+    }
+
+    /**
+     * Holds back every shard write until {@link #saveDeferred(List)} is called. The given tasks are not remembered,
+     * as the shards on disk still hold them as they were until then.
+     *
+     * @param tasks Array list of Task objects before any held-back change.
+     */
+    @Override
+    public void deferSaves(List<Task> tasks) {
+        isDeferringSaves = true;
+    }
+
+    /**
+     * Rewrites every shard changed since {@link #deferSaves(List)}, and saves each change again from then on.
+     *
+     * @param tasks Array list of Task objects after every held-back change.
+     * @throws TomatoException If writing a shard or the manifest fails.
+     */
+    @Override
+    public void saveDeferred(List<Task> tasks) throws TomatoException {
+        assert isDeferringSaves : "saves should be deferred first";
+        isDeferringSaves = false;
+        ArrayList<Shard> touchedShards = new ArrayList<>(deferredShards);
+        deferredShards.clear();
+        if (!touchedShards.isEmpty()) {
+            writeShards(touchedShards);
+        }
+    }
+
+    /**
+     * Drops the changes held back since {@link #deferSaves(List)} without writing them, and saves each change
+     * again from then on. As no shard was written, the shards that were loaded are read back from disk.
+     *
+     * @return Array list of Task objects in the loaded shards, as last saved.
+     * @throws TomatoException If the shard directory or a shard cannot be read.
+     */
+    @Override
+    public ArrayList<Task> discardDeferred() throws TomatoException {
+        assert isDeferringSaves : "saves should be deferred first";
+        isDeferringSaves = false;
+        deferredShards.clear();
+        ArrayList<String> loadedShardNames = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            if (shard.isLoaded) {
+                loadedShardNames.add(shard.name);
+            }
+        }
+
+        openDirectory();
+        for (String name : loadedShardNames) {
+            Shard shard = shards.get(name);
+            if (shard != null) {
+                loadShard(shard, null);
+            }
+        }
+        return mergeLoadedShards();
+    }
+
+    /**
+     * Returns at once, as sharded storage writes each save on the calling thread.
+     */
+    @Override
+    public void flush() {
+    }
+}
@@ -1,29 +1,58 @@
 package tomato.storage;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.List;
 
 import tomato.TomatoException;
 import tomato.parser.Parser;
 import tomato.task.Task;
 
 /**
- * Handles loading and saving tasks from persistent storage.
+ * Handles loading and saving tasks in a single task file, optionally with a journal of changes next to it.
  */
-public class Storage {
+public class Storage implements TaskStorage {
     private static final int STORAGE_FIELD_SPLIT_LIMIT = 2;
     private static final String STORAGE_FIELD_SPLIT_REGEX = "\\|";
+    private static final String TASK_ID_MARKER = "@";
+    private static final String JOURNAL_FILE_SUFFIX = ".journal";
+    private static final int COMPACTION_RECORD_THRESHOLD = 1000;
+    private static final long COMPACTION_SIZE_THRESHOLD_BYTES = 1024 * 1024;
+    private static final String SAVING_FILE_SUFFIX = ".saving";
+    private static final String BACKUP_FILE_SUFFIX = ".bak";
+    private static final String QUARANTINE_FILE_SUFFIX = ".quarantine";
+    private static final byte NEWLINE = '\n';
+    private static final int FRAGMENT_PREVIEW_LENGTH = 40;
 
     private final Parser parser = new Parser();
     private File taskFile;
+    private Journal journal;
+    private Compactor compactor;
+    private GroupCommitWriter writer;
+    private RecordTable recordTable;
+    private long nextTaskId = Task.NO_ID + 1;
+    private boolean hasNewTaskIds;
+    private boolean isDeferringSaves;
+    private boolean hasDeferredChanges;
+    private ArrayList<String> deferredLines;
+    private volatile TaskFileFormat format = TaskFileFormat.TEXT;
+    private final BinaryTaskCodec binaryCodec = new BinaryTaskCodec();
+    private final ChunkedTaskLoader chunkedLoader = new ChunkedTaskLoader(this);
+    private final ArrayList<String> recoveryMessages = new ArrayList<>();
     private final String filePath;
+    private final boolean isJournalEnabled;
+    private boolean isNewTaskFile;
 
     /**
      * Creates a storage instance for the specified task file path.
@@ -31,8 +60,33 @@ public class Storage {
      * @param filePath string of file path to store the task file.
      */
     public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Creates a storage instance for the specified task file path, optionally in journal mode.
+     * In journal mode, each change is appended to a journal file next to the task file
+     * instead of rewriting the whole task file.
+     *
+     * @param filePath string of file path to store the task file.
+     * @param isJournalEnabled whether changes are appended to a journal.
+     */
+    public Storage(String filePath, boolean isJournalEnabled) {
         assert !filePath.isBlank() : "file path string must not be blank";
         this.filePath = filePath;
+        this.isJournalEnabled = isJournalEnabled;
+    }
+
+    /**
+     * Sets the task file used by this storage, along with its journal file and compactor.
+     *
+     * @param file Task file.
+     */
+    private void setTaskFile(File file) {
+        File journalFile = new File(file.getPath() + JOURNAL_FILE_SUFFIX);
+        taskFile = file;
+        journal = new Journal(journalFile);
+        compactor = new Compactor(this, file, journalFile);
     }
 
     /**
@@ -46,7 +100,7 @@ public class Storage {
         if (!isExists) {
             return false;
         }
-        taskFile = path.toFile();
+        setTaskFile(path.toFile());
         return true;
     }
 
@@ -67,38 +121,326 @@ public class Storage {
         if (!Files.exists(taskListPath)) {
             Files.createFile(taskListPath);
             System.out.println("Created file: " + taskListPath.toAbsolutePath() + " true");
+            isNewTaskFile = true;
         }
-        taskFile = taskListPath.toFile();
+        setTaskFile(taskListPath.toFile());
     }
 
     /**
-     * Returns tasks decoded from the given file scanner.
+     * Returns the storage line of the given task, prefixed with its ID if it has one.
      *
-     * @param fileScanner Scanner over the task file.
-     * @return List of decoded tasks.
-     * @throws TomatoException If a line cannot be decoded into a task.
+     * @param task Task to encode.
+     * @return Storage line e.g. "@3|T|1|read book".
+     */
+    static String encodeLine(Task task) {
+        if (task.getId() == Task.NO_ID) {
+            return task.toSave();
+        }
+        return TASK_ID_MARKER + task.getId() + "|" + task.toSave();
+    }
+
+    /**
+     * Returns a task decoded from a single storage line.
+     * Lines written before tasks had IDs have no ID prefix, and are decoded into tasks without an ID.
+     *
+     * @param data Storage line e.g. "@3|T|1|read book" or "T|1|read book".
+     * @return Decoded task.
+     * @throws TomatoException If the line cannot be decoded into a task.
      */
-    private ArrayList<Task> scanFile(Scanner fileScanner) throws TomatoException {
-        ArrayList<Task> tasks = new ArrayList<>();
-        while (fileScanner.hasNextLine()) {
-            String data = fileScanner.nextLine();
+    Task decodeLine(String data) throws TomatoException {
+        if (!data.startsWith(TASK_ID_MARKER)) {
             String[] args = data.split(STORAGE_FIELD_SPLIT_REGEX, STORAGE_FIELD_SPLIT_LIMIT);
-            tasks.add(parser.decodeTask(args));
+            return parser.decodeTask(args);
+        }
+
+        String[] idAndRecord = data.substring(TASK_ID_MARKER.length())
+                .split(STORAGE_FIELD_SPLIT_REGEX, STORAGE_FIELD_SPLIT_LIMIT);
+        long taskId;
+        try {
+            taskId = Long.parseLong(idAndRecord[0]);
+        } catch (NumberFormatException exception) {
+            throw new TomatoException("Invalid task ID: " + idAndRecord[0], idAndRecord[0]);
+        }
+        if (taskId <= Task.NO_ID || idAndRecord.length < STORAGE_FIELD_SPLIT_LIMIT) {
+            throw new TomatoException("Invalid task ID: " + idAndRecord[0], idAndRecord[0]);
+        }
+
+        Task task = decodeLine(idAndRecord[1]);
+        task.setId(taskId);
+        task.setClean();
+        return task;
+    }
+
+    /**
+     * Gives an ID to each of the given tasks that does not have one yet, e.g. tasks saved before tasks had IDs,
+     * after the largest ID in use, and returns the next ID to give.
+     *
+     * @param tasks Loaded tasks.
+     * @return next unused task ID.
+     */
+    static long giveMissingTaskIds(List<Task> tasks) {
+        long nextId = Task.NO_ID + 1;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : tasks) {
+            if (task.getId() == Task.NO_ID) {
+                task.setId(nextId++);
+            }
+        }
+        return nextId;
+    }
+
+    /**
+     * Gives an ID to each of the given tasks that does not have one yet, e.g. tasks saved before tasks had IDs,
+     * and sets the next ID to give after the largest ID in use.
+     *
+     * @param tasks Loaded tasks.
+     * @return true if any task was given an ID.
+     */
+    boolean assignTaskIds(List<Task> tasks) {
+        boolean isAnyMissing = false;
+        for (Task task : tasks) {
+            isAnyMissing |= task.getId() == Task.NO_ID;
+        }
+        nextTaskId = giveMissingTaskIds(tasks);
+        return isAnyMissing;
+    }
+
+    /**
+     * Returns a task decoded from a single task file line, after checking the line against its checksum.
+     *
+     * @param line Sealed or unsealed task file line e.g. "#1a2b3c4d|T|0|read book".
+     * @return Decoded task.
+     * @throws TomatoException If the line does not match its checksum or cannot be decoded into a task.
+     */
+    Task decodeSealedLine(String line) throws TomatoException {
+        return decodeLine(RecordChecksum.unseal(line));
+    }
+
+    /**
+     * Returns the format of the given task file, detected from its leading bytes.
+     *
+     * @param file Task file to check.
+     * @return detected task file format.
+     * @throws FileNotFoundException If file does not exist.
+     */
+    private TaskFileFormat detectFormat(File file) throws FileNotFoundException {
+        byte[] leadingBytes = new byte[BinaryTaskCodec.getMagicLength()];
+        int readCount;
+        try (FileInputStream fileStream = new FileInputStream(file)) {
+            readCount = fileStream.readNBytes(leadingBytes, 0, leadingBytes.length);
+        } catch (FileNotFoundException exception) {
+            throw exception;
+        } catch (IOException exception) {
+            return TaskFileFormat.TEXT;
+        }
+
+        boolean isBinary = readCount == leadingBytes.length && BinaryTaskCodec.isBinary(leadingBytes);
+        return isBinary ? TaskFileFormat.BINARY : TaskFileFormat.TEXT;
+    }
+
+    /**
+     * Returns a short, printable preview of a torn fragment for recovery messages.
+     *
+     * @param fragment Bytes of the torn fragment.
+     * @return fragment text, cut short if long.
+     */
+    static String previewFragment(byte[] fragment) {
+        String text = new String(fragment, StandardCharsets.UTF_8).strip();
+        if (text.length() > FRAGMENT_PREVIEW_LENGTH) {
+            return text.substring(0, FRAGMENT_PREVIEW_LENGTH) + "...";
+        }
+        return text;
+    }
+
+    /**
+     * Returns tasks decoded from the given text task file contents.
+     * Every save ends the file with a newline, so a last line without one may have been cut off by a crash
+     * during a save made before saves were atomic. Such a line is kept if it still decodes to a task, as the
+     * file may simply have been edited by hand, and is otherwise skipped and reported in the given messages.
+     *
+     * @param contents Text task file contents.
+     * @param messages List to add recovery messages into.
+     * @param quarantine Quarantine to move bad lines into, or null to stop at the first bad line.
+     * @return List of decoded tasks.
+     * @throws TomatoException If a complete line cannot be decoded into a task and there is no quarantine.
+     */
+    private ArrayList<Task> readTextTasks(ByteBuffer contents, List<String> messages, Quarantine quarantine)
+            throws TomatoException {
+        int limit = contents.limit();
+        int lastLineStart = limit;
+        while (lastLineStart > 0 && contents.get(lastLineStart - 1) != NEWLINE) {
+            lastLineStart--;
+        }
+        if (lastLineStart == limit) {
+            return chunkedLoader.load(contents, quarantine);
+        }
+
+        ArrayList<Task> tasks = chunkedLoader.load(contents.duplicate().limit(lastLineStart), quarantine);
+        byte[] lastLine = new byte[limit - lastLineStart];
+        contents.duplicate().position(lastLineStart).get(lastLine);
+        String lastLineText = new String(lastLine, StandardCharsets.UTF_8).strip();
+        if (lastLineText.isEmpty()) {
+            return tasks;
+        }
+
+        try {
+            tasks.add(decodeSealedLine(lastLineText));
+        } catch (TomatoException exception) {
+            messages.add("Skipped a task cut off by an interrupted save: " + previewFragment(lastLine));
         }
         return tasks;
     }
 
+    /**
+     * Returns the contents of the given task file, read into memory.
+     * The file is read rather than memory-mapped, as a mapping keeps the file open on some platforms,
+     * e.g. Windows, until it is garbage collected, and would then stop a save from replacing the file.
+     *
+     * @param file Task file to read.
+     * @return task file contents.
+     * @throws TomatoException If the file is too large or cannot be read.
+     */
+    private ByteBuffer readContents(File file) throws TomatoException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new TomatoException("Task file is too large to load!");
+            }
+
+            ByteBuffer contents = ByteBuffer.allocate((int) channel.size());
+            while (contents.hasRemaining() && channel.read(contents) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            return contents.flip();
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to read task file.");
+        }
+    }
+
+    /**
+     * Returns tasks decoded from the given task file contents, in either task file format.
+     *
+     * @param contents Task file contents.
+     * @param fileFormat Format of the task file.
+     * @param messages List to add recovery messages into, e.g. for a torn last line.
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
+     * @return List of decoded tasks.
+     * @throws TomatoException If a record cannot be decoded into a task and there is no quarantine.
+     */
+    private ArrayList<Task> decodeContents(ByteBuffer contents, TaskFileFormat fileFormat, List<String> messages,
+            Quarantine quarantine) throws TomatoException {
+        if (fileFormat == TaskFileFormat.BINARY) {
+            return new BinaryTaskCodec().decode(contents.duplicate(), quarantine);
+        }
+        return readTextTasks(contents, messages, quarantine);
+    }
+
+    /**
+     * Returns tasks decoded from the given task file, in either task file format.
+     * Text task files are decoded in parallel chunks.
+     *
+     * @param file Task file to read.
+     * @param messages List to add recovery messages into, e.g. for a torn last line.
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
+     * @return List of decoded tasks.
+     * @throws FileNotFoundException If file does not exist.
+     * @throws TomatoException If a record cannot be decoded into a task and there is no quarantine.
+     */
+    ArrayList<Task> readTaskFile(File file, List<String> messages, Quarantine quarantine)
+            throws FileNotFoundException, TomatoException {
+        TaskFileFormat fileFormat = detectFormat(file);
+        return decodeContents(readContents(file), fileFormat, messages, quarantine);
+    }
+
+    /**
+     * Returns tasks decoded from the given task file, in either task file format, ignoring recovery messages.
+     *
+     * @param file Task file to read.
+     * @return List of decoded tasks.
+     * @throws FileNotFoundException If file does not exist.
+     * @throws TomatoException If a line cannot be decoded into a task.
+     */
+    ArrayList<Task> readTaskFile(File file) throws FileNotFoundException, TomatoException {
+        return readTaskFile(file, new ArrayList<>(), null);
+    }
+
+    /**
+     * Deletes a temporary file left by a save that was interrupted before it replaced the task file.
+     * The task file itself still holds the previous save, as saves only replace it once fully written.
+     *
+     * @throws TomatoException If the temporary file cannot be deleted.
+     */
+    private void discardInterruptedSave() throws TomatoException {
+        try {
+            if (Files.deleteIfExists(getSavingFile(taskFile).toPath())) {
+                recoveryMessages.add("Discarded an unfinished save, the task file was kept as last saved.");
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to remove unfinished save.");
+        }
+    }
+
+    /**
+     * Drops a journal record cut off by an interrupted append, and reports it.
+     *
+     * @param journalToCheck Journal to check.
+     * @throws TomatoException If the journal cannot be truncated.
+     */
+    private void dropTornRecord(Journal journalToCheck) throws TomatoException {
+        try {
+            byte[] tornRecord = journalToCheck.dropTornRecord();
+            if (tornRecord != null) {
+                recoveryMessages.add("Dropped a change cut off by an interrupted save: " + previewFragment(tornRecord));
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to repair journal file.");
+        }
+    }
+
     /**
      * Returns tasks decoded from the currently loaded task file.
+     * In journal mode, any journal left by an unfinished compaction and then the journal
+     * are replayed over the loaded snapshot.
+     * Files left torn by an interrupted save are repaired first, see {@link #getRecoveryMessages()}.
      *
+     * @param quarantine Quarantine to move bad records into, or null to stop at the first bad record.
      * @return Arraylist of tasks.
      * @throws FileNotFoundException If file does not exist.
      * @throws TomatoException If unable to create task file or load tasks from file.
      * or If an error occurred from parsing the task file or if unable to create task object.
      */
-    private ArrayList<Task> loadTasks() throws FileNotFoundException, TomatoException {
-        Scanner fileScanner = new Scanner(taskFile);
-        return scanFile(fileScanner);
+    private ArrayList<Task> loadTasks(Quarantine quarantine) throws FileNotFoundException, TomatoException {
+        recoveryMessages.clear();
+        discardInterruptedSave();
+        format = detectFormat(taskFile);
+        if (!isJournalEnabled) {
+            ByteBuffer contents = readContents(taskFile);
+            ArrayList<Task> tasks = decodeContents(contents, format, recoveryMessages, quarantine);
+            if (isPatchable()) {
+                indexRecords(contents, tasks);
+            }
+            // tasks given an ID are left dirty, so that the next save patches their records
+            hasNewTaskIds = assignTaskIds(tasks);
+            return tasks;
+        }
+
+        try {
+            compactor.recover();
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to recover task file from compaction.");
+        }
+
+        ArrayList<Task> tasks = readTaskFile(taskFile, recoveryMessages, quarantine);
+        // journal records refer to tasks by ID, so the snapshot's tasks need theirs before the replay
+        hasNewTaskIds = assignTaskIds(tasks);
+        Journal compactingJournal = new Journal(compactor.getCompactingFile());
+        dropTornRecord(compactingJournal);
+        compactingJournal.replay(tasks, this, quarantine);
+        dropTornRecord(journal);
+        journal.replay(tasks, this, quarantine);
+        hasNewTaskIds |= assignTaskIds(tasks);
+        return tasks;
     }
 
     /**
@@ -113,7 +455,7 @@ public class Storage {
     public ArrayList<Task> load() throws FileNotFoundException, TomatoException {
         if (isTaskFileLoaded()) {
             assert taskFile != null : "task file should not be null here";
-            return loadTasks();
+            return loadTasks(null);
         }
 
         try {
@@ -126,32 +468,535 @@ public class Storage {
     }
 
     /**
-     * Writes the given task list to the currently loaded task file.
+     * Returns an arraylist of tasks loaded from the stored task file, skipping corrupted records.
+     * Records that fail their checksum or cannot be decoded are moved into a quarantine file next to the task file
+     * and reported in {@link #getRecoveryMessages()}, and the task file is rewritten without them.
+     * A journal record that cannot be applied is quarantined along with every record after it,
+     * as the later records may refer to the tasks it changed.
      *
-     * @param tasks List of tasks to write.
-     * @throws IOException If an input output error occurs while writing.
+     * @return arraylist of tasks.
+     * @throws FileNotFoundException If file does not exist.
+     * @throws TomatoException If the task file is missing, its header is unreadable,
+     *     or the quarantine or rewritten task file cannot be saved.
+     */
+    @Override
+    public ArrayList<Task> loadVerified() throws FileNotFoundException, TomatoException {
+        if (!isTaskFileLoaded()) {
+            return load();
+        }
+
+        Quarantine quarantine = new Quarantine(new File(taskFile.getPath() + QUARANTINE_FILE_SUFFIX));
+        ArrayList<Task> tasks = loadTasks(quarantine);
+        if (quarantine.getRecordCount() == 0) {
+            if (hasNewTaskIds) {
+                writeFullSave(tasks);
+            }
+            return tasks;
+        }
+
+        try {
+            quarantine.writeToDisk();
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to quarantine file.");
+        }
+        recoveryMessages.add("Moved " + quarantine.getRecordCount() + " corrupted records to "
+                + quarantine.getFile().getPath() + ".");
+        writeFullSave(tasks);
+        return tasks;
+    }
+
+    /**
+     * Returns the problems found and repaired in the task file and journal by the last load,
+     * e.g. a task cut off by a crash during a save.
+     *
+     * @return recovery messages, empty if the files were intact.
+     */
+    @Override
+    public ArrayList<String> getRecoveryMessages() {
+        return new ArrayList<>(recoveryMessages);
+    }
+
+    /**
+     * Returns whether the last load found no task file and created a new, empty one.
+     *
+     * @return true if the task file was created by the last load.
+     */
+    @Override
+    public boolean isNewTaskFile() {
+        return isNewTaskFile;
+    }
+
+    /**
+     * Copies the task file and its journals aside as backups and starts a new, empty task file,
+     * e.g. when the task file cannot be loaded and would otherwise be overwritten by the next save.
+     *
+     * @return path of the backed up task file.
+     * @throws TomatoException If the files cannot be backed up or the task file cannot be reset.
+     */
+    @Override
+    public String backUpAndReset() throws TomatoException {
+        assert taskFile != null : "task file should not be null";
+        File backupFile = new File(taskFile.getPath() + BACKUP_FILE_SUFFIX);
+        File[] files = {taskFile, journal.getFile(), compactor.getCompactingFile()};
+        try {
+            for (File file : files) {
+                if (file.exists()) {
+                    Files.copy(file.toPath(), Paths.get(file.getPath() + BACKUP_FILE_SUFFIX),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to back up task file.");
+        }
+
+        writeFullSave(new ArrayList<>());
+        return backupFile.getPath();
+    }
+
+    /**
+     * Returns a memory-mapped, lazily decoded view of the task file, for reading large task files
+     * without decoding every task up front.
+     * The view holds the task file as last fully saved, without the changes in the journal.
+     * On some platforms, e.g. Windows, the mapping stops saves from replacing the task file until the view is
+     * garbage collected, so the view should not be kept across saves.
+     *
+     * @return mapped view of the task file.
+     * @throws TomatoException If the task file is missing or cannot be mapped.
+     */
+    public MappedTaskFile openMapped() throws TomatoException {
+        if (!isTaskFileLoaded()) {
+            throw new TomatoException("Missing task file!");
+        }
+
+        try {
+            return new MappedTaskFile(taskFile, detectFormat(taskFile), this);
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to map task file.");
+        }
+    }
+
+    /**
+     * Returns whether the journal holds changes that are not yet in the task file, e.g. ones that a mapped view
+     * of the task file does not show.
+     *
+     * @return true if the journal is not empty.
      */
-    private void writeToFile(ArrayList<Task> tasks) throws IOException {
-        FileWriter taskWriter = new FileWriter(taskFile);
+    public boolean hasJournalChanges() {
+        return journal != null && journal.getSizeInBytes() > 0;
+    }
+
+    /**
+     * Returns the format that full saves are written in.
+     *
+     * @return task file format.
+     */
+    public TaskFileFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the given tasks encoded as task file contents in the current format, each record with its checksum.
+     *
+     * @param tasks List of tasks.
+     * @return task file contents.
+     */
+    byte[] encodeSnapshot(List<Task> tasks) {
+        if (format == TaskFileFormat.BINARY) {
+            return binaryCodec.encode(tasks);
+        }
+
+        StringBuilder taskBlock = new StringBuilder();
         for (Task task : tasks) {
-            taskWriter.write(task.toSave() + "\n");
+            taskBlock.append(RecordChecksum.seal(encodeLine(task))).append("\n");
+        }
+        return taskBlock.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the temporary file that a save of the given file is written into before it replaces the file.
+     *
+     * @param file File being saved.
+     * @return temporary save file next to the given file.
+     */
+    static File getSavingFile(File file) {
+        return new File(file.getPath() + SAVING_FILE_SUFFIX);
+    }
+
+    /**
+     * Writes the given contents into the given file and forces them to disk.
+     *
+     * @param file File to write, created or truncated first.
+     * @param contents Contents to write.
+     * @throws IOException If an input output error occurs while writing.
+     */
+    static void writeAndForce(File file, byte[] contents) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(contents);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces the directory entries of the given file's directory to disk, so that a rename into it survives a crash.
+     * Not every platform can open a directory, in which case the rename is left to the file system.
+     *
+     * @param file File whose directory to force.
+     */
+    static void forceDirectory(File file) {
+        File directory = file.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException exception) {
+            // directories cannot be opened as channels on some platforms, e.g. Windows
+        }
+    }
+
+    /**
+     * Replaces the given file with the given contents atomically.
+     * The contents are written and forced into a temporary file next to it, which is then renamed over it,
+     * so a crash at any point leaves either the old file or the new file, never a torn one.
+     *
+     * @param file File to replace.
+     * @param contents New contents of the file.
+     * @throws IOException If an input output error occurs while writing or renaming.
+     */
+    static void replaceAtomically(File file, byte[] contents) throws IOException {
+        File savingFile = getSavingFile(file);
+        writeAndForce(savingFile, contents);
+        Files.move(savingFile.toPath(), file.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(file);
+    }
+
+    /**
+     * Writes a full save, then patches of changed records and then appends journal records, on the calling thread.
+     * In journal mode, a full save waits for any running compaction and clears the journals,
+     * as the task file then holds every change.
+     *
+     * @param snapshot Encoded task file contents, or null if there is no full save to write.
+     * @param patches Record patches to write after the full save, in the order they were planned.
+     * @param journalRecords Journal records to append after the full save.
+     * @throws TomatoException If writing to storage fails.
+     */
+    void writeNow(byte[] snapshot, List<RecordTable.Patch> patches, List<String> journalRecords)
+            throws TomatoException {
+        if (snapshot != null) {
+            writeSnapshotNow(snapshot);
+        }
+        try {
+            for (RecordTable.Patch patch : patches) {
+                patch.write();
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to file.");
+        }
+        if (journalRecords.isEmpty()) {
+            return;
+        }
+
+        assert isJournalEnabled : "journal records should only be written in journal mode";
+        try {
+            journal.appendRecords(journalRecords);
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to journal file.");
+        }
+        compactJournalIfNeeded();
+    }
+
+    /**
+     * Writes a full save on the calling thread.
+     * In journal mode, the compactor swaps it in and deletes the journals it holds, so that a crash part way
+     * through never replays them over the new snapshot.
+     *
+     * @param snapshot Encoded task file contents.
+     * @throws TomatoException If writing to storage fails.
+     */
+    private void writeSnapshotNow(byte[] snapshot) throws TomatoException {
+        try {
+            if (isJournalEnabled) {
+                compactor.awaitCompletion();
+                compactor.replaceSnapshot(snapshot, journal);
+            } else {
+                replaceAtomically(taskFile, snapshot);
+            }
+        } catch (IOException exception) {
+            throw new TomatoException("IO error, unable to write to file.");
         }
-        taskWriter.close();
     }
 
+    /**
+     * Starts writing saves through a background writer instead of on the calling thread.
+     *
+     * @param durability How soon saves are forced to disk.
+     * @param batchIntervalMillis Time to collect saves for before writing them, in batched mode.
+     */
+    public void startWriteBehind(Durability durability, long batchIntervalMillis) {
+        assert writer == null : "write-behind should only be started once";
+        writer = new GroupCommitWriter(this, durability, batchIntervalMillis);
+    }
+
+    /**
+     * Waits until every save made so far has been written to disk.
+     *
+     * @throws TomatoException If a save could not be written.
+     */
+    @Override
+    public void flush() throws TomatoException {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Returns whether saves can patch the changed records of the task file in place.
+     * Only text task files without a journal are patched, either on the calling thread or through the background
+     * writer, which writes patches in the order they were planned.
+     */
+    private boolean isPatchable() {
+        return !isJournalEnabled && format == TaskFileFormat.TEXT;
+    }
+
+    /**
+     * Indexes where each of the given tasks' records lies in the task file contents, for later patching.
+     *
+     * @param contents Task file contents the tasks were loaded from or saved as.
+     * @param tasks Tasks in the task file, in order.
+     */
+    private void indexRecords(ByteBuffer contents, List<Task> tasks) {
+        recordTable = isPatchable() ? RecordTable.index(taskFile, contents, tasks) : null;
+    }
+
+    /**
+     * Writes the whole task list into the task file on the calling thread.
+     *
+     * @param tasks Array list of Task objects.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    private void writeFullSave(List<Task> tasks) throws TomatoException {
+        byte[] snapshot = encodeSnapshot(tasks);
+        writeNow(snapshot, List.of(), List.of());
+        indexRecords(ByteBuffer.wrap(snapshot), tasks);
+    }
 
     /**
      * Saves the given task list into storage.
+     * Without a journal, only the records of changed, added and deleted tasks are rewritten where possible.
+     * With a background writer, the save is queued and written later.
+     *
+     * @param tasks Array list of Task objects.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    @Override
+    public void saveToDisk(List<Task> tasks) throws TomatoException {
+        if (isDeferringSaves) {
+            hasDeferredChanges = true;
+            return;
+        }
+        saveTasks(tasks);
+        checkCompaction();
+    }
+
+    /**
+     * Holds back every save until {@link #saveDeferred(List)} is called, e.g. while running a script of
+     * commands as one unit. Nothing is written, though the task list itself keeps every change.
+     * The given tasks are remembered, so that {@link #discardDeferred()} can give them back.
+     *
+     * @param tasks Array list of Task objects before any held-back change.
+     */
+    @Override
+    public void deferSaves(List<Task> tasks) {
+        deferredLines = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            deferredLines.add(encodeLine(task));
+        }
+        isDeferringSaves = true;
+    }
+
+    /**
+     * Returns whether saves are being held back, see {@link #deferSaves(List)}.
+     *
+     * @return true if saves are deferred.
+     */
+    boolean isDeferringSaves() {
+        return isDeferringSaves;
+    }
+
+    /**
+     * Writes the changes held back since {@link #deferSaves(List)} as a single full save, and saves each
+     * change again from then on.
+     *
+     * @param tasks Array list of Task objects after every held-back change.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    @Override
+    public void saveDeferred(List<Task> tasks) throws TomatoException {
+        assert isDeferringSaves : "saves should be deferred first";
+        isDeferringSaves = false;
+        deferredLines = null;
+        if (hasDeferredChanges) {
+            hasDeferredChanges = false;
+            saveTasks(tasks);
+        }
+    }
+
+    /**
+     * Drops the changes held back since {@link #deferSaves(List)} without writing them, e.g. when a command
+     * in a script fails, and saves each change again from then on.
+     *
+     * @return Array list of Task objects as they were when saves were deferred.
+     * @throws TomatoException If a remembered task cannot be decoded.
+     */
+    @Override
+    public ArrayList<Task> discardDeferred() throws TomatoException {
+        assert isDeferringSaves : "saves should be deferred first";
+        ArrayList<Task> tasks = new ArrayList<>(deferredLines.size());
+        for (String line : deferredLines) {
+            tasks.add(decodeLine(line));
+        }
+
+        isDeferringSaves = false;
+        hasDeferredChanges = false;
+        deferredLines = null;
+        // the patch table tracks the tasks that were dropped, so the next save is a full save
+        recordTable = null;
+        return tasks;
+    }
+
+    /**
+     * Saves the given task list into storage, patching or queueing the save where possible.
      *
      * @param tasks Array list of Task objects.
      * @throws TomatoException If writing tasks to storage fails.
      */
-    public void saveToDisk(ArrayList<Task> tasks) throws TomatoException {
+    private void saveTasks(List<Task> tasks) throws TomatoException {
         assert taskFile != null : "task file should not be null";
+        RecordTable.Patch patch = recordTable != null && isPatchable() ? recordTable.plan(tasks) : null;
+        if (patch != null && writer != null) {
+            writer.queuePatch(patch);
+            return;
+        } else if (patch != null) {
+            try {
+                patch.write();
+                return;
+            } catch (IOException exception) {
+                recordTable = null;
+                throw new TomatoException("IO error, unable to write to file.");
+            }
+        }
+
+        if (writer != null) {
+            byte[] snapshot = encodeSnapshot(tasks);
+            writer.queueSnapshot(snapshot);
+            // later patches are planned against the task file as this full save leaves it
+            indexRecords(ByteBuffer.wrap(snapshot), tasks);
+            return;
+        }
+        writeFullSave(tasks);
+    }
+
+    /**
+     * Loads the task file and writes it back in the given format, e.g. to convert a text task file to binary.
+     * Later full saves keep using the given format.
+     *
+     * @param targetFormat Format to convert the task file into.
+     * @throws FileNotFoundException If file does not exist.
+     * @throws TomatoException If the task file cannot be loaded or written.
+     */
+    public void convertTo(TaskFileFormat targetFormat) throws FileNotFoundException, TomatoException {
+        ArrayList<Task> tasks = load();
+        format = targetFormat;
+        saveToDisk(tasks);
+        flush();
+    }
+
+    /**
+     * Saves the same change made to many tasks of the given task list into storage.
+     * In journal mode, a record of each change is appended, all in a single write; otherwise the whole task list
+     * is saved once.
+     *
+     * @param tasks Array list of Task objects after the changes.
+     * @param operation Change made to each task.
+     * @param changedTasks Changed tasks, which a delete has already removed from the list.
+     * @throws TomatoException If writing the changes to storage fails.
+     */
+    @Override
+    public void saveChanges(List<Task> tasks, Journal.Operation operation, List<Task> changedTasks)
+            throws TomatoException {
+        for (Task task : changedTasks) {
+            trackChange(operation, task);
+        }
+        if (isDeferringSaves) {
+            hasDeferredChanges = true;
+            return;
+        }
+        if (!isJournalEnabled) {
+            saveTasks(tasks);
+            return;
+        }
+
+        assert journal != null : "journal should not be null";
+        ArrayList<String> journalRecords = new ArrayList<>();
+        for (Task task : changedTasks) {
+            journalRecords.add(Journal.encodeRecord(operation, task));
+        }
+        if (writer != null) {
+            writer.queueJournalRecords(journalRecords);
+        } else {
+            writeNow(null, List.of(), journalRecords);
+        }
+        checkCompaction();
+    }
+
+    /**
+     * Reports a failed background compaction to the save that follows it, once that save has been made.
+     * The failure is raised on the calling thread rather than through the write-behind writer,
+     * as the journal still holds every change and later saves are unaffected.
+     *
+     * @throws TomatoException If a compaction failed since the last save.
+     */
+    private void checkCompaction() throws TomatoException {
+        if (isJournalEnabled && compactor != null) {
+            compactor.checkFailure();
+        }
+    }
+
+    /**
+     * Gives an added task its ID, if it has none yet, and keeps later IDs clear of it.
+     *
+     * @param operation Change made to the task list.
+     * @param task Changed task.
+     */
+    void trackChange(Journal.Operation operation, Task task) {
+        if (operation != Journal.Operation.ADD) {
+            return;
+        }
+        if (task.getId() == Task.NO_ID) {
+            task.setId(nextTaskId);
+        }
+        nextTaskId = Math.max(nextTaskId, task.getId() + 1);
+    }
+
+    /**
+     * Starts a background compaction of the journal into the task file once the journal
+     * grows past its record count or size threshold.
+     *
+     * @throws TomatoException If the journal cannot be moved aside for compaction.
+     */
+    private void compactJournalIfNeeded() throws TomatoException {
+        boolean isJournalFull = journal.getRecordCount() >= COMPACTION_RECORD_THRESHOLD
+                || journal.getSizeInBytes() >= COMPACTION_SIZE_THRESHOLD_BYTES;
+        if (!isJournalFull || compactor.isCompacting()) {
+            return;
+        }
+
         try {
-            writeToFile(tasks);
+            compactor.start(journal);
         } catch (IOException exception) {
-            throw new TomatoException("IO error, unable to write to file.");
+            throw new TomatoException("IO error, unable to compact journal file.");
         }
     }
 }
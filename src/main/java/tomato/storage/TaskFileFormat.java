@@ -0,0 +1,11 @@
+package tomato.storage;
+
+/**
+ * Represents the formats a task file can be stored in.
+ */
+public enum TaskFileFormat {
+    /** One line per task, as written by {@link tomato.task.Task#toSave()}. */
+    TEXT,
+    /** Compact binary records, as written by {@link BinaryTaskCodec}. */
+    BINARY
+}
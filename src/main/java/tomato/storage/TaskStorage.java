@@ -0,0 +1,107 @@
+package tomato.storage;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import tomato.TomatoException;
+import tomato.task.Task;
+
+/**
+ * Represents where the task list is loaded from and saved into, e.g. a single task file or a directory of shards.
+ */
+public interface TaskStorage {
+    /**
+     * Returns the saved tasks, moving corrupted records aside rather than failing the load.
+     *
+     * @return arraylist of tasks.
+     * @throws FileNotFoundException If the task file does not exist.
+     * @throws TomatoException If the tasks cannot be loaded or the repairs cannot be saved.
+     */
+    ArrayList<Task> loadVerified() throws FileNotFoundException, TomatoException;
+
+    /**
+     * Returns the problems found and repaired by the last load.
+     *
+     * @return recovery messages, empty if the saved tasks were intact.
+     */
+    ArrayList<String> getRecoveryMessages();
+
+    /**
+     * Returns whether the last load found nothing saved and started afresh.
+     *
+     * @return true if the last load created the storage.
+     */
+    boolean isNewTaskFile();
+
+    /**
+     * Moves the saved tasks aside as a backup and starts again with an empty list,
+     * e.g. when they cannot be loaded and would otherwise be overwritten by the next save.
+     *
+     * @return path of the backup.
+     * @throws TomatoException If the tasks cannot be backed up or the storage cannot be reset.
+     */
+    String backUpAndReset() throws TomatoException;
+
+    /**
+     * Saves the given task list.
+     *
+     * @param tasks Array list of Task objects.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    void saveToDisk(List<Task> tasks) throws TomatoException;
+
+    /**
+     * Saves a single change to the given task list.
+     *
+     * @param tasks Array list of Task objects after the change.
+     * @param operation Change made to the task list.
+     * @param task Changed task, which a delete has already removed from the list.
+     * @throws TomatoException If writing the change to storage fails.
+     */
+    default void saveChange(List<Task> tasks, Journal.Operation operation, Task task) throws TomatoException {
+        saveChanges(tasks, operation, List.of(task));
+    }
+
+    /**
+     * Saves the same change made to many tasks of the given task list.
+     *
+     * @param tasks Array list of Task objects after the changes.
+     * @param operation Change made to each task.
+     * @param changedTasks Changed tasks, which a delete has already removed from the list.
+     * @throws TomatoException If writing the changes to storage fails.
+     */
+    void saveChanges(List<Task> tasks, Journal.Operation operation, List<Task> changedTasks) throws TomatoException;
+
+    /**
+     * Holds back every save until {@link #saveDeferred(List)} is called, e.g. while running a script of
+     * commands as one unit.
+     *
+     * @param tasks Array list of Task objects before any held-back change.
+     */
+    void deferSaves(List<Task> tasks);
+
+    /**
+     * Writes the changes held back since {@link #deferSaves(List)}, and saves each change again from then on.
+     *
+     * @param tasks Array list of Task objects after every held-back change.
+     * @throws TomatoException If writing tasks to storage fails.
+     */
+    void saveDeferred(List<Task> tasks) throws TomatoException;
+
+    /**
+     * Drops the changes held back since {@link #deferSaves(List)} without writing them, and saves each change
+     * again from then on.
+     *
+     * @return Array list of Task objects as they were when saves were deferred.
+     * @throws TomatoException If the tasks as they were cannot be restored.
+     */
+    ArrayList<Task> discardDeferred() throws TomatoException;
+
+    /**
+     * Waits until every save made so far has been written to disk.
+     *
+     * @throws TomatoException If a save could not be written.
+     */
+    void flush() throws TomatoException;
+}
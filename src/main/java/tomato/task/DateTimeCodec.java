@@ -0,0 +1,138 @@
+package tomato.task;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Reads and writes the date-times of tasks.
+ * <p>
+ * Date-times are typed as "d/M/yyyy HHmm" and stored as ISO "yyyy-MM-ddTHH:mm", so these two shapes are read
+ * digit by digit, without a formatter and without throwing. Any other text, e.g. an ISO date-time with seconds
+ * or a date that does not exist, is left to the formatters, which are built once and shared, as they are
+ * immutable and safe to use from several threads.
+ */
+public class DateTimeCodec {
+    private static final String INPUT_PATTERN = "d/M/yyyy HHmm";
+    private static final String DISPLAY_PATTERN = "MMM d yyyy h:mma";
+    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern(INPUT_PATTERN);
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern(DISPLAY_PATTERN);
+    private static final int ISO_LENGTH = "yyyy-MM-ddTHH:mm".length();
+    private static final int NOT_A_NUMBER = -1;
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * Returns the number written in the given range of the text, which must hold only ASCII digits.
+     *
+     * @return parsed number, or -1 if the range is empty or holds anything else.
+     */
+    private static int parseDigits(String text, int start, int end) {
+        if (start >= end) {
+            return NOT_A_NUMBER;
+        }
+
+        int value = 0;
+        for (int position = start; position < end; position++) {
+            char c = text.charAt(position);
+            if (c < '0' || c > '9') {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Returns the date-time with the given fields, or null if any field is out of range.
+     */
+    private static LocalDateTime toDateTime(int year, int month, int day, int hour, int minute) {
+        boolean isValidTime = hour >= 0 && hour < 24 && minute >= 0 && minute < 60;
+        boolean isValidMonth = year >= 0 && month >= 1 && month <= 12;
+        if (!isValidTime || !isValidMonth || day < 1 || day > YearMonth.of(year, month).lengthOfMonth()) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute);
+    }
+
+    /**
+     * Returns the date-time written as "d/M/yyyy HHmm", e.g. "2/10/2025 1900".
+     *
+     * @return parsed date-time, or null if the text has another shape.
+     */
+    private static LocalDateTime parseInput(String text) {
+        int firstSlash = text.indexOf('/');
+        int secondSlash = firstSlash < 0 ? -1 : text.indexOf('/', firstSlash + 1);
+        int space = secondSlash < 0 ? -1 : text.indexOf(' ', secondSlash + 1);
+        if (space < 0 || firstSlash > 2 || secondSlash - firstSlash > 3 || space - secondSlash != 5
+                || text.length() - space != 5) {
+            return null;
+        }
+
+        int day = parseDigits(text, 0, firstSlash);
+        int month = parseDigits(text, firstSlash + 1, secondSlash);
+        int year = parseDigits(text, secondSlash + 1, space);
+        int hour = parseDigits(text, space + 1, space + 3);
+        int minute = parseDigits(text, space + 3, text.length());
+        return year < 1 ? null : toDateTime(year, month, day, hour, minute);
+    }
+
+    /**
+     * Returns the date-time written as "yyyy-MM-ddTHH:mm", e.g. "2025-10-02T19:00".
+     *
+     * @return parsed date-time, or null if the text has another shape.
+     */
+    private static LocalDateTime parseIso(String text) {
+        if (text.length() != ISO_LENGTH || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != 'T' || text.charAt(13) != ':') {
+            return null;
+        }
+
+        int year = parseDigits(text, 0, 4);
+        int month = parseDigits(text, 5, 7);
+        int day = parseDigits(text, 8, 10);
+        int hour = parseDigits(text, 11, 13);
+        int minute = parseDigits(text, 14, 16);
+        return toDateTime(year, month, day, hour, minute);
+    }
+
+    /**
+     * Returns the date-time written in the given text, as typed by the user or as stored.
+     *
+     * @param text Date-time as "d/M/yyyy HHmm" or in ISO format, without surrounding whitespace.
+     * @return parsed date-time, or null if the text is not a valid date-time.
+     */
+    public static LocalDateTime parse(String text) {
+        LocalDateTime dateTime = parseInput(text);
+        if (dateTime == null) {
+            dateTime = parseIso(text);
+        }
+        if (dateTime != null) {
+            return dateTime;
+        }
+
+        try {
+            return LocalDateTime.parse(text, INPUT_FORMATTER);
+        } catch (DateTimeException exception) {
+            // move on and try the ISO format
+        }
+
+        try {
+            return LocalDateTime.parse(text);
+        } catch (DateTimeException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the given date-time as shown to the user, e.g. "Oct 2 2025 7:00PM".
+     *
+     * @param dateTime Date-time to show.
+     * @return display string.
+     */
+    public static String format(LocalDateTime dateTime) {
+        return dateTime.format(DISPLAY_FORMATTER);
+    }
+}
@@ -1,7 +1,6 @@
 package tomato.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a deadline task.
@@ -34,6 +33,15 @@ public class Deadline extends Task {
         this.by = by;
     }
 
+    /**
+     * Returns the due date-time of this deadline task.
+     *
+     * @return due date-time.
+     */
+    public LocalDateTime getDateTimeBy() {
+        return by;
+    }
+
     /**
      * Sets the due date-time of this deadline task.
      *
@@ -41,12 +49,13 @@ public class Deadline extends Task {
      */
     public void setDateTimeBy(LocalDateTime by) {
         this.by = by;
+        isDirty = true;
     }
 
     @Override
     public String toString() {
         return "[D]" + super.toString() + " (by: " +
-                by.format(DateTimeFormatter.ofPattern("MMM d yyyy h:mma"))+ ")";
+                DateTimeCodec.format(by) + ")";
     }
 
     /**
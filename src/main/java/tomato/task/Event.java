@@ -1,7 +1,6 @@
 package tomato.task;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Represents an event task.
@@ -41,6 +40,24 @@ public class Event extends Task {
         this.to = to;
     }
 
+    /**
+     * Returns the start date-time of this event task.
+     *
+     * @return start date-time.
+     */
+    public LocalDateTime getDateTimeFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end date-time of this event task.
+     *
+     * @return end date-time.
+     */
+    public LocalDateTime getDateTimeTo() {
+        return to;
+    }
+
     /**
      * Sets the start date-time of this event task.
      *
@@ -48,6 +65,7 @@ public class Event extends Task {
      */
     public void setDateTimeFrom(LocalDateTime from) {
         this.from = from;
+        isDirty = true;
     }
 
     /**
@@ -57,13 +75,14 @@ public class Event extends Task {
      */
     public void setDateTimeTo(LocalDateTime to) {
         this.to = to;
+        isDirty = true;
     }
 
     @Override
     public String toString() {
         return "[E]" + super.toString() +
-                " (from: " + from.format(DateTimeFormatter.ofPattern("MMM d yyyy h:mma")) +
-                " to: " + to.format(DateTimeFormatter.ofPattern("MMM d yyyy h:mma")) + ")";
+                " (from: " + DateTimeCodec.format(from) +
+                " to: " + DateTimeCodec.format(to) + ")";
     }
 
     /**
@@ -4,8 +4,12 @@ package tomato.task;
  * Represents a task with a description and completion status.
  */
 public class Task {
+    public static final long NO_ID = 0;
+
     protected String description;
     protected boolean isDone;
+    protected boolean isDirty;
+    private long id = NO_ID;
 
     /**
      * Creates a task with the specified description.
@@ -43,11 +47,30 @@ public class Task {
         return (isDone ? "X" : " ");
     }
 
+    /**
+     * Returns the description of this task.
+     *
+     * @return task description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns whether this task is done.
+     *
+     * @return true if this task is done.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
     /**
      * Sets this task as done.
      */
     public void setDone() {
         isDone = true;
+        isDirty = true;
     }
 
     /**
@@ -55,6 +78,7 @@ public class Task {
      */
     public void setNotDone() {
         isDone = false;
+        isDirty = true;
     }
 
     /**
@@ -66,6 +90,43 @@ public class Task {
         assert description != null : "Description should not be null";
         assert !description.isBlank() : "Description should not be blank";
         this.description = description;
+        isDirty = true;
+    }
+
+    /**
+     * Returns the stable ID of this task, which does not change when other tasks are added or deleted.
+     *
+     * @return task ID, or {@link #NO_ID} if none has been given yet.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the stable ID of this task.
+     *
+     * @param id Positive task ID.
+     */
+    public void setId(long id) {
+        assert id > NO_ID : "task ID should be positive";
+        this.id = id;
+        isDirty = true;
+    }
+
+    /**
+     * Returns whether this task has changed since it was last saved.
+     *
+     * @return true if this task has unsaved changes.
+     */
+    public boolean isDirty() {
+        return isDirty;
+    }
+
+    /**
+     * Sets this task as saved, clearing its unsaved changes.
+     */
+    public void setClean() {
+        isDirty = false;
     }
 
     @Override
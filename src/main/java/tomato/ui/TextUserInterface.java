@@ -0,0 +1,55 @@
+package tomato.ui;
+
+import java.io.PrintWriter;
+
+/**
+ * Handles UI output for Tomato as plain text, e.g. when running a script of commands.
+ * Output is written to the given writer and only reaches its destination when the writer is flushed.
+ */
+public class TextUserInterface extends UserInterface {
+    private final PrintWriter output;
+
+    /**
+     * Creates a UI instance that writes to the given writer.
+     *
+     * @param output Writer to write responses and errors to.
+     */
+    public TextUserInterface(PrintWriter output) {
+        this.output = output;
+    }
+
+    @Override
+    public void showUserDialog(String userMessage) {
+        // the user's own input is not echoed back
+    }
+
+    @Override
+    public void showErrorDialog(Exception exception) {
+        output.println("ERROR!\n" + exception.getMessage());
+    }
+
+    @Override
+    public void showErrorHighlightedDialog(Exception exception) {
+        showErrorDialog(exception);
+    }
+
+    @Override
+    public void showTomatoDialog(String tomatoResponse) {
+        output.println(tomatoResponse);
+    }
+
+    @Override
+    public void showStartDialog() {
+        output.println(getStartMessage());
+    }
+
+    @Override
+    public void showExitDialog() {
+        output.println(getExitMessage());
+    }
+
+    @Override
+    public void exit() {
+        showExitDialog();
+    }
+}
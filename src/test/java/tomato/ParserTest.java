@@ -1,18 +1,28 @@
 package tomato;
 
-import java.util.ArrayList;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import tomato.commands.Command;
 import tomato.data.TaskList;
 import tomato.parser.Parser;
+import tomato.storage.Journal;
 import tomato.storage.Storage;
 import tomato.task.Task;
+import tomato.ui.TextUserInterface;
 import tomato.ui.UserInterface;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class StorageStub extends Storage {
 
@@ -26,9 +36,14 @@ class StorageStub extends Storage {
     }
 
     @Override
-    public void saveToDisk(ArrayList<Task> tasks) {
+    public void saveToDisk(List<Task> tasks) {
         System.out.println("Stub save to disk.");
     }
+
+    @Override
+    public void saveChanges(List<Task> tasks, Journal.Operation operation, List<Task> changedTasks) {
+        System.out.println("Stub save changes.");
+    }
 }
 
 public class ParserTest {
@@ -55,6 +70,30 @@ public class ParserTest {
         assertDoesNotThrow(() -> {
             parser.parse("update 1 /time 2/2/2024 1900 /to 3/3/2024 1900");
         });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("schedule /from 2/2/2024 0000 /to 8/2/2024 2359");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("due 7 /top 3");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("overdue");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("list undone deadline");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("list deadline 2 10 /has book /sort by /top 30");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("find~ meetnig /distance 1 /top 5");
+        });
     }
 
     @Test
@@ -96,6 +135,116 @@ public class ParserTest {
         assertThrowsExactly(TomatoException.class, () -> {
             parser.parse("update 1 /time 2/2/2024 1900 /to");
         });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("schedule /from 8/2/2024 0000 /to 2/2/2024 2359");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("due next week");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("overdue /top 0");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("list done undone");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("list 0");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("list /sort size");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("list undone /has");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("find~ /distance 1");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("mark 2 3");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("update 1 /colour red");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("delete 5-2");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("unmark all /find");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("event party | cake /from 2/2/2024 1900 /to 2/2/2024 2300");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("todo read | write");
+        });
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("update 1 /description read | write");
+        });
+    }
+
+    @Test
+    public void parse_flagWordsInDescription_flagsMatchWholeWordsOnly() throws TomatoException {
+        Parser parser = new Parser();
+        StringWriter output = new StringWriter();
+        UserInterface ui = new TextUserInterface(new PrintWriter(output));
+        Storage storage = new StorageStub("test");
+        TaskList tasks = new TaskList();
+        storage.deferSaves(tasks.getTaskList());
+
+        parser.parse("event plan /tomorrow trip /from 2/2/2024 1900 /to 2/2/2024 2300").execute(tasks, ui, storage);
+        assertEquals("plan /tomorrow trip", tasks.getTaskList().get(0).getDescription().trim());
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("event plan /tomorrow /from 2/2/2024 1900");
+        });
+    }
+
+    @Test
+    public void parse_taskNumberTooLarge_exceptionThrown() {
+        Parser parser = new Parser();
+
+        TomatoException exception = assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("mark 99999999999");
+        });
+        assertEquals("You must provide a task number!", exception.getMessage());
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("delete 2147483648");
+        });
+    }
+
+    @Test
+    public void parse_bulkCommandWithoutTaskNumbers_exceptionThrown() {
+        Parser parser = new Parser();
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("mark ,");
+        });
+
+        TomatoException markException = assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("mark abc");
+        });
+        assertEquals("You must provide a task number!", markException.getMessage());
+
+        TomatoException deleteException = assertThrowsExactly(TomatoException.class, () -> {
+            parser.parse("delete abc");
+        });
+        assertEquals("You must provide a task number!", deleteException.getMessage());
     }
 
     @Test
@@ -111,6 +260,44 @@ public class ParserTest {
         });
     }
 
+    @Test
+    public void parseDate_typedAndStoredFormats_sameDateTime() throws TomatoException {
+        Parser parser = new Parser();
+        LocalDateTime expected = LocalDateTime.of(2025, 10, 2, 19, 0);
+
+        assertEquals(expected, parser.parseDate("2/10/2025 1900"));
+        assertEquals(expected, parser.parseDate(" 02/10/2025 1900 "));
+        assertEquals(expected, parser.parseDate("2025-10-02T19:00"));
+        assertEquals(expected.withSecond(30), parser.parseDate("2025-10-02T19:00:30"));
+        assertEquals(LocalDateTime.of(2025, 4, 30, 12, 0), parser.parseDate("31/4/2025 1200"));
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            parser.parseDate("2/10/2025 2460");
+        });
+    }
+
+    @Test
+    public void parse_repeatedReadOnlyInput_cachedCommandReused() throws TomatoException {
+        Parser parser = new Parser();
+        assertSame(parser.parse("find meeting"), parser.parse("  find meeting "));
+        assertNotSame(parser.parse("todo meeting"), parser.parse("todo meeting"));
+
+        StringWriter output = new StringWriter();
+        UserInterface ui = new TextUserInterface(new PrintWriter(output));
+        Storage storage = new StorageStub("test");
+        TaskList tasks = new TaskList();
+        storage.deferSaves(tasks.getTaskList());
+        tasks.createTodo("team meeting");
+        Command find = parser.parse("find meeting");
+        find.execute(tasks, ui, storage);
+        assertFalse(output.toString().contains("meeting notes"));
+
+        tasks.createTodo("meeting notes");
+        storage.saveChange(tasks.getTaskList(), Journal.Operation.ADD, tasks.get(1));
+        find.execute(tasks, ui, storage);
+        assertTrue(output.toString().contains("meeting notes"));
+    }
+
     @Test
     public void parse_invalidInputCommand_exceptionThrown() {
         Storage storage = new StorageStub("test");
@@ -140,5 +327,21 @@ public class ParserTest {
         assertDoesNotThrow(() -> {
             parser.parse("BYE");
         });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("  Event party /from 2/2/2024 1900 /to 2/2/2024 2300  ");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("unmark 12");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("mark 1-500, 502");
+        });
+
+        assertDoesNotThrow(() -> {
+            parser.parse("unmark ALL /find book");
+        });
     }
 }
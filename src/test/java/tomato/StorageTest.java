@@ -1,16 +1,39 @@
 package tomato;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.CRC32C;
 
 import org.junit.jupiter.api.Test;
 
 import tomato.data.TaskList;
+import tomato.storage.BinaryTaskCodec;
+import tomato.storage.Compactor;
+import tomato.storage.Durability;
+import tomato.storage.Journal;
+import tomato.storage.MappedTaskFile;
+import tomato.storage.ShardedStorage;
 import tomato.storage.Storage;
+import tomato.storage.TaskFileFormat;
+import tomato.task.Deadline;
+import tomato.task.Event;
+import tomato.task.Task;
+import tomato.task.Todo;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StorageTest {
     private static final String TASK_FILE_DIR = "src/test/data/";
@@ -20,6 +43,19 @@ public class StorageTest {
     private static final String TASK_FILE_INVALID_SEPARATOR = TASK_FILE_DIR + "TaskListInvalidSeparator.txt";
     private static final String TASK_FILE_MISSING = TASK_FILE_DIR + "doesNotExists.txt";
     private static final String TASK_FILE_DUMMY = TASK_FILE_DIR + "TaskListDummy.txt";
+    private static final String TASK_FILE_JOURNAL = TASK_FILE_DIR + "TaskListJournal.txt";
+    private static final String TASK_FILE_WRITE_BEHIND = TASK_FILE_DIR + "TaskListWriteBehind.txt";
+    private static final String TASK_FILE_CONVERTED = TASK_FILE_DIR + "TaskListConverted.txt";
+    private static final String TASK_FILE_TORN = TASK_FILE_DIR + "TaskListTorn.txt";
+    private static final String TASK_FILE_CORRUPTED = TASK_FILE_DIR + "TaskListCorrupted.txt";
+    private static final String TASK_FILE_PATCHED = TASK_FILE_DIR + "TaskListPatched.txt";
+    private static final String SHARD_DIR = TASK_FILE_DIR + "shards";
+    private static final String TASK_FILE_FIND = TASK_FILE_DIR + "TaskListFind.txt";
+    private static final String TASK_FILE_INVALID_RECORD = TASK_FILE_DIR + "TaskListInvalidRecord.txt";
+    private static final String TASK_FILE_COMPACTED = TASK_FILE_DIR + "TaskListCompacted.txt";
+    private static final String TASK_FILE_MAPPED = TASK_FILE_DIR + "TaskListMapped.txt";
+    private static final String[] COMPACTION_FILE_SUFFIXES = {"", ".journal", ".journal.compacting",
+        ".journal.compacted", ".journal.superseded", ".tmp"};
 
     @Test
     public void constructor_nullFilePath_exceptionThrown(){
@@ -126,4 +162,781 @@ public class StorageTest {
         });
     }
 
+    @Test
+    public void saveChange_journalMode_replayedOnLoad() throws Exception {
+        Storage storage = new Storage(TASK_FILE_JOURNAL, true);
+        try {
+            storage.load();
+        } catch (Exception exception) {
+            System.out.println(exception.getMessage());
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("buy books"));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+        tasks.add(new Todo("return books to library"));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+        tasks.get(1).setDone();
+        storage.saveChange(tasks, Journal.Operation.MARK, tasks.get(1));
+        Task deletedTask = tasks.remove(0);
+        storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+
+        ArrayList<Task> loadedTasks = new Storage(TASK_FILE_JOURNAL, true).load();
+        assertEquals(1, loadedTasks.size());
+        assertEquals("T|1|return books to library", loadedTasks.get(0).toSave());
+
+        Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL));
+        Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".journal"));
+    }
+
+    @Test
+    public void load_journalRecordsAfterDelete_recordsFollowTaskIds() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_JOURNAL), "");
+        Storage storage = new Storage(TASK_FILE_JOURNAL, true);
+        try {
+            TaskList tasks = new TaskList(storage.load());
+            tasks.createTodo("buy books");
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.ADD, tasks.get(0));
+            tasks.createTodo("return books to library");
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.ADD, tasks.get(1));
+            Task returnBooks = tasks.get(1);
+
+            Task buyBooks = tasks.get(0);
+            tasks.deleteTaskById(buyBooks.getId());
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.DELETE, buyBooks);
+            tasks.markTaskById(returnBooks.getId());
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.MARK, returnBooks);
+
+            String journal = Files.readString(Path.of(TASK_FILE_JOURNAL + ".journal"));
+            assertTrue(journal.contains("M|@" + returnBooks.getId()));
+            ArrayList<Task> loadedTasks = new Storage(TASK_FILE_JOURNAL, true).load();
+            assertEquals(1, loadedTasks.size());
+            assertEquals(returnBooks.getId(), loadedTasks.get(0).getId());
+            assertTrue(loadedTasks.get(0).isDone());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL));
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".journal"));
+        }
+    }
+
+    @Test
+    public void saveChanges_bulkDeleteInJournalMode_recordPerTaskReplayedOnLoad() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_JOURNAL), "");
+        Storage storage = new Storage(TASK_FILE_JOURNAL, true);
+        try {
+            TaskList tasks = new TaskList(storage.load());
+            for (int i = 1; i <= 5; i++) {
+                tasks.createTodo("task " + i);
+                storage.saveChange(tasks.getTaskList(), Journal.Operation.ADD, tasks.get(i - 1));
+            }
+            long lastTaskId = tasks.get(4).getId();
+
+            BitSet selected = new BitSet();
+            selected.set(0, 2);
+            selected.set(3);
+            storage.saveChanges(tasks.getTaskList(), Journal.Operation.DELETE, tasks.deleteTasks(selected));
+            selected.clear();
+            selected.set(1);
+            storage.saveChanges(tasks.getTaskList(), Journal.Operation.MARK, tasks.markTasks(selected));
+
+            assertEquals(5 + 3 + 1, Files.readAllLines(Path.of(TASK_FILE_JOURNAL + ".journal")).size());
+            ArrayList<Task> loadedTasks = new Storage(TASK_FILE_JOURNAL, true).load();
+            assertEquals(2, loadedTasks.size());
+            assertEquals("T|0|task 3", loadedTasks.get(0).toSave());
+            assertEquals("T|1|task 5", loadedTasks.get(1).toSave());
+            assertEquals(lastTaskId, loadedTasks.get(1).getId());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL));
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".journal"));
+        }
+    }
+
+    @Test
+    public void loadVerified_nonAsciiDescriptionsSaved_checksumsMatchAndNothingQuarantined() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_JOURNAL), "");
+        Storage storage = new Storage(TASK_FILE_JOURNAL, true);
+        try {
+            ArrayList<Task> tasks = storage.load();
+            tasks.add(new Todo("caf\u00e9 cr\u00e8me"));
+            storage.saveToDisk(tasks);
+            tasks.add(new Todo("na\u00efve r\u00e9sum\u00e9"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+
+            byte[] contents = Files.readAllBytes(Path.of(TASK_FILE_JOURNAL));
+            String text = new String(contents, StandardCharsets.UTF_8);
+            assertTrue(text.contains("caf\u00e9 cr\u00e8me"));
+
+            Storage verifiedStorage = new Storage(TASK_FILE_JOURNAL, true);
+            ArrayList<Task> loadedTasks = verifiedStorage.loadVerified();
+            assertEquals(0, verifiedStorage.getRecoveryMessages().size());
+            assertEquals("caf\u00e9 cr\u00e8me", loadedTasks.get(0).getDescription());
+            assertEquals("na\u00efve r\u00e9sum\u00e9", loadedTasks.get(1).getDescription());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL));
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".journal"));
+            Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".quarantine"));
+        }
+    }
+
+    @Test
+    public void saveDeferred_journalMode_changesWrittenOnce() throws Exception {
+        Storage storage = new Storage(TASK_FILE_JOURNAL, true);
+        try {
+            storage.load();
+        } catch (Exception exception) {
+            System.out.println(exception.getMessage());
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        storage.deferSaves(tasks);
+        tasks.add(new Todo("buy books"));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+        tasks.add(new Todo("return books to library"));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+        Task deletedTask = tasks.remove(0);
+        storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+        assertEquals(0, new Storage(TASK_FILE_JOURNAL, true).load().size());
+
+        storage.saveDeferred(tasks);
+        ArrayList<Task> loadedTasks = new Storage(TASK_FILE_JOURNAL, true).load();
+        assertEquals(1, loadedTasks.size());
+        assertEquals("T|0|return books to library", loadedTasks.get(0).toSave());
+        Path journalFile = Path.of(TASK_FILE_JOURNAL + ".journal");
+        assertTrue(!Files.exists(journalFile) || Files.size(journalFile) == 0);
+
+        Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL));
+        Files.deleteIfExists(Path.of(TASK_FILE_JOURNAL + ".journal"));
+    }
+
+    @Test
+    public void flush_writeBehindOnExit_savesWrittenOnFlush() throws Exception {
+        Storage storage = new Storage(TASK_FILE_WRITE_BEHIND);
+        try {
+            storage.load();
+        } catch (Exception exception) {
+            System.out.println(exception.getMessage());
+        }
+        storage.startWriteBehind(Durability.ON_EXIT, 0);
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("buy books"));
+        storage.saveToDisk(tasks);
+        tasks.add(new Todo("return books to library"));
+        storage.saveToDisk(tasks);
+        assertEquals(0, new Storage(TASK_FILE_WRITE_BEHIND).load().size());
+
+        storage.flush();
+        assertEquals(2, new Storage(TASK_FILE_WRITE_BEHIND).load().size());
+
+        Files.deleteIfExists(Path.of(TASK_FILE_WRITE_BEHIND));
+    }
+
+    @Test
+    public void flush_writeBehindWithoutJournal_changedRecordsPatchedInPlace() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_WRITE_BEHIND), "");
+        try {
+            Storage savedStorage = new Storage(TASK_FILE_WRITE_BEHIND);
+            ArrayList<Task> savedTasks = savedStorage.load();
+            for (String description : List.of("buy books", "read books", "return books")) {
+                savedTasks.add(new Todo(description));
+                savedStorage.saveChange(savedTasks, Journal.Operation.ADD, savedTasks.get(savedTasks.size() - 1));
+            }
+            Storage storage = new Storage(TASK_FILE_WRITE_BEHIND);
+            ArrayList<Task> tasks = storage.load();
+            long fileSize = Files.size(Path.of(TASK_FILE_WRITE_BEHIND));
+            storage.startWriteBehind(Durability.ON_EXIT, 0);
+
+            tasks.get(1).setDone();
+            storage.saveChange(tasks, Journal.Operation.MARK, tasks.get(1));
+            Task deletedTask = tasks.remove(0);
+            storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+            storage.flush();
+
+            // a full save would have dropped the deleted record rather than leaving a tombstone of the same size
+            assertEquals(fileSize, Files.size(Path.of(TASK_FILE_WRITE_BEHIND)));
+            assertTrue(Files.readString(Path.of(TASK_FILE_WRITE_BEHIND)).startsWith("~"));
+            ArrayList<Task> loadedTasks = new Storage(TASK_FILE_WRITE_BEHIND).load();
+            assertEquals(2, loadedTasks.size());
+            assertEquals("T|1|read books", loadedTasks.get(0).toSave());
+            assertEquals(tasks.get(1).getId(), loadedTasks.get(1).getId());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_WRITE_BEHIND));
+        }
+    }
+
+    @Test
+    public void convertTo_binaryFormat_sameTasksLoaded() throws Exception {
+        Files.copy(Path.of(TASK_FILE_VALID), Path.of(TASK_FILE_CONVERTED));
+        ArrayList<Task> textTasks = new Storage(TASK_FILE_CONVERTED).load();
+
+        new Storage(TASK_FILE_CONVERTED).convertTo(TaskFileFormat.BINARY);
+        Storage binaryStorage = new Storage(TASK_FILE_CONVERTED);
+        ArrayList<Task> binaryTasks = binaryStorage.load();
+        assertEquals(TaskFileFormat.BINARY, binaryStorage.getFormat());
+
+        assertEquals(textTasks.size(), binaryTasks.size());
+        for (int i = 0; i < textTasks.size(); i++) {
+            assertEquals(textTasks.get(i).toSave(), binaryTasks.get(i).toSave());
+        }
+
+        Files.deleteIfExists(Path.of(TASK_FILE_CONVERTED));
+    }
+
+    @Test
+    public void openMapped_textFileWithTombstones_tombstonesSkipped() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_MAPPED), "T|0|buy books\n~          \n"
+                + "D|1|return books|2025-02-02T19:00\r\n~       ");
+        try {
+            Storage storage = new Storage(TASK_FILE_MAPPED);
+            MappedTaskFile mappedFile = storage.openMapped();
+            assertEquals(2, mappedFile.size());
+            assertEquals("T|0|buy books", mappedFile.get(0).toSave());
+            assertEquals("D|1|return books|2025-02-02T19:00", mappedFile.get(1).toSave());
+            assertEquals(List.of(1), mappedFile.findMatching("return"));
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_MAPPED));
+        }
+    }
+
+    @Test
+    public void load_nonAsciiDescription_decodedAsUtf8() throws Exception {
+        byte[] contents = "T|0|caf\u00e9 cr\u00e8me\nT|0|buy books\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(Path.of(TASK_FILE_MAPPED), contents);
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_MAPPED).load();
+            assertEquals("caf\u00e9 cr\u00e8me", tasks.get(0).getDescription());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_MAPPED));
+        }
+    }
+
+    @Test
+    public void openMapped_nonAsciiDescription_decodedAndFoundAsUtf8() throws Exception {
+        byte[] contents = "T|0|buy books\nT|0|caf\u00e9 cr\u00e8me\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(Path.of(TASK_FILE_MAPPED), contents);
+        try {
+            Storage storage = new Storage(TASK_FILE_MAPPED);
+            MappedTaskFile mappedFile = storage.openMapped();
+            assertEquals("caf\u00e9 cr\u00e8me", mappedFile.get(1).getDescription());
+            assertEquals(List.of(1), mappedFile.findMatching("cr\u00e8me"));
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_MAPPED));
+        }
+    }
+
+    @Test
+    public void openMapped_binaryFile_tasksDecodedAndFound() throws Exception {
+        Files.copy(Path.of(TASK_FILE_VALID), Path.of(TASK_FILE_MAPPED));
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_MAPPED).load();
+            new Storage(TASK_FILE_MAPPED).convertTo(TaskFileFormat.BINARY);
+            Storage storage = new Storage(TASK_FILE_MAPPED);
+            MappedTaskFile mappedFile = storage.openMapped();
+
+            assertEquals(tasks.size(), mappedFile.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                assertEquals(tasks.get(i).toSave(), mappedFile.get(i).toSave());
+            }
+            assertEquals(List.of(1, 6), mappedFile.findMatching("books"));
+            assertEquals(List.of(), mappedFile.findMatching("library"));
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_MAPPED));
+        }
+    }
+
+    @Test
+    public void load_tornTaskFileAndJournal_tornRecordsSkippedAndReported() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_TORN), "T|0|buy books\nD|0|return books /by 2024-0");
+        Files.writeString(Path.of(TASK_FILE_TORN + ".journal"), "M|0\nA|T|0|rea");
+        Files.writeString(Path.of(TASK_FILE_TORN + ".saving"), "T|0|half");
+
+        Storage storage = new Storage(TASK_FILE_TORN, true);
+        ArrayList<Task> tasks = storage.load();
+        assertEquals(1, tasks.size());
+        assertEquals("T|1|buy books", tasks.get(0).toSave());
+        assertEquals(3, storage.getRecoveryMessages().size());
+        assertEquals("M|0\n", Files.readString(Path.of(TASK_FILE_TORN + ".journal")));
+
+        Files.deleteIfExists(Path.of(TASK_FILE_TORN));
+        Files.deleteIfExists(Path.of(TASK_FILE_TORN + ".journal"));
+    }
+
+    @Test
+    public void loadVerified_corruptedRecord_recordQuarantinedAndRestLoaded() throws Exception {
+        Storage storage = new Storage(TASK_FILE_CORRUPTED);
+        try {
+            storage.load();
+        } catch (Exception exception) {
+            System.out.println(exception.getMessage());
+        }
+
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("buy books"));
+        tasks.add(new Todo("read books"));
+        tasks.add(new Todo("return books to library"));
+        storage.saveToDisk(tasks);
+        String contents = Files.readString(Path.of(TASK_FILE_CORRUPTED));
+        Files.writeString(Path.of(TASK_FILE_CORRUPTED), contents.replace("read books", "reap books"));
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            new Storage(TASK_FILE_CORRUPTED).load();
+        });
+
+        Storage verifiedStorage = new Storage(TASK_FILE_CORRUPTED);
+        ArrayList<Task> loadedTasks = verifiedStorage.loadVerified();
+        assertEquals(2, loadedTasks.size());
+        assertEquals("T|0|return books to library", loadedTasks.get(1).toSave());
+        assertEquals(1, verifiedStorage.getRecoveryMessages().size());
+        assertEquals(2, new Storage(TASK_FILE_CORRUPTED).load().size());
+
+        Files.deleteIfExists(Path.of(TASK_FILE_CORRUPTED));
+        Files.deleteIfExists(Path.of(TASK_FILE_CORRUPTED + ".quarantine"));
+    }
+
+    @Test
+    public void saveToDisk_changedTasks_onlyChangedRecordsRewritten() throws Exception {
+        Files.copy(Path.of(TASK_FILE_VALID), Path.of(TASK_FILE_PATCHED));
+        Storage storage = new Storage(TASK_FILE_PATCHED);
+        ArrayList<Task> tasks = storage.load();
+        tasks.get(3).setDone();
+        storage.saveToDisk(tasks);
+        long savedSize = Files.size(Path.of(TASK_FILE_PATCHED));
+
+        tasks.get(4).setDone();
+        storage.saveToDisk(tasks);
+        assertEquals(savedSize, Files.size(Path.of(TASK_FILE_PATCHED)));
+
+        tasks.remove(1);
+        tasks.add(new Todo("return books to library"));
+        storage.saveToDisk(tasks);
+        assertTrue(Files.readString(Path.of(TASK_FILE_PATCHED)).contains("\n~"));
+
+        ArrayList<Task> loadedTasks = new Storage(TASK_FILE_PATCHED).load();
+        assertEquals(tasks.size(), loadedTasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toSave(), loadedTasks.get(i).toSave());
+        }
+
+        Files.deleteIfExists(Path.of(TASK_FILE_PATCHED));
+    }
+
+    @Test
+    public void saveChange_shardedStorage_tasksShardedAndLoadedInOrder() throws Exception {
+        ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+        ArrayList<Task> tasks = storage.load();
+        tasks.add(new Deadline("return books", LocalDateTime.of(2025, 2, 2, 19, 0)));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+        tasks.add(new Todo("buy books"));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+        tasks.add(new Event("book fair", LocalDateTime.of(2025, 3, 1, 9, 0), LocalDateTime.of(2025, 3, 2, 18, 0)));
+        storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(2));
+        tasks.get(0).setDone();
+        storage.saveChange(tasks, Journal.Operation.MARK, tasks.get(0));
+        Task deletedTask = tasks.remove(1);
+        storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+
+        assertTrue(Files.exists(Path.of(SHARD_DIR, "deadline-2025-02.txt")));
+        assertTrue(Files.exists(Path.of(SHARD_DIR, "event-2025-03.txt")));
+        assertTrue(Files.notExists(Path.of(SHARD_DIR, "todo.txt")));
+
+        ShardedStorage loadedStorage = new ShardedStorage(SHARD_DIR);
+        ArrayList<Task> loadedTasks = loadedStorage.load();
+        assertEquals(2, loadedTasks.size());
+        assertEquals(tasks.get(0).toSave(), loadedTasks.get(0).toSave());
+        assertEquals(tasks.get(1).toSave(), loadedTasks.get(1).toSave());
+
+        ArrayList<Task> februaryTasks = loadedStorage.findInRange(LocalDateTime.of(2025, 2, 1, 0, 0),
+                LocalDateTime.of(2025, 2, 28, 23, 59));
+        assertEquals(1, februaryTasks.size());
+        assertEquals(tasks.get(0).toSave(), februaryTasks.get(0).toSave());
+
+        deleteShardDirectory();
+    }
+
+    private static void deleteShardDirectory() throws IOException {
+        try (DirectoryStream<Path> shardFiles = Files.newDirectoryStream(Path.of(SHARD_DIR))) {
+            for (Path shardFile : shardFiles) {
+                Files.delete(shardFile);
+            }
+        }
+        Files.delete(Path.of(SHARD_DIR));
+    }
+
+    @Test
+    public void load_taskInTwoShardsAfterCrash_duplicateDroppedAndNotRevived() throws Exception {
+        Files.createDirectories(Path.of(SHARD_DIR));
+        Deadline january = new Deadline("return books", LocalDateTime.of(2025, 1, 2, 19, 0));
+        Deadline february = new Deadline("return books", LocalDateTime.of(2025, 2, 2, 19, 0));
+        Files.writeString(Path.of(SHARD_DIR, "deadline-2025-01.txt"), "0|" + january.toSave() + "\n");
+        Files.writeString(Path.of(SHARD_DIR, "deadline-2025-02.txt"), "0|" + february.toSave() + "\n");
+        try {
+            ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+            ArrayList<Task> tasks = storage.load();
+            assertEquals(1, tasks.size());
+            assertEquals(february.toSave(), tasks.get(0).toSave());
+            assertFalse(Files.exists(Path.of(SHARD_DIR, "deadline-2025-01.txt")));
+
+            Task deletedTask = tasks.remove(0);
+            storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+            assertEquals(0, new ShardedStorage(SHARD_DIR).load().size());
+        } finally {
+            deleteShardDirectory();
+        }
+    }
+
+    @Test
+    public void load_crashWhileMovingTaskToEarlierShard_newerCopyKept() throws Exception {
+        try {
+            ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+            TaskList tasks = new TaskList(storage.load());
+            tasks.createDeadline("return books", LocalDateTime.of(2025, 3, 2, 19, 0));
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.ADD, tasks.get(0));
+            byte[] marchShard = Files.readAllBytes(Path.of(SHARD_DIR, "deadline-2025-03.txt"));
+
+            tasks.updateDeadlineTime(0, LocalDateTime.of(2025, 2, 2, 19, 0));
+            storage.saveChange(tasks.getTaskList(), Journal.Operation.UPDATE, tasks.get(0));
+            // a crash before the old shard was rewritten leaves the stale copy behind in the later shard
+            Files.write(Path.of(SHARD_DIR, "deadline-2025-03.txt"), marchShard);
+
+            ArrayList<Task> loadedTasks = new ShardedStorage(SHARD_DIR).load();
+            assertEquals(1, loadedTasks.size());
+            assertEquals(tasks.get(0).toSave(), loadedTasks.get(0).toSave());
+            assertFalse(Files.exists(Path.of(SHARD_DIR, "deadline-2025-03.txt")));
+            assertEquals(tasks.get(0).toSave(), new ShardedStorage(SHARD_DIR).load().get(0).toSave());
+        } finally {
+            deleteShardDirectory();
+        }
+    }
+
+    @Test
+    public void backUpAndReset_shardedStorage_directoryMovedAsideAndEmptied() throws Exception {
+        Path backupDirectory = Path.of(System.getProperty("user.dir"), SHARD_DIR + ".bak");
+        try {
+            ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+            ArrayList<Task> tasks = storage.load();
+            assertTrue(storage.isNewTaskFile());
+            tasks.add(new Todo("buy books"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+
+            assertEquals(backupDirectory.toString(), storage.backUpAndReset());
+            assertTrue(Files.exists(backupDirectory.resolve("todo.txt")));
+            assertEquals(0, new ShardedStorage(SHARD_DIR).load().size());
+        } finally {
+            deleteShardDirectory();
+            try (DirectoryStream<Path> backupFiles = Files.newDirectoryStream(backupDirectory)) {
+                for (Path backupFile : backupFiles) {
+                    Files.delete(backupFile);
+                }
+            }
+            Files.delete(backupDirectory);
+        }
+    }
+
+    @Test
+    public void saveDeferred_shardedStorage_shardsWrittenOnceOrDiscarded() throws Exception {
+        try {
+            ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+            ArrayList<Task> tasks = storage.load();
+            storage.deferSaves(tasks);
+            tasks.add(new Todo("buy books"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+            tasks.add(new Deadline("return books", LocalDateTime.of(2025, 2, 2, 19, 0)));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+            assertFalse(Files.exists(Path.of(SHARD_DIR, "todo.txt")));
+
+            storage.saveDeferred(tasks);
+            assertEquals(2, new ShardedStorage(SHARD_DIR).load().size());
+
+            storage.deferSaves(tasks);
+            Task deletedTask = tasks.remove(0);
+            storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+            tasks = storage.discardDeferred();
+            assertEquals(2, tasks.size());
+            assertEquals("T|0|buy books", tasks.get(0).toSave());
+
+            tasks.get(0).setDone();
+            storage.saveChange(tasks, Journal.Operation.MARK, tasks.get(0));
+            ArrayList<Task> loadedTasks = new ShardedStorage(SHARD_DIR).load();
+            assertEquals(2, loadedTasks.size());
+            assertEquals("T|1|buy books", loadedTasks.get(0).toSave());
+        } finally {
+            deleteShardDirectory();
+        }
+    }
+
+    @Test
+    public void saveToDisk_shardedStorageTaskDeleted_taskIdsKept() throws Exception {
+        try {
+            ShardedStorage storage = new ShardedStorage(SHARD_DIR);
+            ArrayList<Task> tasks = storage.load();
+            tasks.add(new Todo("buy books"));
+            tasks.add(new Deadline("return books", LocalDateTime.of(2025, 2, 2, 19, 0)));
+            tasks.add(new Todo("read books"));
+            storage.saveToDisk(tasks);
+            long returnBooksId = tasks.get(1).getId();
+            long readBooksId = tasks.get(2).getId();
+
+            tasks.remove(0);
+            storage.saveToDisk(tasks);
+
+            ArrayList<Task> loadedTasks = new ShardedStorage(SHARD_DIR).load();
+            assertEquals(2, loadedTasks.size());
+            assertEquals(returnBooksId, loadedTasks.get(0).getId());
+            assertEquals(readBooksId, loadedTasks.get(1).getId());
+        } finally {
+            deleteShardDirectory();
+        }
+    }
+
+    @Test
+    public void saveChange_taskDeletedAndReloaded_taskIdsKept() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_FIND), "T|0|legacy task\n");
+        Storage storage = new Storage(TASK_FILE_FIND);
+        try {
+            ArrayList<Task> tasks = storage.load();
+            tasks.add(new Todo("read book"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(1));
+            tasks.add(new Todo("buy bread"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(2));
+            long breadId = tasks.get(2).getId();
+            assertEquals(3, tasks.stream().mapToLong(Task::getId).distinct().count());
+
+            Task deletedTask = tasks.remove(1);
+            storage.saveChange(tasks, Journal.Operation.DELETE, deletedTask);
+
+            ArrayList<Task> loadedTasks = new Storage(TASK_FILE_FIND).load();
+            assertEquals(tasks.get(0).getId(), loadedTasks.get(0).getId());
+            assertEquals(breadId, loadedTasks.get(1).getId());
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_FIND));
+        }
+    }
+
+    private static void deleteCompactionFiles() throws IOException {
+        for (String suffix : COMPACTION_FILE_SUFFIXES) {
+            Files.deleteIfExists(Path.of(TASK_FILE_COMPACTED + suffix));
+        }
+    }
+
+    @Test
+    public void compact_journal_foldedIntoTaskFile() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "A|T|0|read books\nM|0\n");
+        try {
+            File journalFile = new File(TASK_FILE_COMPACTED + ".journal");
+            Compactor compactor = new Compactor(new Storage(TASK_FILE_COMPACTED, true),
+                    new File(TASK_FILE_COMPACTED), journalFile);
+            compactor.start(new Journal(journalFile));
+            compactor.awaitCompletion();
+            assertDoesNotThrow(compactor::checkFailure);
+
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal")));
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal.compacting")));
+            ArrayList<Task> tasks = new Storage(TASK_FILE_COMPACTED).load();
+            assertEquals(2, tasks.size());
+            assertEquals("T|1|buy books", tasks.get(0).toSave());
+            assertEquals("T|0|read books", tasks.get(1).toSave());
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void compact_badJournalRecord_failureReportedOnceAndJournalKept() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|5\n");
+        try {
+            File journalFile = new File(TASK_FILE_COMPACTED + ".journal");
+            Compactor compactor = new Compactor(new Storage(TASK_FILE_COMPACTED, true),
+                    new File(TASK_FILE_COMPACTED), journalFile);
+            compactor.start(new Journal(journalFile));
+            compactor.awaitCompletion();
+            assertThrowsExactly(TomatoException.class, compactor::checkFailure);
+            assertDoesNotThrow(compactor::checkFailure);
+
+            assertEquals("T|0|buy books\n", Files.readString(Path.of(TASK_FILE_COMPACTED)));
+            assertEquals("M|5\n", Files.readString(Path.of(TASK_FILE_COMPACTED + ".journal.compacting")));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void compact_repeatedFailures_retriedWithBackoffAndReportedOnce() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|5\n");
+        try {
+            File journalFile = new File(TASK_FILE_COMPACTED + ".journal");
+            Journal journal = new Journal(journalFile);
+            Compactor compactor = new Compactor(new Storage(TASK_FILE_COMPACTED, true),
+                    new File(TASK_FILE_COMPACTED), journalFile);
+            compactor.start(journal);
+            compactor.awaitCompletion();
+            assertThrowsExactly(TomatoException.class, compactor::checkFailure);
+
+            // the journal is fixed, but the next attempts are skipped until the backoff has passed
+            Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.compacting"), "M|0\n");
+            for (int i = 0; i < 16; i++) {
+                compactor.start(journal);
+                compactor.awaitCompletion();
+                assertTrue(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal.compacting")));
+            }
+            compactor.start(journal);
+            compactor.awaitCompletion();
+            assertDoesNotThrow(compactor::checkFailure);
+            assertEquals("T|1|buy books", new Storage(TASK_FILE_COMPACTED).load().get(0).toSave());
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void compact_failingEveryTime_stopsRetryingAndReportsOnce() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|5\n");
+        try {
+            File journalFile = new File(TASK_FILE_COMPACTED + ".journal");
+            Journal journal = new Journal(journalFile);
+            Compactor compactor = new Compactor(new Storage(TASK_FILE_COMPACTED, true),
+                    new File(TASK_FILE_COMPACTED), journalFile);
+            int reportedFailures = 0;
+            for (int i = 0; i < 1000; i++) {
+                compactor.start(journal);
+                compactor.awaitCompletion();
+                try {
+                    compactor.checkFailure();
+                } catch (TomatoException exception) {
+                    reportedFailures++;
+                }
+            }
+            assertEquals(1, reportedFailures);
+
+            // after five failures in a row, compaction is no longer attempted
+            Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.compacting"), "M|0\n");
+            compactor.start(journal);
+            compactor.awaitCompletion();
+            assertEquals("T|0|buy books\n", Files.readString(Path.of(TASK_FILE_COMPACTED)));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void load_crashWhileCompacting_compactingJournalReplayed() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.compacting"), "A|T|0|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|1\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".tmp"), "T|0|buy");
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_COMPACTED, true).load();
+            assertEquals(2, tasks.size());
+            assertEquals("T|1|read books", tasks.get(1).toSave());
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".tmp")));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void load_crashBeforeCompactedSwap_swapFinished() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".tmp"), "T|0|buy books\nT|0|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.compacted"), "A|T|0|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|1\n");
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_COMPACTED, true).load();
+            assertEquals(2, tasks.size());
+            assertEquals("T|1|read books", tasks.get(1).toSave());
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".tmp")));
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal.compacted")));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void load_crashAfterFullSaveSwap_journalNotReplayedAgain() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\nT|1|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "A|T|0|read books\nM|1\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.superseded"), "");
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_COMPACTED, true).load();
+            assertEquals(2, tasks.size());
+            assertEquals("T|1|read books", tasks.get(1).toSave());
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal")));
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal.superseded")));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void load_crashBeforeFullSaveSwap_swapFinished() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "T|0|buy books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".tmp"), "T|0|buy books\nT|1|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.compacting"), "A|T|0|read books\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal"), "M|1\n");
+        Files.writeString(Path.of(TASK_FILE_COMPACTED + ".journal.superseded"), "");
+        try {
+            ArrayList<Task> tasks = new Storage(TASK_FILE_COMPACTED, true).load();
+            assertEquals(2, tasks.size());
+            assertEquals("T|1|read books", tasks.get(1).toSave());
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".tmp")));
+            assertFalse(Files.exists(Path.of(TASK_FILE_COMPACTED + ".journal.compacting")));
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void saveToDisk_journalMode_journalsHandedOffToSnapshot() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_COMPACTED), "");
+        try {
+            Storage storage = new Storage(TASK_FILE_COMPACTED, true);
+            ArrayList<Task> tasks = storage.load();
+            tasks.add(new Todo("buy books"));
+            storage.saveChange(tasks, Journal.Operation.ADD, tasks.get(0));
+            tasks.add(new Todo("read books"));
+            storage.saveToDisk(tasks);
+
+            for (String suffix : COMPACTION_FILE_SUFFIXES) {
+                assertEquals(suffix.isEmpty(), Files.exists(Path.of(TASK_FILE_COMPACTED + suffix)));
+            }
+            assertEquals(2, new Storage(TASK_FILE_COMPACTED, true).load().size());
+        } finally {
+            deleteCompactionFiles();
+        }
+    }
+
+    @Test
+    public void load_malformedLegacyLine_exceptionThrown() throws Exception {
+        String[] badLines = {"T|x|read book", "Q|0|read book", "T", "T|0| ", "D|2|return book|2025-02-02T19:00"};
+        try {
+            for (String badLine : badLines) {
+                Files.writeString(Path.of(TASK_FILE_INVALID_RECORD), "T|0|buy books\n" + badLine + "\n");
+                assertThrowsExactly(TomatoException.class, () -> {
+                    new Storage(TASK_FILE_INVALID_RECORD).load();
+                }, badLine);
+
+                Storage verifiedStorage = new Storage(TASK_FILE_INVALID_RECORD);
+                assertEquals(1, verifiedStorage.loadVerified().size());
+            }
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_INVALID_RECORD));
+            Files.deleteIfExists(Path.of(TASK_FILE_INVALID_RECORD + ".quarantine"));
+        }
+    }
+
+    @Test
+    public void readTask_blankBinaryDescription_exceptionThrown() {
+        ByteBuffer record = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES + 1 + Long.BYTES + Integer.BYTES);
+        record.put((byte) 'T').putInt(1).put((byte) ' ').putLong(Task.NO_ID);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 0, record.position());
+        record.putInt((int) crc.getValue()).flip();
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            new BinaryTaskCodec().readTask(record);
+        });
+    }
 }
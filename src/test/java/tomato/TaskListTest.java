@@ -1,8 +1,23 @@
 package tomato;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
+import tomato.commands.Command;
+import tomato.data.KeywordIndex;
+import tomato.data.StatusIndex;
 import tomato.data.TaskList;
+import tomato.parser.Parser;
+import tomato.task.Deadline;
+import tomato.task.Task;
+import tomato.task.Todo;
+import tomato.ui.TextUserInterface;
+import tomato.ui.UserInterface;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -160,5 +175,275 @@ public class TaskListTest {
         assertTrue(tasks.getTaskList().get(0).toString().contains("buy books"));
     }
 
+    @Test
+    public void execute_bulkDeleteRangesAndList_keptTasksInOrder() throws TomatoException {
+        TaskList tasks = new TaskList();
+        for (int i = 1; i <= 10; i++) {
+            tasks.createTodo("task " + i);
+        }
+
+        UserInterface ui = new TextUserInterface(new PrintWriter(new StringWriter()));
+        Command cmd = new Parser().parse("delete 2-4,7,9-10");
+        cmd.execute(tasks, ui, new StorageStub("test"));
+        assertEquals(4, tasks.getTaskList().size());
+        assertEquals("task 1", tasks.getTaskList().get(0).getDescription());
+        assertEquals("task 5", tasks.getTaskList().get(1).getDescription());
+        assertEquals("task 6", tasks.getTaskList().get(2).getDescription());
+        assertEquals("task 8", tasks.getTaskList().get(3).getDescription());
+
+        assertThrowsExactly(TomatoException.class, () -> {
+            new Parser().parse("mark 3-5").execute(tasks, ui, new StorageStub("test"));
+        });
+        assertEquals(" ", tasks.getTaskList().get(2).getStatusIcon());
+    }
+
+    /**
+     * Returns the output of the given list command run over the given tasks.
+     */
+    private static String runList(TaskList tasks, String input) throws TomatoException {
+        StringWriter output = new StringWriter();
+        new Parser().parse(input).execute(tasks, new TextUserInterface(new PrintWriter(output)),
+                new StorageStub("test"));
+        return output.toString();
+    }
+
+    private static TaskList createTodos(int count) {
+        TaskList tasks = new TaskList();
+        for (int i = 1; i <= count; i++) {
+            tasks.createTodo("task " + i);
+        }
+        return tasks;
+    }
+
+    @Test
+    public void execute_listSecondPage_pageOfTasksShown() throws TomatoException {
+        String[] lines = runList(createTodos(45), "list 2").split("\n");
+
+        assertEquals("Here are the tasks in your list (page 2 of 3):", lines[0]);
+        assertEquals(21, lines.length);
+        assertEquals("21. [T][ ] task 21", lines[1]);
+        assertEquals("40. [T][ ] task 40", lines[20]);
+
+        lines = runList(createTodos(45), "list 3").split("\n");
+        assertEquals("Here are the tasks in your list (page 3 of 3):", lines[0]);
+        assertEquals(6, lines.length);
+        assertEquals("45. [T][ ] task 45", lines[5]);
+    }
+
+    @Test
+    public void execute_listTopWithPages_onlyTopTasksPaged() throws TomatoException {
+        TaskList tasks = createTodos(45);
+
+        String[] lines = runList(tasks, "list 2 5 /top 12").split("\n");
+        assertEquals("Here are the tasks in your list (page 2 of 3):", lines[0]);
+        assertEquals(6, lines.length);
+        assertEquals("6. [T][ ] task 6", lines[1]);
+        assertEquals("10. [T][ ] task 10", lines[5]);
+
+        lines = runList(tasks, "list 3 5 /top 12").split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("11. [T][ ] task 11", lines[1]);
+        assertEquals("12. [T][ ] task 12", lines[2]);
+    }
+
+    @Test
+    public void execute_listSortByDeadline_deadlinesFirstThenListOrder() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.createTodo("buy books");
+        tasks.createDeadline("return books", LocalDateTime.of(2025, 10, 2, 19, 0));
+        tasks.createEvent("book fair", LocalDateTime.of(2025, 9, 1, 9, 0), LocalDateTime.of(2025, 9, 1, 17, 0));
+        tasks.createDeadline("pay fine", LocalDateTime.of(2025, 10, 1, 9, 0));
+
+        String[] lines = runList(tasks, "list /sort by").split("\n");
+        assertEquals("Here are the tasks in your list, sorted by deadline:", lines[0]);
+        assertEquals(5, lines.length);
+        assertTrue(lines[1].startsWith("4. [D][ ] pay fine"));
+        assertTrue(lines[2].startsWith("2. [D][ ] return books"));
+        assertEquals("1. [T][ ] buy books", lines[3]);
+        assertTrue(lines[4].startsWith("3. [E][ ] book fair"));
+
+        lines = runList(tasks, "list /sort by /top 1").split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("4. [D][ ] pay fine"));
+    }
+
+    @Test
+    public void execute_listPagePastEnd_exceptionThrown() {
+        TaskList tasks = createTodos(45);
+
+        TomatoException exception = assertThrowsExactly(TomatoException.class, () -> {
+            runList(tasks, "list 4");
+        });
+        assertEquals("There is no page 4, as the list has only 3 pages.", exception.getMessage());
+    }
+
+    @Test
+    public void execute_findAfterSameSizeChanges_indexKeptInStep() throws TomatoException {
+        TaskList tasks = createTodos(3);
+        assertEquals("Here are the matching tasks in your list:\n1.[T][ ] task 1\n\n", runList(tasks, "find 1"));
+
+        tasks.updateDescription(0, "read books");
+        tasks.deleteTask(2);
+        tasks.createTodo("task 1 again");
+
+        assertEquals("Here are the matching tasks in your list:\n1.[T][ ] task 1 again\n\n",
+                runList(tasks, "find task 1"));
+        assertEquals("Here are the matching tasks in your list:\n1.[T][ ] read books\n\n",
+                runList(tasks, "find read"));
+    }
+
+    @Test
+    public void getById_earlierTasksDeleted_idsStillFindTheirTasks() throws TomatoException {
+        TaskList tasks = createTodos(40);
+        long[] taskIds = new long[40];
+        for (int i = 0; i < 40; i++) {
+            taskIds[i] = tasks.get(i).getId();
+        }
+
+        for (int i = 0; i < 30; i++) {
+            tasks.deleteTaskById(taskIds[i]);
+        }
+        tasks.markTaskById(taskIds[39]);
+
+        assertEquals(10, tasks.size());
+        assertEquals("task 31", tasks.getById(taskIds[30]).getDescription());
+        assertEquals(9, tasks.getTaskNumber(taskIds[39]));
+        assertTrue(tasks.get(9).isDone());
+        assertThrowsExactly(TomatoException.class, () -> {
+            tasks.getById(taskIds[0]);
+        });
+        tasks.createTodo("task 41");
+        assertEquals(10, tasks.getTaskNumber(tasks.get(10).getId()));
+        assertEquals(11, tasks.getTaskList().stream().mapToLong(Task::getId).distinct().count());
+    }
+
+    @Test
+    public void findTasks_multiWordQuery_allOrAnyWordsMatched() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.createTodo("read Books");
+        tasks.createTodo("return book");
+        tasks.createTodo("buy bread");
+
+        assertEquals(new ArrayList<>(List.of(0, 1)), tasks.findTasks("book", KeywordIndex.Mode.ALL));
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findTasks("READ book", KeywordIndex.Mode.ALL));
+        assertEquals(new ArrayList<>(List.of(0, 2)), tasks.findTasks("read bread", KeywordIndex.Mode.ANY));
+
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(List.of(0, 1)), tasks.findTasks("book bread", KeywordIndex.Mode.ANY));
+    }
+
+    @Test
+    public void findTasks_infixSearchEnabled_fragmentsMatched() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.enableInfixSearch();
+        tasks.createTodo("read Aristotle");
+        tasks.createTodo("buy bread");
+
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findTasks("arist", KeywordIndex.Mode.ALL));
+        assertEquals(new ArrayList<>(List.of(0, 1)), tasks.findTasks("rea", KeywordIndex.Mode.ALL));
+        assertEquals(new ArrayList<>(List.of(1)), tasks.findTasks("ea uy", KeywordIndex.Mode.ALL));
+
+        tasks.updateDescription(0, "read plato");
+        assertEquals(new ArrayList<>(), tasks.findTasks("arist", KeywordIndex.Mode.ALL));
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findTasks("rea", KeywordIndex.Mode.ALL));
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findTasksFuzzy("red", 2, 10));
+    }
+
+    @Test
+    public void findTasks_shortFragmentInLargeList_matchesInListOrder() {
+        ArrayList<Task> loadedTasks = new ArrayList<>();
+        ArrayList<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            loadedTasks.add(new Todo("task " + Integer.toString(i, 36)));
+            if (Integer.toString(i, 36).contains("z")) {
+                expected.add(i);
+            }
+        }
+        TaskList tasks = new TaskList(loadedTasks);
+        tasks.enableInfixSearch();
+
+        assertEquals(expected, tasks.findTasks("Z", KeywordIndex.Mode.ALL));
+    }
+
+    @Test
+    public void findEvents_eventsChanged_overlappingEventsFoundInStartOrder() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.createEvent("conference", LocalDateTime.of(2025, 3, 3, 9, 0), LocalDateTime.of(2025, 3, 5, 18, 0));
+        tasks.createTodo("read book");
+        tasks.createEvent("briefing", LocalDateTime.of(2025, 3, 1, 16, 0), LocalDateTime.of(2025, 3, 1, 17, 0));
+
+        LocalDateTime weekStart = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime weekEnd = LocalDateTime.of(2025, 3, 7, 23, 59);
+        assertEquals(new ArrayList<>(List.of(2, 0)), tasks.findEvents(weekStart, weekEnd));
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findEvents(LocalDateTime.of(2025, 3, 4, 0, 0),
+                LocalDateTime.of(2025, 3, 4, 1, 0)));
 
+        tasks.updateEventTime(2, LocalDateTime.of(2025, 3, 8, 16, 0), LocalDateTime.of(2025, 3, 8, 17, 0));
+        assertEquals(new ArrayList<>(List.of(0)), tasks.findEvents(weekStart, weekEnd));
+
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(), tasks.findEvents(weekStart, weekEnd));
+    }
+
+    @Test
+    public void findDeadlines_deadlinesChanged_earliestUnfinishedDeadlinesFound() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.createDeadline("essay", LocalDateTime.of(2025, 3, 5, 12, 0));
+        tasks.createDeadline("quiz", LocalDateTime.of(2025, 3, 2, 9, 0));
+        tasks.createTodo("read book");
+        tasks.createDeadline("report", LocalDateTime.of(2025, 4, 1, 9, 0));
+
+        LocalDateTime from = LocalDateTime.of(2025, 3, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 3, 8, 0, 0);
+        assertEquals(new ArrayList<>(List.of(1, 0)), tasks.findDeadlines(from, to, 10));
+        assertEquals(new ArrayList<>(List.of(1)), tasks.findDeadlines(from, to, 1));
+
+        tasks.markTask(1);
+        tasks.updateDeadlineTime(3, LocalDateTime.of(2025, 3, 3, 9, 0));
+        assertEquals(new ArrayList<>(List.of(3, 0)), tasks.findDeadlines(from, to, 10));
+
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(List.of(2)), tasks.findDeadlines(from, to, 10));
+    }
+
+    @Test
+    public void filterTasks_manyTasksChanged_statusAndTypeKept() throws TomatoException {
+        ArrayList<Task> loadedTasks = new ArrayList<>();
+        for (int i = 0; i < 70000; i++) {
+            loadedTasks.add(i % 7 == 0 ? new Deadline("task " + i, LocalDateTime.of(2025, 3, 5, 12, 0))
+                    : new Todo("task " + i, i % 3 == 0));
+        }
+        TaskList tasks = new TaskList(loadedTasks);
+        assertEquals(10000, tasks.filterTasks(StatusIndex.Status.ANY, StatusIndex.Type.DEADLINE).size());
+        assertEquals(20000, tasks.filterTasks(StatusIndex.Status.DONE, StatusIndex.Type.TODO).size());
+
+        tasks.markTask(7);
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(List.of(6)), tasks.filterTasks(StatusIndex.Status.DONE,
+                StatusIndex.Type.DEADLINE));
+        assertEquals(9998, tasks.filterTasks(StatusIndex.Status.UNDONE, StatusIndex.Type.DEADLINE).size());
+        assertEquals(tasks.size() - 9999 - 20000,
+                tasks.filterTasks(StatusIndex.Status.UNDONE, StatusIndex.Type.TODO).size());
+    }
+
+    @Test
+    public void findTasksFuzzy_misspeltKeywords_closestTasksFirst() throws TomatoException {
+        TaskList tasks = new TaskList();
+        tasks.createTodo("return books");
+        tasks.createTodo("read book");
+        tasks.createTodo("team meeting notes");
+        tasks.createTodo("buy bread");
+
+        assertEquals(new ArrayList<>(List.of(1)), tasks.findTasksFuzzy("bok", 1, 10));
+        assertEquals(new ArrayList<>(List.of(1, 0, 3)), tasks.findTasksFuzzy("bok", 2, 10));
+        assertEquals(new ArrayList<>(List.of(1)), tasks.findTasksFuzzy("bok", 2, 1));
+        assertEquals(new ArrayList<>(List.of(2)), tasks.findTasksFuzzy("meetnig notse", 2, 10));
+        assertEquals(new ArrayList<>(), tasks.findTasksFuzzy("meetnig", 1, 10));
+
+        tasks.updateDescription(1, "read paper");
+        tasks.deleteTask(0);
+        assertEquals(new ArrayList<>(List.of(2)), tasks.findTasksFuzzy("bok", 2, 10));
+        assertEquals(new ArrayList<>(List.of(0, 2)), tasks.findTasksFuzzy("red", 2, 10));
+    }
 }
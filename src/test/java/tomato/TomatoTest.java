@@ -0,0 +1,101 @@
+package tomato;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import tomato.storage.ShardedStorage;
+import tomato.storage.Storage;
+import tomato.task.Task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TomatoTest {
+    private static final String TASK_FILE_SCRIPT = "src/test/data/TaskListScript.txt";
+    private static final String SHARD_DIR_SCRIPT = "src/test/data/shardsScript";
+    private static final String TASK_FILE_VIEW = "src/test/data/TaskListView.txt";
+
+    @Test
+    public void runScript_failingCommand_changesDiscardedAndLaterSavesWritten() throws Exception {
+        Files.writeString(Path.of(TASK_FILE_SCRIPT), "T|0|read book\n");
+        Tomato tomato = new Tomato(TASK_FILE_SCRIPT);
+        StringWriter output = new StringWriter();
+
+        assertFalse(tomato.runScript(List.of("todo buy milk", "mark 1", "mark 5"), new PrintWriter(output)));
+        assertTrue(output.toString().contains("No changes were saved."));
+        ArrayList<Task> savedTasks = new Storage(TASK_FILE_SCRIPT, true).load();
+        assertEquals(1, savedTasks.size());
+        assertFalse(savedTasks.get(0).isDone());
+
+        assertTrue(tomato.runScript(List.of("todo return books"), new PrintWriter(new StringWriter())));
+        savedTasks = new Storage(TASK_FILE_SCRIPT, true).load();
+        assertEquals(2, savedTasks.size());
+        assertEquals("T|0|read book", savedTasks.get(0).toSave());
+        assertEquals("T|0|return books", savedTasks.get(1).toSave());
+
+        tomato.close();
+        Files.deleteIfExists(Path.of(TASK_FILE_SCRIPT));
+        Files.deleteIfExists(Path.of(TASK_FILE_SCRIPT + ".journal"));
+    }
+
+    @Test
+    public void runScript_shardedStorage_changesSavedIntoShards() throws Exception {
+        Tomato tomato = new Tomato(SHARD_DIR_SCRIPT, true);
+        try {
+            assertTrue(tomato.runScript(List.of("todo buy milk", "deadline return books /by 2/2/2025 1900",
+                    "mark 2"), new PrintWriter(new StringWriter())));
+            assertFalse(tomato.runScript(List.of("delete 1", "mark 5"), new PrintWriter(new StringWriter())));
+
+            assertTrue(Files.exists(Path.of(SHARD_DIR_SCRIPT, "deadline-2025-02.txt")));
+            ArrayList<Task> savedTasks = new ShardedStorage(SHARD_DIR_SCRIPT).load();
+            assertEquals(2, savedTasks.size());
+            assertEquals("T|0|buy milk", savedTasks.get(0).toSave());
+            assertTrue(savedTasks.get(1).isDone());
+        } finally {
+            tomato.close();
+            try (DirectoryStream<Path> shardFiles = Files.newDirectoryStream(Path.of(SHARD_DIR_SCRIPT))) {
+                for (Path shardFile : shardFiles) {
+                    Files.delete(shardFile);
+                }
+            }
+            Files.delete(Path.of(SHARD_DIR_SCRIPT));
+        }
+    }
+
+    @Test
+    public void viewTaskFile_pageAndFind_onlyShownTasksDecoded() throws Exception {
+        StringBuilder contents = new StringBuilder();
+        for (int i = 1; i <= 25; i++) {
+            contents.append("T|").append(i == 17 ? 1 : 0).append("|Task ").append(i).append("\n");
+        }
+        // a corrupted last record only fails the commands that show it
+        contents.append("X|corrupted\n");
+        Files.writeString(Path.of(TASK_FILE_VIEW), contents.toString());
+        try {
+            StringWriter output = new StringWriter();
+            String commands = "list 1 2\nfind task 7\nlist 13 2\nmark 1\nlist done\nbye\nlist\n";
+            Tomato.viewTaskFile(TASK_FILE_VIEW, new BufferedReader(new StringReader(commands)),
+                    new PrintWriter(output));
+
+            String expected = "Here are the tasks in your list (page 1 of 13):\n1. [T][ ] Task 1\n2. [T][ ] Task 2\n\n"
+                    + "Here are the matching tasks in your list:\n1.[T][ ] Task 7\n2.[T][X] Task 17\n\n";
+            assertTrue(output.toString().startsWith(expected), output.toString());
+            assertTrue(output.toString().contains("Unknown task type: X"));
+            assertTrue(output.toString().contains("Only list and find can be used while viewing a task file."));
+            assertTrue(output.toString().contains("Only the whole list, a page of it or its first tasks"));
+            assertFalse(output.toString().contains("Task 25"));
+        } finally {
+            Files.deleteIfExists(Path.of(TASK_FILE_VIEW));
+        }
+    }
+}